@@ -0,0 +1,82 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream.benchmarks;
+
+import com.github.achatain.googledrivestream.GoogleDriveStream;
+import com.github.achatain.googledrivestream.PageSizePolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class LargeListingBenchmark {
+
+    @Param({"1000000"})
+    public int files;
+
+    @Param({"0", "20"})
+    public long latencyMillis;
+
+    @Param({"100", "460", "1000"})
+    public int pageSize;
+
+    @Param({"DEFAULT", "PROJECTION", "PREFETCH", "STREAMING_PARSER", "ADAPTIVE_PAGES"})
+    public Variant variant;
+
+    private GoogleDriveStream stream;
+
+    @Setup
+    public void setUp() {
+        stream = variant.configure(new GoogleDriveStream(new SyntheticDrive(files, latencyMillis).drive())
+                .withPageSizePolicy(PageSizePolicy.fixed(pageSize)));
+    }
+
+    @Benchmark
+    public long listMillionFiles() {
+        return stream.files().count();
+    }
+
+    @Benchmark
+    public long listMillionFilesInParallel() {
+        return stream.files(8).count();
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream.benchmarks;
+
+import com.github.achatain.googledrivestream.GoogleDriveStream;
+import com.github.achatain.googledrivestream.PageSizePolicy;
+import com.google.api.services.drive.model.File;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListingBenchmark {
+
+    @Param({"10000"})
+    public int files;
+
+    @Param({"0", "20"})
+    public long latencyMillis;
+
+    @Param({"100", "460", "1000"})
+    public int pageSize;
+
+    @Param({"DEFAULT", "PROJECTION", "PREFETCH", "STREAMING_PARSER", "ADAPTIVE_PAGES"})
+    public Variant variant;
+
+    private SyntheticDrive syntheticDrive;
+    private GoogleDriveStream stream;
+
+    @Setup
+    public void setUp() {
+        syntheticDrive = new SyntheticDrive(files, latencyMillis);
+        stream = variant.configure(new GoogleDriveStream(syntheticDrive.drive())
+                .withPageSizePolicy(PageSizePolicy.fixed(pageSize)));
+    }
+
+    @Benchmark
+    public void listAll(Throughput throughput, Blackhole blackhole) {
+        long bytesBefore = syntheticDrive.responseBytes();
+        try (Stream<File> listing = stream.files()) {
+            listing.forEach(file -> {
+                throughput.files++;
+                blackhole.consume(file);
+            });
+        }
+        throughput.responseBytes += syntheticDrive.responseBytes() - bytesBefore;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public File timeToFirstElement() {
+        try (Stream<File> listing = stream.files()) {
+            return listing.findFirst().orElse(null);
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Throughput {
+        public long files;
+        public long responseBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            files = 0L;
+            responseBytes = 0L;
+        }
+    }
+}
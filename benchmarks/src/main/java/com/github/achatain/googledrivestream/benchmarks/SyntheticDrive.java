@@ -0,0 +1,200 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream.benchmarks;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.Drive;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+
+final class SyntheticDrive extends MockHttpTransport {
+
+    private static final Pattern FILE_FIELDS = Pattern.compile("files\\((.*)\\)");
+    private static final Pattern CREATED_TIME = Pattern.compile("createdTime (>=|<) '([^']*)'");
+    private static final Set<String> ALL_FIELDS = new LinkedHashSet<>(Arrays.asList(
+            "kind", "id", "name", "mimeType", "description", "starred", "trashed", "parents", "webViewLink",
+            "iconLink", "createdTime", "modifiedTime", "ownedByMe", "md5Checksum", "size"));
+    private static final long EPOCH = DateTime.parseRfc3339("2018-01-01T00:00:00.000Z").getValue();
+
+    private final int fileCount;
+    private final long latencyMillis;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+
+    SyntheticDrive(int fileCount, long latencyMillis) {
+        this.fileCount = fileCount;
+        this.latencyMillis = latencyMillis;
+    }
+
+    Drive drive() {
+        return new Drive.Builder(this, JacksonFactory.getDefaultInstance(), null).setApplicationName("synthetic-drive").build();
+    }
+
+    long requests() {
+        return requests.get();
+    }
+
+    long responseBytes() {
+        return responseBytes.get();
+    }
+
+    @Override
+    public LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest(url) {
+            @Override
+            public LowLevelHttpResponse execute() throws IOException {
+                return page(new GenericUrl(url));
+            }
+        };
+    }
+
+    private LowLevelHttpResponse page(GenericUrl url) throws IOException {
+        requests.incrementAndGet();
+        if (latencyMillis > 0)
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+
+        int first = 0;
+        int end = fileCount;
+        Matcher createdTime = CREATED_TIME.matcher(String.valueOf(url.getFirst("q")));
+        while (createdTime.find()) {
+            int bound = index(Instant.parse(createdTime.group(2)));
+            if (">=".equals(createdTime.group(1)))
+                first = Math.max(first, bound);
+            else
+                end = Math.min(end, bound);
+        }
+
+        int pageSize = Integer.parseInt((String) url.getFirst("pageSize"));
+        Object pageToken = url.getFirst("pageToken");
+        int from = isNull(pageToken) ? first : Integer.parseInt((String) pageToken);
+        int to = Math.max(from, Math.min(from + pageSize, end));
+        Set<String> fields = fields((String) url.getFirst("fields"));
+
+        StringBuilder json = new StringBuilder(512 * (to - from) + 64).append("{\"kind\":\"drive#fileList\",");
+        if (to < end)
+            json.append("\"nextPageToken\":\"").append(to).append("\",");
+        json.append("\"incompleteSearch\":false,\"files\":[");
+        for (int i = from; i < to; i++) {
+            if (i > from)
+                json.append(',');
+            appendFile(json, i, fields);
+        }
+        byte[] content = json.append("]}").toString().getBytes(UTF_8);
+        responseBytes.addAndGet(content.length);
+        return new MockLowLevelHttpResponse().setContentType(Json.MEDIA_TYPE).setContent(content);
+    }
+
+    private int index(Instant createdTime) {
+        long first = -Math.floorDiv(EPOCH - createdTime.toEpochMilli(), 1_000L);
+        return (int) Math.max(0L, Math.min(first, fileCount));
+    }
+
+    private static Set<String> fields(String fields) {
+        Matcher fileFields = FILE_FIELDS.matcher(String.valueOf(fields));
+        if (!fileFields.find())
+            return ALL_FIELDS;
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fileFields.group(1).split(","))
+            selected.add(field.split("[/(]")[0]);
+        return selected;
+    }
+
+    private static void appendFile(StringBuilder json, int index, Set<String> fields) {
+        json.append('{');
+        boolean first = true;
+        for (String field : fields) {
+            String value = value(field, index);
+            if (isNull(value))
+                continue;
+            if (!first)
+                json.append(',');
+            json.append('"').append(field).append("\":").append(value);
+            first = false;
+        }
+        json.append('}');
+    }
+
+    private static String value(String field, int index) {
+        switch (field) {
+            case "kind":
+                return "\"drive#file\"";
+            case "id":
+                return "\"file-" + index + "\"";
+            case "name":
+                return "\"Synthetic file " + index + ".txt\"";
+            case "mimeType":
+                return index % 10 == 0 ? "\"application/vnd.google-apps.folder\"" : "\"text/plain\"";
+            case "description":
+                return "\"A synthetic file whose metadata is about as large as a real one\"";
+            case "starred":
+                return String.valueOf(index % 7 == 0);
+            case "trashed":
+            case "ownedByMe":
+                return index % 7 == 0 ? "false" : "true";
+            case "parents":
+                return "[\"folder-" + index / 100 + "\"]";
+            case "webViewLink":
+                return "\"https://drive.google.com/file/d/file-" + index + "/view?usp=drivesdk\"";
+            case "iconLink":
+                return "\"https://drive-thirdparty.googleusercontent.com/16/type/text/plain\"";
+            case "createdTime":
+                return "\"" + new DateTime(EPOCH + index * 1_000L).toStringRfc3339() + "\"";
+            case "modifiedTime":
+                return "\"" + new DateTime(EPOCH + index * 2_000L).toStringRfc3339() + "\"";
+            case "md5Checksum":
+                return "\"" + String.format("%032x", index) + "\"";
+            case "size":
+                return "\"" + index * 1_024L + "\"";
+            default:
+                return null;
+        }
+    }
+}
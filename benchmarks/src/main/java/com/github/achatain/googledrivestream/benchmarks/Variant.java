@@ -0,0 +1,67 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream.benchmarks;
+
+import com.github.achatain.googledrivestream.GoogleDriveStream;
+import com.github.achatain.googledrivestream.PageSizePolicy;
+import com.github.achatain.googledrivestream.Projection;
+
+public enum Variant {
+
+    DEFAULT {
+        @Override
+        GoogleDriveStream configure(GoogleDriveStream stream) {
+            return stream;
+        }
+    },
+    PROJECTION {
+        @Override
+        GoogleDriveStream configure(GoogleDriveStream stream) {
+            return stream.withProjection(Projection.of("id", "name", "mimeType", "size"));
+        }
+    },
+    PREFETCH {
+        @Override
+        GoogleDriveStream configure(GoogleDriveStream stream) {
+            return stream.withPrefetch(2);
+        }
+    },
+    STREAMING_PARSER {
+        @Override
+        GoogleDriveStream configure(GoogleDriveStream stream) {
+            return stream.withStreamingParser();
+        }
+    },
+    ADAPTIVE_PAGES {
+        @Override
+        GoogleDriveStream configure(GoogleDriveStream stream) {
+            return stream.withPageSizePolicy(PageSizePolicy.adaptive());
+        }
+    };
+
+    abstract GoogleDriveStream configure(GoogleDriveStream stream);
+}
@@ -0,0 +1,143 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.PermissionList;
+import com.google.api.services.drive.model.RevisionList;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.nonNull;
+
+final class BatchEnricher implements BatchExecutor.Handler<BatchEnricher.Call> {
+
+    private static final String PERMISSION_FIELDS = "nextPageToken,permissions";
+    private static final String REVISION_FIELDS = "nextPageToken,revisions";
+    private static final int PERMISSION_PAGE_SIZE = 100;
+    private static final int REVISION_PAGE_SIZE = 1000;
+    private static final String ERROR = "Failed to enrich a batch of [%d] calls.";
+
+    private enum Kind {METADATA, PERMISSIONS, REVISIONS}
+
+    private final Drive drive;
+    private final EnrichmentSpec spec;
+    private final BatchExecutor executor;
+
+    BatchEnricher(Drive drive, ListingOptions options, EnrichmentSpec spec) {
+        this.drive = drive;
+        this.spec = spec;
+        executor = new BatchExecutor(drive, options, spec.retryPolicy(), ERROR);
+    }
+
+    List<EnrichedFile> enrich(List<File> files) {
+        List<EnrichedFile> enrichedFiles = new ArrayList<>(files.size());
+        List<Call> calls = new ArrayList<>();
+        for (File file : files) {
+            EnrichedFile enrichedFile = new EnrichedFile(file, spec);
+            enrichedFiles.add(enrichedFile);
+            if (spec.metadataRequested())
+                calls.add(new Call(Kind.METADATA, enrichedFile, null));
+            if (spec.permissionsRequested())
+                calls.add(new Call(Kind.PERMISSIONS, enrichedFile, null));
+            if (spec.revisionsRequested())
+                calls.add(new Call(Kind.REVISIONS, enrichedFile, null));
+        }
+        executor.execute(calls, this);
+        return enrichedFiles;
+    }
+
+    @Override
+    public void queue(BatchRequest batch, Call call, BatchExecutor.Round<Call> round) throws IOException {
+        String fileId = call.target.file().getId();
+        switch (call.kind) {
+            case METADATA:
+                drive.files().get(fileId).setFields(spec.metadataFields()).queue(batch, round.callback(call));
+                break;
+            case PERMISSIONS:
+                Drive.Permissions.List permissions = drive.permissions().list(fileId)
+                        .setFields(PERMISSION_FIELDS).setPageSize(PERMISSION_PAGE_SIZE);
+                if (nonNull(call.pageToken))
+                    permissions = permissions.setPageToken(call.pageToken);
+                permissions.queue(batch, round.callback(call));
+                break;
+            case REVISIONS:
+                Drive.Revisions.List revisions = drive.revisions().list(fileId)
+                        .setFields(REVISION_FIELDS).setPageSize(REVISION_PAGE_SIZE);
+                if (nonNull(call.pageToken))
+                    revisions = revisions.setPageToken(call.pageToken);
+                revisions.queue(batch, round.callback(call));
+                break;
+        }
+    }
+
+    @Override
+    public void succeeded(Call call, Object result, List<Call> continuations) {
+        switch (call.kind) {
+            case METADATA:
+                call.target.metadata((File) result);
+                break;
+            case PERMISSIONS:
+                PermissionList permissions = (PermissionList) result;
+                call.target.addPermissions(permissions.getPermissions());
+                continueWith(call, permissions.getNextPageToken(), continuations);
+                break;
+            case REVISIONS:
+                RevisionList revisions = (RevisionList) result;
+                call.target.addRevisions(revisions.getRevisions());
+                continueWith(call, revisions.getNextPageToken(), continuations);
+                break;
+        }
+    }
+
+    private static void continueWith(Call call, String nextPageToken, List<Call> continuations) {
+        if (nonNull(nextPageToken))
+            continuations.add(new Call(call.kind, call.target, nextPageToken));
+    }
+
+    @Override
+    public void failed(Call call, GoogleJsonError error) {
+        call.target.fail(error);
+    }
+
+    static final class Call {
+        private final Kind kind;
+        private final EnrichedFile target;
+        private final String pageToken;
+
+        private Call(Kind kind, EnrichedFile target, String pageToken) {
+            this.kind = kind;
+            this.target = target;
+            this.pageToken = pageToken;
+        }
+    }
+}
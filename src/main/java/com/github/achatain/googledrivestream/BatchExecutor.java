@@ -0,0 +1,153 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.util.BackOff;
+import com.google.api.services.drive.Drive;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+final class BatchExecutor {
+
+    private final Drive drive;
+    private final ListingOptions options;
+    private final RetryPolicy retryPolicy;
+    private final String error;
+    private final GenericUrl batchUrl;
+
+    BatchExecutor(Drive drive, ListingOptions options, RetryPolicy retryPolicy, String error) {
+        this.drive = drive;
+        this.options = options;
+        this.retryPolicy = retryPolicy;
+        this.error = error;
+        batchUrl = new GenericUrl(drive.getRootUrl() + Drive.DEFAULT_BATCH_PATH);
+    }
+
+    <C> boolean execute(List<C> calls, Handler<C> handler) {
+        Map<C, Integer> attempts = new IdentityHashMap<>();
+        Congestion congestion = new Congestion();
+        List<C> pending = calls;
+        try {
+            BackOff backOff = retryPolicy.newBackOff();
+            while (!pending.isEmpty()) {
+                Round<C> round = execute(pending, handler, congestion);
+                List<C> next = new ArrayList<>();
+                List<C> retries = new ArrayList<>();
+                for (C call : pending)
+                    if (round.successes.containsKey(call))
+                        handler.succeeded(call, round.successes.get(call), next);
+                    else if (round.failures.containsKey(call)) {
+                        GoogleJsonError failure = round.failures.get(call);
+                        if (RetryPolicy.throttled(failure))
+                            congestion.throttled = true;
+                        int attempt = attempts.getOrDefault(call, 1);
+                        if (attempt < retryPolicy.maxAttempts() && RetryPolicy.retryable(failure)) {
+                            attempts.put(call, attempt + 1);
+                            retries.add(call);
+                        } else
+                            handler.failed(call, failure);
+                    }
+                pending = next;
+                if (retries.isEmpty())
+                    continue;
+                long wait = backOff.nextBackOffMillis();
+                if (wait == BackOff.STOP) {
+                    retries.forEach(call -> handler.failed(call, round.failures.get(call)));
+                    continue;
+                }
+                retryPolicy.sleep(wait);
+                pending.addAll(retries);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(format(error, pending.size()), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(format(error, pending.size()), e);
+        }
+        return congestion.throttled;
+    }
+
+    private <C> Round<C> execute(List<C> calls, Handler<C> handler, Congestion congestion) throws IOException, InterruptedException {
+        return retryPolicy.execute(() -> {
+            Round<C> attempt = new Round<>();
+            BatchRequest batch = drive.batch().setBatchUrl(batchUrl);
+            for (C call : calls)
+                handler.queue(batch, call, attempt);
+            try {
+                batch.execute();
+            } catch (HttpResponseException e) {
+                if (RetryPolicy.throttled(e))
+                    congestion.throttled = true;
+                throw e;
+            }
+            return attempt;
+        }, options.rateLimiter(), calls.size());
+    }
+
+    interface Handler<C> {
+        void queue(BatchRequest batch, C call, Round<C> round) throws IOException;
+
+        void succeeded(C call, Object result, List<C> continuations);
+
+        void failed(C call, GoogleJsonError error);
+    }
+
+    static final class Round<C> {
+        private final Map<C, Object> successes = new IdentityHashMap<>();
+        private final Map<C, GoogleJsonError> failures = new IdentityHashMap<>();
+
+        <T> JsonBatchCallback<T> callback(C call) {
+            return new JsonBatchCallback<>() {
+                @Override
+                public void onSuccess(T result, HttpHeaders responseHeaders) {
+                    successes.put(call, result);
+                }
+
+                @Override
+                public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+                    failures.put(call, error);
+                }
+            };
+        }
+    }
+
+    private static final class Congestion {
+        private boolean throttled;
+    }
+}
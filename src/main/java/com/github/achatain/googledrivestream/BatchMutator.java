@@ -0,0 +1,164 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.File;
+
+import java.io.IOException;
+import java.util.List;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+final class BatchMutator implements BatchExecutor.Handler<BatchMutator.Call> {
+
+    static final String RESULT_FIELDS = "id,name,mimeType,parents,trashed";
+
+    private static final String ERROR = "Failed to apply a batch of [%d] mutations.";
+    private static final String NO_PARENTS = "Cannot move file [%s] whose parents were not listed.";
+    private static final String INVALID_MUTATION = "invalidMutation";
+    private static final int BAD_REQUEST = 400;
+
+    private final Drive drive;
+    private final BatchExecutor executor;
+
+    BatchMutator(Drive drive, ListingOptions options, RetryPolicy retryPolicy) {
+        this.drive = drive;
+        executor = new BatchExecutor(drive, options, retryPolicy, ERROR);
+    }
+
+    Applied apply(List<Call> calls) {
+        return new Applied(calls, executor.execute(calls, this));
+    }
+
+    @Override
+    public void queue(BatchRequest batch, Call call, BatchExecutor.Round<Call> round) throws IOException {
+        String fileId = call.file.getId();
+        switch (call.mutation.kind()) {
+            case DELETE:
+                drive.files().delete(fileId).queue(batch, round.callback(call));
+                break;
+            case UPDATE:
+                Drive.Files.Update update = drive.files().update(fileId, call.mutation.patch()).setFields(RESULT_FIELDS);
+                if (nonNull(call.mutation.addParents()))
+                    update = update.setAddParents(call.mutation.addParents());
+                if (nonNull(call.removeParents))
+                    update = update.setRemoveParents(call.removeParents);
+                update.queue(batch, round.<File>callback(call));
+                break;
+            default:
+                throw new IllegalStateException(call.mutation.toString());
+        }
+    }
+
+    @Override
+    public void succeeded(Call call, Object result, List<Call> continuations) {
+        call.result = new MutationResult(call.file, call.mutation, MutationResult.Status.APPLIED, (File) result, null);
+    }
+
+    @Override
+    public void failed(Call call, GoogleJsonError error) {
+        call.result = new MutationResult(call.file, call.mutation, MutationResult.Status.FAILED, null, error);
+    }
+
+    private static GoogleJsonError noParents(File file) {
+        String message = format(NO_PARENTS, file.getId());
+        GoogleJsonError.ErrorInfo reason = new GoogleJsonError.ErrorInfo();
+        reason.setReason(INVALID_MUTATION);
+        reason.setMessage(message);
+        GoogleJsonError error = new GoogleJsonError();
+        error.setCode(BAD_REQUEST);
+        error.setMessage(message);
+        error.setErrors(List.of(reason));
+        return error;
+    }
+
+    static final class Call {
+        private final File file;
+        private final Mutation mutation;
+        private File basis;
+        private String removeParents;
+        private MutationResult result;
+
+        Call(File file, Mutation mutation) {
+            this.file = file;
+            this.mutation = mutation;
+            basis = file;
+        }
+
+        String fileId() {
+            return file.getId();
+        }
+
+        MutationResult result() {
+            return result;
+        }
+
+        void rebase(Call previous) {
+            File updated = isNull(previous.result) ? null : previous.result.updated();
+            if (nonNull(updated) && nonNull(updated.getParents()))
+                basis = updated;
+        }
+
+        boolean resolve() {
+            if (!mutation.appliesTo(basis)) {
+                result = new MutationResult(file, mutation, MutationResult.Status.FAILED, null, noParents(file));
+                return false;
+            }
+            removeParents = mutation.removeParents(basis);
+            return true;
+        }
+
+        MutationResult dryRun() {
+            if (!mutation.appliesTo(file))
+                return new MutationResult(file, mutation, MutationResult.Status.FAILED, null, noParents(file));
+            return new MutationResult(file, mutation, MutationResult.Status.DRY_RUN, null, null);
+        }
+    }
+
+    static final class Applied {
+        private final List<Call> calls;
+        private final boolean throttled;
+
+        private Applied(List<Call> calls, boolean throttled) {
+            this.calls = calls;
+            this.throttled = throttled;
+        }
+
+        List<Call> calls() {
+            return calls;
+        }
+
+        boolean throttled() {
+            return throttled;
+        }
+    }
+}
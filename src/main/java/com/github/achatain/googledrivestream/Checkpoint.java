@@ -0,0 +1,118 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import java.util.Objects;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+
+public final class Checkpoint {
+
+    private static final Checkpoint START = new Checkpoint(null, 0, 0);
+    private static final char SEPARATOR = ':';
+    private static final char PAGE_SIZE_SEPARATOR = '/';
+    private static final String INVALID_OFFSET = "Offset must not be negative but was [%d].";
+    private static final String INVALID_PAGE_SIZE = "Page size must be between 0 and " + PageSizePolicy.MAX_PAGE_SIZE + " but was [%d].";
+    private static final String MALFORMED = "Malformed checkpoint [%s].";
+
+    private final String pageToken;
+    private final int offset;
+    private final int pageSize;
+
+    private Checkpoint(String pageToken, int offset, int pageSize) {
+        this.pageToken = pageToken;
+        this.offset = offset;
+        this.pageSize = pageSize;
+    }
+
+    public static Checkpoint start() {
+        return START;
+    }
+
+    public static Checkpoint of(String pageToken, int offset) {
+        return of(pageToken, offset, 0);
+    }
+
+    public static Checkpoint of(String pageToken, int offset, int pageSize) {
+        if (offset < 0)
+            throw new IllegalArgumentException(format(INVALID_OFFSET, offset));
+        if (pageSize < 0 || pageSize > PageSizePolicy.MAX_PAGE_SIZE)
+            throw new IllegalArgumentException(format(INVALID_PAGE_SIZE, pageSize));
+        return isNull(pageToken) && offset == 0 ? START : new Checkpoint(pageToken, offset, pageSize);
+    }
+
+    public static Checkpoint parse(String checkpoint) {
+        int separator = checkpoint.indexOf(SEPARATOR);
+        if (separator < 1)
+            throw new IllegalArgumentException(format(MALFORMED, checkpoint));
+        try {
+            String pageToken = checkpoint.substring(separator + 1);
+            String position = checkpoint.substring(0, separator);
+            int pageSizeSeparator = position.indexOf(PAGE_SIZE_SEPARATOR);
+            if (pageSizeSeparator < 0)
+                return of(pageToken.isEmpty() ? null : pageToken, Integer.parseInt(position));
+            return of(pageToken.isEmpty() ? null : pageToken, Integer.parseInt(position.substring(0, pageSizeSeparator)),
+                    Integer.parseInt(position.substring(pageSizeSeparator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(format(MALFORMED, checkpoint), e);
+        }
+    }
+
+    public String pageToken() {
+        return pageToken;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    public int pageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof Checkpoint))
+            return false;
+        Checkpoint checkpoint = (Checkpoint) other;
+        return offset == checkpoint.offset && pageSize == checkpoint.pageSize && Objects.equals(pageToken, checkpoint.pageToken);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(pageToken, offset, pageSize);
+    }
+
+    @Override
+    public String toString() {
+        String position = pageSize == 0 ? String.valueOf(offset) : offset + "/" + pageSize;
+        return isNull(pageToken) ? position + ":" : position + ":" + pageToken;
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.FileList;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+final class CheckpointSpliterator implements Spliterator<CheckpointedFile>, AutoCloseable {
+
+    private final GoogleDriveFileSpliterator source;
+    private final ListingOptions options;
+    private final Checkpoint start;
+    private final CheckpointStore store;
+    private final int saveEvery;
+    private final Deque<CheckpointedFile> pending;
+
+    private PagePrefetcher prefetcher;
+    private List<File> page;
+    private String pageToken;
+    private String nextPageToken;
+    private boolean firstPageFetched;
+    private int index;
+
+    private Checkpoint committed;
+    private int unsaved;
+    private boolean exhausted;
+
+    CheckpointSpliterator(GoogleDriveFileSpliterator source, ListingOptions options, Checkpoint start, CheckpointStore store, int saveEvery) {
+        this.source = source;
+        this.options = options;
+        this.start = start;
+        this.store = store;
+        this.saveEvery = saveEvery;
+        pending = new ArrayDeque<>();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super CheckpointedFile> fileConsumer) {
+        while (isNull(page) || index >= page.size()) {
+            if (firstPageFetched && isNull(nextPageToken)) {
+                exhaust();
+                return false;
+            }
+            fetchNextPage();
+        }
+
+        CheckpointedFile file = new CheckpointedFile(page.get(index), Checkpoint.of(pageToken, index + 1, page.size()), this);
+        index++;
+        synchronized (this) {
+            pending.add(file);
+        }
+        fileConsumer.accept(file);
+        return true;
+    }
+
+    private void fetchNextPage() {
+        String token = firstPageFetched ? nextPageToken : start.pageToken();
+        FileList next = firstPageFetched || start.offset() == 0 ? fetch(token) : source.fetchPage(token, resumedPageSize());
+        pageToken = token;
+        page = next.getFiles();
+        nextPageToken = next.getNextPageToken();
+        index = firstPageFetched ? 0 : Math.min(start.offset(), page.size());
+        firstPageFetched = true;
+    }
+
+    private FileList fetch(String token) {
+        return options.prefetching() ? prefetcher(token).next() : source.fetchPage(token);
+    }
+
+    private int resumedPageSize() {
+        return start.pageSize() > 0 ? start.pageSize() : PageSizePolicy.MAX_PAGE_SIZE;
+    }
+
+    private PagePrefetcher prefetcher(String token) {
+        if (isNull(prefetcher))
+            prefetcher = new PagePrefetcher(source::fetchPage, token, options.prefetchPages(), options.prefetchExecutor());
+        return prefetcher;
+    }
+
+    synchronized void acknowledge(CheckpointedFile file) {
+        if (file.acknowledged())
+            return;
+        file.markAcknowledged();
+        while (!pending.isEmpty() && pending.peek().acknowledged()) {
+            committed = pending.poll().checkpoint();
+            unsaved++;
+        }
+        if (exhausted && pending.isEmpty())
+            complete();
+        else if (unsaved >= saveEvery)
+            save();
+    }
+
+    private synchronized void exhaust() {
+        exhausted = true;
+        if (pending.isEmpty())
+            complete();
+    }
+
+    private void complete() {
+        unsaved = 0;
+        if (nonNull(store))
+            store.clear();
+    }
+
+    private void save() {
+        unsaved = 0;
+        if (nonNull(store))
+            store.save(committed);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (nonNull(prefetcher))
+            prefetcher.close();
+        if (unsaved > 0)
+            save();
+    }
+
+    @Override
+    public Spliterator<CheckpointedFile> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public interface CheckpointStore {
+
+    Optional<Checkpoint> load();
+
+    void save(Checkpoint checkpoint);
+
+    void clear();
+
+    static CheckpointStore inMemory() {
+        AtomicReference<Checkpoint> saved = new AtomicReference<>();
+        return new CheckpointStore() {
+            @Override
+            public Optional<Checkpoint> load() {
+                return Optional.ofNullable(saved.get());
+            }
+
+            @Override
+            public void save(Checkpoint checkpoint) {
+                saved.set(checkpoint);
+            }
+
+            @Override
+            public void clear() {
+                saved.set(null);
+            }
+        };
+    }
+
+    static CheckpointStore file(Path path) {
+        return new CheckpointStore() {
+            @Override
+            public Optional<Checkpoint> load() {
+                try {
+                    return Files.exists(path) ? Optional.of(Checkpoint.parse(new String(Files.readAllBytes(path), UTF_8).trim())) : Optional.empty();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void save(Checkpoint checkpoint) {
+                try {
+                    Path temporary = Files.write(path.resolveSibling(path.getFileName() + ".tmp"), checkpoint.toString().getBytes(UTF_8));
+                    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void clear() {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+}
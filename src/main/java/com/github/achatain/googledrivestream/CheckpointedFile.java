@@ -0,0 +1,69 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+
+public final class CheckpointedFile {
+
+    private final File file;
+    private final Checkpoint checkpoint;
+    private final CheckpointSpliterator source;
+
+    private boolean acknowledged;
+
+    CheckpointedFile(File file, Checkpoint checkpoint, CheckpointSpliterator source) {
+        this.file = file;
+        this.checkpoint = checkpoint;
+        this.source = source;
+    }
+
+    public File file() {
+        return file;
+    }
+
+    public Checkpoint checkpoint() {
+        return checkpoint;
+    }
+
+    public void acknowledge() {
+        source.acknowledge(this);
+    }
+
+    boolean acknowledged() {
+        return acknowledged;
+    }
+
+    void markAcknowledged() {
+        acknowledged = true;
+    }
+
+    @Override
+    public String toString() {
+        return checkpoint + " " + file.getId();
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+final class CreatedTimeRange {
+
+    private static final Duration MIN_WIDTH = Duration.ofSeconds(1);
+    private static final String FROM = "createdTime >= '%s'";
+    private static final String UNTIL = "createdTime < '%s'";
+
+    private final Instant from;
+    private final Instant until;
+    private final Instant horizon;
+
+    private CreatedTimeRange(Instant from, Instant until, Instant horizon) {
+        this.from = from;
+        this.until = until;
+        this.horizon = horizon;
+    }
+
+    static CreatedTimeRange unbounded(Instant horizon) {
+        return new CreatedTimeRange(null, null, horizon.truncatedTo(ChronoUnit.MILLIS));
+    }
+
+    CreatedTimeRange from(Instant newFrom) {
+        return new CreatedTimeRange(newFrom, until, horizon);
+    }
+
+    CreatedTimeRange[] split() {
+        Instant pivot = pivot();
+        if (isNull(pivot))
+            return null;
+        return new CreatedTimeRange[]{
+                new CreatedTimeRange(from, pivot, horizon),
+                new CreatedTimeRange(pivot, until, horizon)
+        };
+    }
+
+    private Instant pivot() {
+        if (isNull(from))
+            return null;
+        Duration width = Duration.between(from, nonNull(until) ? until : horizon);
+        if (width.compareTo(MIN_WIDTH) < 0)
+            return null;
+        return from.plus(width.dividedBy(2)).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    String toQuery() {
+        if (nonNull(from) && nonNull(until))
+            return format(FROM, from) + " and " + format(UNTIL, until);
+        if (nonNull(from))
+            return format(FROM, from);
+        if (nonNull(until))
+            return format(UNTIL, until);
+        return null;
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+final class DigestRun implements AutoCloseable {
+
+    static final int SEGMENT_SIZE = 1 << 20;
+
+    private static final int RECORD_BYTES = 32;
+    private static final int RECORDS_PER_SEGMENT = SEGMENT_SIZE / RECORD_BYTES;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    private static final String SPILL_ERROR = "Failed to spill file digests to [%s].";
+
+    private final DuplicateOptions options;
+    private final AtomicLong memoryUsed;
+    private final List<ByteBuffer> records;
+    private final List<ByteBuffer> ids;
+
+    private long count;
+    private long heapBytes;
+    private FileChannel spill;
+    private long spilledBytes;
+
+    DigestRun(DuplicateOptions options, AtomicLong memoryUsed) {
+        this.options = options;
+        this.memoryUsed = memoryUsed;
+        records = new ArrayList<>();
+        ids = new ArrayList<>();
+    }
+
+    void add(long high, long low, long size, String id) {
+        long idRef = storeId(id.getBytes(UTF_8));
+        int segment = (int) (count / RECORDS_PER_SEGMENT);
+        if (segment == records.size())
+            records.add(allocate());
+        int offset = (int) (count % RECORDS_PER_SEGMENT) * RECORD_BYTES;
+        records.get(segment)
+                .putLong(offset, high)
+                .putLong(offset + 8, low)
+                .putLong(offset + 16, size)
+                .putLong(offset + 24, idRef);
+        count++;
+    }
+
+    private long storeId(byte[] id) {
+        ByteBuffer segment = ids.isEmpty() ? null : ids.get(ids.size() - 1);
+        if (isNull(segment) || segment.remaining() < id.length + Short.BYTES) {
+            segment = allocate();
+            ids.add(segment);
+        }
+        long idRef = (long) (ids.size() - 1) * SEGMENT_SIZE + segment.position();
+        segment.putShort((short) id.length).put(id);
+        return idRef;
+    }
+
+    private ByteBuffer allocate() {
+        if (memoryUsed.addAndGet(SEGMENT_SIZE) <= options.memoryBudget() || isNull(options.spillDirectory())) {
+            heapBytes += SEGMENT_SIZE;
+            return options.offHeapSegments() ? ByteBuffer.allocateDirect(SEGMENT_SIZE) : ByteBuffer.allocate(SEGMENT_SIZE);
+        }
+        memoryUsed.addAndGet(-SEGMENT_SIZE);
+        try {
+            if (isNull(spill)) {
+                Path file = Files.createTempFile(options.spillDirectory(), "duplicates-", ".spill");
+                spill = FileChannel.open(file, READ, WRITE, DELETE_ON_CLOSE);
+            }
+            ByteBuffer mapped = spill.map(FileChannel.MapMode.READ_WRITE, spilledBytes, SEGMENT_SIZE);
+            spilledBytes += SEGMENT_SIZE;
+            return mapped;
+        } catch (IOException e) {
+            throw new UncheckedIOException(format(SPILL_ERROR, options.spillDirectory()), e);
+        }
+    }
+
+    long count() {
+        return count;
+    }
+
+    long spilledBytes() {
+        return spilledBytes;
+    }
+
+    long high(long record) {
+        return records.get(segment(record)).getLong(offset(record));
+    }
+
+    long low(long record) {
+        return records.get(segment(record)).getLong(offset(record) + 8);
+    }
+
+    long size(long record) {
+        return records.get(segment(record)).getLong(offset(record) + 16);
+    }
+
+    String id(long record) {
+        long idRef = records.get(segment(record)).getLong(offset(record) + 24);
+        ByteBuffer segment = ids.get((int) (idRef / SEGMENT_SIZE)).duplicate();
+        segment.position((int) (idRef % SEGMENT_SIZE));
+        byte[] id = new byte[segment.getShort()];
+        segment.get(id);
+        return new String(id, UTF_8);
+    }
+
+    private static int segment(long record) {
+        return (int) (record / RECORDS_PER_SEGMENT);
+    }
+
+    private static int offset(long record) {
+        return (int) (record % RECORDS_PER_SEGMENT) * RECORD_BYTES;
+    }
+
+    int compare(long record, long high, long low, long size) {
+        int comparison = Long.compareUnsigned(high(record), high);
+        if (comparison == 0)
+            comparison = Long.compareUnsigned(low(record), low);
+        if (comparison == 0)
+            comparison = Long.compare(size(record), size);
+        return comparison;
+    }
+
+    private int compare(long left, long right) {
+        return compare(left, high(right), low(right), size(right));
+    }
+
+    private void swap(long left, long right) {
+        ByteBuffer leftSegment = records.get(segment(left));
+        ByteBuffer rightSegment = records.get(segment(right));
+        int leftOffset = offset(left);
+        int rightOffset = offset(right);
+        for (int field = 0; field < RECORD_BYTES; field += Long.BYTES) {
+            long swapped = leftSegment.getLong(leftOffset + field);
+            leftSegment.putLong(leftOffset + field, rightSegment.getLong(rightOffset + field));
+            rightSegment.putLong(rightOffset + field, swapped);
+        }
+    }
+
+    void sort() {
+        if (count > 1)
+            sort(0, count - 1, 2 * (Long.SIZE - Long.numberOfLeadingZeros(count)));
+    }
+
+    private void sort(long from, long to, int depth) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            if (depth-- == 0) {
+                heapSort(from, to);
+                return;
+            }
+            long pivot = partition(from, to);
+            if (pivot - from < to - pivot) {
+                sort(from, pivot - 1, depth);
+                from = pivot + 1;
+            } else {
+                sort(pivot + 1, to, depth);
+                to = pivot - 1;
+            }
+        }
+        insertionSort(from, to);
+    }
+
+    private long partition(long from, long to) {
+        long middle = (from + to) >>> 1;
+        if (compare(middle, from) < 0)
+            swap(middle, from);
+        if (compare(to, from) < 0)
+            swap(to, from);
+        if (compare(to, middle) < 0)
+            swap(to, middle);
+        swap(middle, to);
+
+        long pivotHigh = high(to);
+        long pivotLow = low(to);
+        long pivotSize = size(to);
+        long store = from;
+        for (long record = from; record < to; record++)
+            if (compare(record, pivotHigh, pivotLow, pivotSize) < 0)
+                swap(record, store++);
+        swap(store, to);
+        return store;
+    }
+
+    private void insertionSort(long from, long to) {
+        for (long record = from + 1; record <= to; record++)
+            for (long previous = record; previous > from && compare(previous - 1, previous) > 0; previous--)
+                swap(previous - 1, previous);
+    }
+
+    private void heapSort(long from, long to) {
+        long length = to - from + 1;
+        for (long parent = length / 2 - 1; parent >= 0; parent--)
+            siftDown(from, parent, length);
+        for (long last = length - 1; last > 0; last--) {
+            swap(from, from + last);
+            siftDown(from, 0, last);
+        }
+    }
+
+    private void siftDown(long from, long parent, long length) {
+        while (true) {
+            long largest = parent;
+            long left = 2 * parent + 1;
+            long right = left + 1;
+            if (left < length && compare(from + left, from + largest) > 0)
+                largest = left;
+            if (right < length && compare(from + right, from + largest) > 0)
+                largest = right;
+            if (largest == parent)
+                return;
+            swap(from + parent, from + largest);
+            parent = largest;
+        }
+    }
+
+    @Override
+    public void close() {
+        records.clear();
+        ids.clear();
+        memoryUsed.addAndGet(-heapBytes);
+        heapBytes = 0L;
+        if (nonNull(spill))
+            try {
+                spill.close();
+            } catch (IOException ignored) {
+            } finally {
+                spill = null;
+            }
+    }
+}
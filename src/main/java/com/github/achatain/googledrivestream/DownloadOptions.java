@@ -0,0 +1,130 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+public final class DownloadOptions {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final long MIN_CHUNK_SIZE = 256 * 1024;
+    private static final String INVALID_CHUNK_SIZE = "Chunk size must be at least " + MIN_CHUNK_SIZE + " bytes but was [%d].";
+    private static final String INVALID_CONCURRENCY = "Concurrency must be positive but was [%d].";
+    private static final String INVALID_BANDWIDTH = "Bandwidth must be positive but was [%d].";
+
+    private long chunkSize;
+    private int concurrency;
+    private Executor executor;
+    private RateLimiter bandwidth;
+    private Function<File, String> naming;
+
+    private DownloadOptions() {
+        chunkSize = 8 * 1024 * 1024;
+        concurrency = 4;
+        executor = ForkJoinPool.commonPool();
+        naming = File::getName;
+    }
+
+    private DownloadOptions(DownloadOptions other) {
+        chunkSize = other.chunkSize;
+        concurrency = other.concurrency;
+        executor = other.executor;
+        bandwidth = other.bandwidth;
+        naming = other.naming;
+    }
+
+    public static DownloadOptions defaults() {
+        return new DownloadOptions();
+    }
+
+    public DownloadOptions withChunkSize(long bytes) {
+        if (bytes < MIN_CHUNK_SIZE)
+            throw new IllegalArgumentException(format(INVALID_CHUNK_SIZE, bytes));
+        DownloadOptions copy = new DownloadOptions(this);
+        copy.chunkSize = bytes;
+        return copy;
+    }
+
+    public DownloadOptions withConcurrency(int requests) {
+        return withConcurrency(requests, executor);
+    }
+
+    public DownloadOptions withConcurrency(int requests, Executor newExecutor) {
+        if (requests < 1)
+            throw new IllegalArgumentException(format(INVALID_CONCURRENCY, requests));
+        DownloadOptions copy = new DownloadOptions(this);
+        copy.concurrency = requests;
+        copy.executor = requireNonNull(newExecutor);
+        return copy;
+    }
+
+    public DownloadOptions withBandwidth(long bytesPerSecond) {
+        if (bytesPerSecond < 1)
+            throw new IllegalArgumentException(format(INVALID_BANDWIDTH, bytesPerSecond));
+        return withBandwidth(RateLimiter.perSecond((double) bytesPerSecond / BLOCK_SIZE));
+    }
+
+    DownloadOptions withBandwidth(RateLimiter blocksPerSecond) {
+        DownloadOptions copy = new DownloadOptions(this);
+        copy.bandwidth = requireNonNull(blocksPerSecond);
+        return copy;
+    }
+
+    public DownloadOptions withNaming(Function<File, String> newNaming) {
+        DownloadOptions copy = new DownloadOptions(this);
+        copy.naming = requireNonNull(newNaming);
+        return copy;
+    }
+
+    long chunkSize() {
+        return chunkSize;
+    }
+
+    int concurrency() {
+        return concurrency;
+    }
+
+    Executor executor() {
+        return executor;
+    }
+
+    RateLimiter bandwidth() {
+        return bandwidth;
+    }
+
+    Function<File, String> naming() {
+        return naming;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+
+import java.nio.file.Path;
+
+import static java.util.Objects.nonNull;
+
+public final class DownloadResult {
+
+    public enum Status {DOWNLOADED, RESUMED, SKIPPED, FAILED}
+
+    private final File file;
+    private final Path path;
+    private final Status status;
+    private final long bytesTransferred;
+    private final Exception error;
+
+    DownloadResult(File file, Path path, Status status, long bytesTransferred, Exception error) {
+        this.file = file;
+        this.path = path;
+        this.status = status;
+        this.bytesTransferred = bytesTransferred;
+        this.error = error;
+    }
+
+    public File file() {
+        return file;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    public long bytesTransferred() {
+        return bytesTransferred;
+    }
+
+    public boolean failed() {
+        return nonNull(error);
+    }
+
+    public Exception error() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return status + " " + path;
+    }
+}
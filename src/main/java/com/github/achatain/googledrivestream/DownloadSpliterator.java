@@ -0,0 +1,101 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+public class DownloadSpliterator implements Spliterator<DownloadResult>, AutoCloseable {
+
+    private static final String INTERRUPTED = "Interrupted while waiting for a download.";
+
+    private final Iterator<File> files;
+    private final FileDownloader downloader;
+    private final int concurrency;
+    private final Set<CompletableFuture<DownloadResult>> inFlight;
+    private final BlockingQueue<CompletableFuture<DownloadResult>> completed;
+
+    DownloadSpliterator(Iterator<File> files, FileDownloader downloader, int concurrency) {
+        this.files = files;
+        this.downloader = downloader;
+        this.concurrency = concurrency;
+        inFlight = new HashSet<>();
+        completed = new LinkedBlockingQueue<>();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super DownloadResult> consumer) {
+        while (inFlight.size() < concurrency && files.hasNext()) {
+            CompletableFuture<DownloadResult> download = downloader.download(files.next());
+            inFlight.add(download);
+            download.whenComplete((result, error) -> completed.add(download));
+        }
+        if (inFlight.isEmpty())
+            return false;
+
+        try {
+            CompletableFuture<DownloadResult> next = completed.take();
+            inFlight.remove(next);
+            consumer.accept(next.join());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(INTERRUPTED, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        downloader.close();
+        inFlight.forEach(download -> download.cancel(false));
+        inFlight.clear();
+        completed.clear();
+    }
+
+    @Override
+    public Spliterator<DownloadResult> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.Drive;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+public final class DriveTarget {
+
+    private static final String TEAM_DRIVE = "teamDrive";
+
+    private final String name;
+    private final Drive client;
+    private final String corpora;
+    private final String teamDriveId;
+
+    private DriveTarget(String name, Drive client, String corpora, String teamDriveId) {
+        this.name = name;
+        this.client = client;
+        this.corpora = corpora;
+        this.teamDriveId = teamDriveId;
+    }
+
+    public static DriveTarget teamDrive(String teamDriveId) {
+        return new DriveTarget(TEAM_DRIVE + ":" + requireNonNull(teamDriveId), null, TEAM_DRIVE, teamDriveId);
+    }
+
+    public static DriveTarget corpora(String corpora) {
+        return new DriveTarget("corpora:" + requireNonNull(corpora), null, corpora, null);
+    }
+
+    public static DriveTarget client(String name, Drive client) {
+        return new DriveTarget(requireNonNull(name), requireNonNull(client), null, null);
+    }
+
+    public DriveTarget using(Drive newClient) {
+        return new DriveTarget(name, requireNonNull(newClient), corpora, teamDriveId);
+    }
+
+    public DriveTarget named(String newName) {
+        return new DriveTarget(requireNonNull(newName), client, corpora, teamDriveId);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    Drive client(Drive fallback) {
+        return isNull(client) ? fallback : client;
+    }
+
+    ListingOptions apply(ListingOptions options) {
+        return options.withCorpora(corpora, teamDriveId);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static java.lang.String.format;
+
+public final class DriveUsage {
+
+    private static final String INVALID_COUNT = "Count must not be negative but was [%d].";
+
+    private final IdIndex index;
+    private final long[] bytes;
+    private final int[] folderRefs;
+    private final String[] folderIds;
+    private final int[] folderNodes;
+    private final long[] folderFiles;
+    private final int[] subfolderStarts;
+    private final int[] subfolders;
+    private final int[] roots;
+    private final Map<String, Long> bytesByMimeType;
+    private final Map<String, Long> filesByMimeType;
+    private final long totalBytes;
+    private final long fileCount;
+
+    DriveUsage(IdIndex index, long[] bytes, int[] folderRefs, String[] folderIds, int[] folderNodes, long[] folderFiles,
+               int[] parentFolders, Map<String, long[]> mimeTypes, long totalBytes, long fileCount) {
+        this.index = index;
+        this.bytes = bytes;
+        this.folderRefs = folderRefs;
+        this.folderIds = folderIds;
+        this.folderNodes = folderNodes;
+        this.folderFiles = folderFiles;
+        this.totalBytes = totalBytes;
+        this.fileCount = fileCount;
+
+        int folders = folderIds.length;
+        subfolderStarts = new int[folders + 1];
+        int rootCount = 0;
+        for (int parent : parentFolders)
+            if (parent < 0)
+                rootCount++;
+            else
+                subfolderStarts[parent + 1]++;
+        for (int folder = 0; folder < folders; folder++)
+            subfolderStarts[folder + 1] += subfolderStarts[folder];
+        subfolders = new int[folders - rootCount];
+        roots = new int[rootCount];
+        int[] cursors = Arrays.copyOf(subfolderStarts, folders);
+        for (int folder = 0, root = 0; folder < folders; folder++)
+            if (parentFolders[folder] < 0)
+                roots[root++] = folder;
+            else
+                subfolders[cursors[parentFolders[folder]]++] = folder;
+
+        bytesByMimeType = breakdown(mimeTypes, 0);
+        filesByMimeType = breakdown(mimeTypes, 1);
+    }
+
+    private static Map<String, Long> breakdown(Map<String, long[]> mimeTypes, int column) {
+        Map<String, Long> breakdown = new LinkedHashMap<>();
+        mimeTypes.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[column]).reversed())
+                .forEach(entry -> breakdown.put(entry.getKey(), entry.getValue()[column]));
+        return Collections.unmodifiableMap(breakdown);
+    }
+
+    public long totalBytes() {
+        return totalBytes;
+    }
+
+    public long fileCount() {
+        return fileCount;
+    }
+
+    public int folderCount() {
+        return folderIds.length;
+    }
+
+    public OptionalLong bytes(String id) {
+        int node = index.find(id);
+        return node == IdIndex.ABSENT ? OptionalLong.empty() : OptionalLong.of(bytes[node]);
+    }
+
+    public Optional<FolderUsage> folder(String id) {
+        int node = index.find(id);
+        if (node == IdIndex.ABSENT || folderRefs[node] == 0)
+            return Optional.empty();
+        return Optional.of(usage(folderRefs[node] - 1));
+    }
+
+    public List<FolderUsage> roots() {
+        return usages(roots, 0, roots.length);
+    }
+
+    public List<FolderUsage> subfolders(String folderId) {
+        int node = index.find(folderId);
+        if (node == IdIndex.ABSENT || folderRefs[node] == 0)
+            return Collections.emptyList();
+        int folder = folderRefs[node] - 1;
+        return usages(subfolders, subfolderStarts[folder], subfolderStarts[folder + 1]);
+    }
+
+    public List<FolderUsage> largestFolders(int count) {
+        if (count < 0)
+            throw new IllegalArgumentException(format(INVALID_COUNT, count));
+        int[] heap = new int[Math.min(count, folderIds.length)];
+        int size = 0;
+        for (int folder = 0; folder < folderIds.length && heap.length > 0; folder++)
+            if (size < heap.length) {
+                heap[size] = folder;
+                siftUp(heap, size++);
+            } else if (folderBytes(folder) > folderBytes(heap[0])) {
+                heap[0] = folder;
+                siftDown(heap, size);
+            }
+
+        List<FolderUsage> largest = usages(heap, 0, size);
+        largest.sort(Comparator.comparingLong(FolderUsage::bytes).reversed());
+        return largest;
+    }
+
+    private void siftUp(int[] heap, int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (folderBytes(heap[parent]) <= folderBytes(heap[position]))
+                return;
+            swap(heap, parent, position);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size) {
+        int position = 0;
+        while (true) {
+            int smallest = position;
+            int left = (position << 1) + 1;
+            int right = left + 1;
+            if (left < size && folderBytes(heap[left]) < folderBytes(heap[smallest]))
+                smallest = left;
+            if (right < size && folderBytes(heap[right]) < folderBytes(heap[smallest]))
+                smallest = right;
+            if (smallest == position)
+                return;
+            swap(heap, smallest, position);
+            position = smallest;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int swapped = heap[i];
+        heap[i] = heap[j];
+        heap[j] = swapped;
+    }
+
+    private long folderBytes(int folder) {
+        return bytes[folderNodes[folder]];
+    }
+
+    private List<FolderUsage> usages(int[] folders, int from, int to) {
+        List<FolderUsage> usages = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++)
+            usages.add(usage(folders[i]));
+        return usages;
+    }
+
+    private FolderUsage usage(int folder) {
+        return new FolderUsage(folderIds[folder], folderBytes(folder), folderFiles[folder]);
+    }
+
+    public Map<String, Long> bytesByMimeType() {
+        return bytesByMimeType;
+    }
+
+    public Map<String, Long> filesByMimeType() {
+        return filesByMimeType;
+    }
+
+    public long retainedBytes() {
+        long folderIdBytes = 0L;
+        for (String id : folderIds)
+            folderIdBytes += 48L + id.length();
+        return index.retainedBytes() + 8L * bytes.length + 4L * folderRefs.length
+                + 4L * (folderNodes.length + subfolderStarts.length + subfolders.length + roots.length)
+                + 8L * (folderIds.length + folderFiles.length) + folderIdBytes;
+    }
+}
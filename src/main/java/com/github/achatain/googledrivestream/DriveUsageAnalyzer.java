@@ -0,0 +1,214 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Rolls file sizes up per folder in a single pass.
+ * <p>
+ * Ids are interned by a 64-bit fingerprint and never stored, so two ids that share a fingerprint are counted
+ * as the same node. The chance of that happening is about n<sup>2</sup>/2<sup>65</sup> for n distinct ids,
+ * roughly one in 370,000 for ten million ids.
+ */
+public final class DriveUsageAnalyzer implements Consumer<File> {
+
+    static final String[] FIELDS = {"id", "parents", "size", "mimeType"};
+
+    private static final String FOLDER_MIME_TYPE = GoogleDriveTreeSpliterator.FOLDER_MIME_TYPE;
+    private static final String UNKNOWN_MIME_TYPE = "unknown";
+    private static final int INITIAL_NODES = 1 << 10;
+    private static final int INITIAL_MIME_TYPES = 16;
+    private static final String FINISHED = "The analysis is already finished.";
+    private static final String TOO_MANY_MIME_TYPES = "Can not analyze more than [%d] distinct MIME types.";
+
+    private final IdIndex index;
+    private final List<String> mimeTypes;
+    private final Map<String, Integer> mimeTypeIndex;
+    private final List<String> folderIds;
+
+    private long[] sizes;
+    private int[] parentRefs;
+    private short[] mimeTypeRefs;
+    private int[] folderRefs;
+    private long[] mimeTypeBytes;
+    private long[] mimeTypeFiles;
+    private long totalBytes;
+    private long fileCount;
+    private boolean finished;
+
+    public DriveUsageAnalyzer() {
+        index = new IdIndex();
+        mimeTypes = new ArrayList<>();
+        mimeTypeIndex = new HashMap<>();
+        folderIds = new ArrayList<>();
+        sizes = new long[INITIAL_NODES];
+        parentRefs = new int[INITIAL_NODES];
+        mimeTypeRefs = new short[INITIAL_NODES];
+        folderRefs = new int[INITIAL_NODES];
+        mimeTypeBytes = new long[INITIAL_MIME_TYPES];
+        mimeTypeFiles = new long[INITIAL_MIME_TYPES];
+    }
+
+    @Override
+    public void accept(File file) {
+        if (finished)
+            throw new IllegalStateException(FINISHED);
+        int node = node(file.getId());
+        if (mimeTypeRefs[node] != 0)
+            return;
+
+        long size = isNull(file.getSize()) ? 0L : file.getSize();
+        String mimeType = isNull(file.getMimeType()) ? UNKNOWN_MIME_TYPE : file.getMimeType();
+        int mimeTypeRef = mimeTypeRef(mimeType);
+        mimeTypeRefs[node] = (short) (mimeTypeRef + 1);
+        mimeTypeBytes[mimeTypeRef] += size;
+        mimeTypeFiles[mimeTypeRef]++;
+        sizes[node] += size;
+        totalBytes += size;
+        if (FOLDER_MIME_TYPE.equals(mimeType))
+            folder(node, file.getId());
+        else
+            fileCount++;
+
+        List<String> parents = file.getParents();
+        if (nonNull(parents) && !parents.isEmpty()) {
+            int parent = node(parents.get(0));
+            folder(parent, parents.get(0));
+            parentRefs[node] = parent + 1;
+        }
+    }
+
+    private int node(String id) {
+        int node = index.intern(id);
+        if (node == sizes.length) {
+            int capacity = sizes.length << 1;
+            sizes = Arrays.copyOf(sizes, capacity);
+            parentRefs = Arrays.copyOf(parentRefs, capacity);
+            mimeTypeRefs = Arrays.copyOf(mimeTypeRefs, capacity);
+            folderRefs = Arrays.copyOf(folderRefs, capacity);
+        }
+        return node;
+    }
+
+    private void folder(int node, String id) {
+        if (folderRefs[node] != 0)
+            return;
+        folderIds.add(id);
+        folderRefs[node] = folderIds.size();
+    }
+
+    private int mimeTypeRef(String mimeType) {
+        Integer ref = mimeTypeIndex.get(mimeType);
+        if (nonNull(ref))
+            return ref;
+        if (mimeTypes.size() == Short.MAX_VALUE)
+            throw new IllegalStateException(format(TOO_MANY_MIME_TYPES, (int) Short.MAX_VALUE));
+        ref = mimeTypes.size();
+        mimeTypes.add(mimeType);
+        mimeTypeIndex.put(mimeType, ref);
+        if (ref == mimeTypeBytes.length) {
+            mimeTypeBytes = Arrays.copyOf(mimeTypeBytes, ref << 1);
+            mimeTypeFiles = Arrays.copyOf(mimeTypeFiles, ref << 1);
+        }
+        return ref;
+    }
+
+    public DriveUsage finish() {
+        if (finished)
+            throw new IllegalStateException(FINISHED);
+        finished = true;
+
+        int nodes = index.size();
+        index.trim();
+        sizes = Arrays.copyOf(sizes, nodes);
+        folderRefs = Arrays.copyOf(folderRefs, nodes);
+        long[] files = rollUp(nodes);
+
+        int folders = folderIds.size();
+        int[] folderNodes = new int[folders];
+        int[] parentFolders = new int[folders];
+        for (int node = 0; node < nodes; node++)
+            if (folderRefs[node] != 0) {
+                int folder = folderRefs[node] - 1;
+                folderNodes[folder] = node;
+                parentFolders[folder] = parentRefs[node] == 0 ? -1 : folderRefs[parentRefs[node] - 1] - 1;
+            }
+        long[] folderFiles = new long[folders];
+        for (int folder = 0; folder < folders; folder++)
+            folderFiles[folder] = files[folderNodes[folder]];
+
+        Map<String, long[]> breakdown = new HashMap<>();
+        for (int ref = 0; ref < mimeTypes.size(); ref++)
+            breakdown.put(mimeTypes.get(ref), new long[]{mimeTypeBytes[ref], mimeTypeFiles[ref]});
+
+        DriveUsage usage = new DriveUsage(index, sizes, folderRefs, folderIds.toArray(new String[0]), folderNodes,
+                folderFiles, parentFolders, breakdown, totalBytes, fileCount);
+        parentRefs = null;
+        mimeTypeRefs = null;
+        return usage;
+    }
+
+    private long[] rollUp(int nodes) {
+        int[] pending = new int[nodes];
+        long[] files = new long[nodes];
+        for (int node = 0; node < nodes; node++) {
+            if (parentRefs[node] != 0)
+                pending[parentRefs[node] - 1]++;
+            if (mimeTypeRefs[node] != 0 && folderRefs[node] == 0)
+                files[node] = 1L;
+        }
+
+        int[] queue = new int[nodes];
+        int tail = 0;
+        for (int node = 0; node < nodes; node++)
+            if (pending[node] == 0)
+                queue[tail++] = node;
+        for (int head = 0; head < tail; head++) {
+            int node = queue[head];
+            int parent = parentRefs[node] - 1;
+            if (parent < 0)
+                continue;
+            sizes[parent] += sizes[node];
+            files[parent] += files[node];
+            if (--pending[parent] == 0)
+                queue[tail++] = parent;
+        }
+        return files;
+    }
+}
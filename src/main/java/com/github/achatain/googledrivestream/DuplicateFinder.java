@@ -0,0 +1,212 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+public final class DuplicateFinder {
+
+    static final String[] FIELDS = {"id", "size", "md5Checksum"};
+
+    private DuplicateFinder() {
+    }
+
+    public static Collector<File, ?, Stream<DuplicateGroup>> collector() {
+        return collector(DuplicateOptions.defaults());
+    }
+
+    public static Collector<File, ?, Stream<DuplicateGroup>> collector(DuplicateOptions options) {
+        AtomicLong memoryUsed = new AtomicLong();
+        return Collector.of(() -> new Runs(new DigestRun(options, memoryUsed)), Runs::add, Runs::combine, Runs::duplicates,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    private static final class Runs {
+        private final DigestRun own;
+        private final List<DigestRun> runs;
+
+        private Runs(DigestRun own) {
+            this.own = own;
+            runs = new ArrayList<>();
+            runs.add(own);
+        }
+
+        private void add(File file) {
+            String md5 = file.getMd5Checksum();
+            if (!FileRecord.isMd5(md5))
+                return;
+            long size = isNull(file.getSize()) ? FileRecord.UNKNOWN_SIZE : file.getSize();
+            own.add(Long.parseUnsignedLong(md5.substring(0, 16), 16), Long.parseUnsignedLong(md5.substring(16), 16), size, file.getId());
+        }
+
+        private Runs combine(Runs other) {
+            runs.addAll(other.runs);
+            return this;
+        }
+
+        private Stream<DuplicateGroup> duplicates() {
+            if (runs.size() > 1)
+                runs.parallelStream().forEach(DigestRun::sort);
+            else
+                own.sort();
+            GroupIterator groups = new GroupIterator(runs);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(groups, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(groups::close);
+        }
+    }
+
+    private static final class GroupIterator implements Iterator<DuplicateGroup>, AutoCloseable {
+        private final List<DigestRun> runs;
+        private final PriorityQueue<Cursor> cursors;
+
+        private Cursor[] matchRuns;
+        private long[] matchRecords;
+        private DuplicateGroup next;
+
+        private GroupIterator(List<DigestRun> runs) {
+            this.runs = runs;
+            cursors = new PriorityQueue<>(Math.max(runs.size(), 1), Cursor::compareTo);
+            for (DigestRun run : runs)
+                if (run.count() > 0)
+                    cursors.add(new Cursor(run));
+            matchRuns = new Cursor[4];
+            matchRecords = new long[4];
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (isNull(next))
+                next = nextGroup();
+            return nonNull(next);
+        }
+
+        @Override
+        public DuplicateGroup next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            DuplicateGroup group = next;
+            next = null;
+            return group;
+        }
+
+        private DuplicateGroup nextGroup() {
+            while (!cursors.isEmpty()) {
+                Cursor head = cursors.peek();
+                long high = head.high();
+                long low = head.low();
+                long size = head.size();
+                int matches = 0;
+                while (!cursors.isEmpty() && cursors.peek().matches(high, low, size)) {
+                    Cursor cursor = cursors.poll();
+                    matches = match(matches, cursor);
+                    if (cursor.advance())
+                        cursors.add(cursor);
+                }
+                if (matches > 1)
+                    return group(high, low, size, matches);
+            }
+            close();
+            return null;
+        }
+
+        private int match(int matches, Cursor cursor) {
+            if (matches == matchRuns.length) {
+                matchRuns = Arrays.copyOf(matchRuns, matches << 1);
+                matchRecords = Arrays.copyOf(matchRecords, matches << 1);
+            }
+            matchRuns[matches] = cursor;
+            matchRecords[matches] = cursor.record;
+            return matches + 1;
+        }
+
+        private DuplicateGroup group(long high, long low, long size, int matches) {
+            List<String> fileIds = new ArrayList<>(matches);
+            for (int match = 0; match < matches; match++) {
+                fileIds.add(matchRuns[match].run.id(matchRecords[match]));
+                matchRuns[match] = null;
+            }
+            return new DuplicateGroup(FileRecord.md5(high, low), size, Collections.unmodifiableList(fileIds));
+        }
+
+        @Override
+        public void close() {
+            cursors.clear();
+            runs.forEach(DigestRun::close);
+        }
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+        private final DigestRun run;
+        private long record;
+
+        private Cursor(DigestRun run) {
+            this.run = run;
+        }
+
+        private long high() {
+            return run.high(record);
+        }
+
+        private long low() {
+            return run.low(record);
+        }
+
+        private long size() {
+            return run.size(record);
+        }
+
+        private boolean matches(long high, long low, long size) {
+            return run.compare(record, high, low, size) == 0;
+        }
+
+        private boolean advance() {
+            return ++record < run.count();
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return run.compare(record, other.high(), other.low(), other.size());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import java.util.List;
+
+public final class DuplicateGroup {
+
+    private final String md5Checksum;
+    private final long size;
+    private final List<String> fileIds;
+
+    DuplicateGroup(String md5Checksum, long size, List<String> fileIds) {
+        this.md5Checksum = md5Checksum;
+        this.size = size;
+        this.fileIds = fileIds;
+    }
+
+    public String md5Checksum() {
+        return md5Checksum;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public List<String> fileIds() {
+        return fileIds;
+    }
+
+    public long wastedBytes() {
+        return size * (fileIds.size() - 1);
+    }
+
+    @Override
+    public String toString() {
+        return md5Checksum + " " + size + " bytes " + fileIds;
+    }
+}
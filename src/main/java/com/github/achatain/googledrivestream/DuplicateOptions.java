@@ -0,0 +1,82 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import java.nio.file.Path;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+public final class DuplicateOptions {
+
+    private static final String INVALID_BUDGET = "Memory budget must not be negative but was [%d].";
+
+    private boolean offHeap;
+    private long memoryBudget;
+    private Path spillDirectory;
+
+    private DuplicateOptions() {
+        memoryBudget = Long.MAX_VALUE;
+    }
+
+    private DuplicateOptions(DuplicateOptions other) {
+        offHeap = other.offHeap;
+        memoryBudget = other.memoryBudget;
+        spillDirectory = other.spillDirectory;
+    }
+
+    public static DuplicateOptions defaults() {
+        return new DuplicateOptions();
+    }
+
+    public DuplicateOptions offHeap() {
+        DuplicateOptions copy = new DuplicateOptions(this);
+        copy.offHeap = true;
+        return copy;
+    }
+
+    public DuplicateOptions spillingTo(Path directory, long memoryBudgetBytes) {
+        if (memoryBudgetBytes < 0)
+            throw new IllegalArgumentException(format(INVALID_BUDGET, memoryBudgetBytes));
+        DuplicateOptions copy = new DuplicateOptions(this);
+        copy.spillDirectory = requireNonNull(directory);
+        copy.memoryBudget = memoryBudgetBytes;
+        return copy;
+    }
+
+    boolean offHeapSegments() {
+        return offHeap;
+    }
+
+    long memoryBudget() {
+        return memoryBudget;
+    }
+
+    Path spillDirectory() {
+        return spillDirectory;
+    }
+}
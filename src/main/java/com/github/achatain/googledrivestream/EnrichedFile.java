@@ -0,0 +1,99 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.Permission;
+import com.google.api.services.drive.model.Revision;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+public final class EnrichedFile {
+
+    private final File file;
+    private File metadata;
+    private List<Permission> permissions;
+    private List<Revision> revisions;
+    private GoogleJsonError error;
+
+    EnrichedFile(File file, EnrichmentSpec spec) {
+        this.file = file;
+        if (spec.permissionsRequested())
+            permissions = new ArrayList<>();
+        if (spec.revisionsRequested())
+            revisions = new ArrayList<>();
+    }
+
+    void metadata(File newMetadata) {
+        metadata = newMetadata;
+    }
+
+    void addPermissions(List<Permission> page) {
+        if (nonNull(page))
+            permissions.addAll(page);
+    }
+
+    void addRevisions(List<Revision> page) {
+        if (nonNull(page))
+            revisions.addAll(page);
+    }
+
+    void fail(GoogleJsonError newError) {
+        if (isNull(error))
+            error = newError;
+    }
+
+    public File file() {
+        return file;
+    }
+
+    public File metadata() {
+        return metadata;
+    }
+
+    public List<Permission> permissions() {
+        return isNull(permissions) ? null : unmodifiableList(permissions);
+    }
+
+    public List<Revision> revisions() {
+        return isNull(revisions) ? null : unmodifiableList(revisions);
+    }
+
+    public boolean failed() {
+        return nonNull(error);
+    }
+
+    public GoogleJsonError error() {
+        return error;
+    }
+}
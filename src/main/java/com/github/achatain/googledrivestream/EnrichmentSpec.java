@@ -0,0 +1,188 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+public final class EnrichmentSpec {
+
+    static final int MAX_BATCH_SIZE = 100;
+
+    private static final String ALL_FIELDS = "*";
+    private static final String INVALID_BATCH_SIZE = "Batch size must be between 1 and " + MAX_BATCH_SIZE + " but was [%d].";
+    private static final String INVALID_CONCURRENCY = "Concurrency must be positive but was [%d].";
+
+    private boolean metadata;
+    private Projection projection;
+    private boolean permissions;
+    private boolean revisions;
+    private int batchSize;
+    private int concurrency;
+    private Executor executor;
+    private boolean ordered;
+    private RetryPolicy retryPolicy;
+
+    private EnrichmentSpec() {
+        batchSize = MAX_BATCH_SIZE;
+        concurrency = 4;
+        executor = ForkJoinPool.commonPool();
+        ordered = true;
+        retryPolicy = RetryPolicy.exponentialBackOff();
+    }
+
+    private EnrichmentSpec(EnrichmentSpec other) {
+        metadata = other.metadata;
+        projection = other.projection;
+        permissions = other.permissions;
+        revisions = other.revisions;
+        batchSize = other.batchSize;
+        concurrency = other.concurrency;
+        executor = other.executor;
+        ordered = other.ordered;
+        retryPolicy = other.retryPolicy;
+    }
+
+    public static EnrichmentSpec metadata() {
+        return new EnrichmentSpec().withMetadata();
+    }
+
+    public static EnrichmentSpec metadata(Projection projection) {
+        return new EnrichmentSpec().withMetadata(projection);
+    }
+
+    public static EnrichmentSpec permissions() {
+        return new EnrichmentSpec().withPermissions();
+    }
+
+    public static EnrichmentSpec revisions() {
+        return new EnrichmentSpec().withRevisions();
+    }
+
+    public EnrichmentSpec withMetadata() {
+        EnrichmentSpec copy = new EnrichmentSpec(this);
+        copy.metadata = true;
+        copy.projection = null;
+        return copy;
+    }
+
+    public EnrichmentSpec withMetadata(Projection newProjection) {
+        EnrichmentSpec copy = new EnrichmentSpec(this);
+        copy.metadata = true;
+        copy.projection = requireNonNull(newProjection);
+        return copy;
+    }
+
+    public EnrichmentSpec withPermissions() {
+        EnrichmentSpec copy = new EnrichmentSpec(this);
+        copy.permissions = true;
+        return copy;
+    }
+
+    public EnrichmentSpec withRevisions() {
+        EnrichmentSpec copy = new EnrichmentSpec(this);
+        copy.revisions = true;
+        return copy;
+    }
+
+    public EnrichmentSpec withBatchSize(int calls) {
+        if (calls < 1 || calls > MAX_BATCH_SIZE)
+            throw new IllegalArgumentException(format(INVALID_BATCH_SIZE, calls));
+        EnrichmentSpec copy = new EnrichmentSpec(this);
+        copy.batchSize = calls;
+        return copy;
+    }
+
+    public EnrichmentSpec withConcurrency(int batches) {
+        return withConcurrency(batches, executor);
+    }
+
+    public EnrichmentSpec withConcurrency(int batches, Executor newExecutor) {
+        if (batches < 1)
+            throw new IllegalArgumentException(format(INVALID_CONCURRENCY, batches));
+        EnrichmentSpec copy = new EnrichmentSpec(this);
+        copy.concurrency = batches;
+        copy.executor = requireNonNull(newExecutor);
+        return copy;
+    }
+
+    public EnrichmentSpec unordered() {
+        EnrichmentSpec copy = new EnrichmentSpec(this);
+        copy.ordered = false;
+        return copy;
+    }
+
+    public EnrichmentSpec withRetryPolicy(RetryPolicy newRetryPolicy) {
+        EnrichmentSpec copy = new EnrichmentSpec(this);
+        copy.retryPolicy = requireNonNull(newRetryPolicy);
+        return copy;
+    }
+
+    boolean metadataRequested() {
+        return metadata;
+    }
+
+    String metadataFields() {
+        return isNull(projection) ? ALL_FIELDS : projection.toFileFields();
+    }
+
+    boolean permissionsRequested() {
+        return permissions;
+    }
+
+    boolean revisionsRequested() {
+        return revisions;
+    }
+
+    int callsPerFile() {
+        return (metadata ? 1 : 0) + (permissions ? 1 : 0) + (revisions ? 1 : 0);
+    }
+
+    int filesPerBatch() {
+        return Math.max(1, batchSize / callsPerFile());
+    }
+
+    int concurrency() {
+        return concurrency;
+    }
+
+    Executor executor() {
+        return executor;
+    }
+
+    boolean ordered() {
+        return ordered;
+    }
+
+    RetryPolicy retryPolicy() {
+        return retryPolicy;
+    }
+}
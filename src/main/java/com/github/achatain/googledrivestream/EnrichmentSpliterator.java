@@ -0,0 +1,131 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+public class EnrichmentSpliterator implements Spliterator<EnrichedFile>, AutoCloseable {
+
+    private static final String INTERRUPTED = "Interrupted while waiting for an enriched batch.";
+
+    private final Iterator<File> files;
+    private final BatchEnricher enricher;
+    private final EnrichmentSpec spec;
+    private final Deque<CompletableFuture<List<EnrichedFile>>> inFlight;
+    private final BlockingQueue<CompletableFuture<List<EnrichedFile>>> completed;
+    private final Deque<EnrichedFile> enriched;
+
+    EnrichmentSpliterator(Iterator<File> files, BatchEnricher enricher, EnrichmentSpec spec) {
+        this.files = files;
+        this.enricher = enricher;
+        this.spec = spec;
+        inFlight = new ArrayDeque<>(spec.concurrency());
+        completed = new LinkedBlockingQueue<>();
+        enriched = new ArrayDeque<>();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super EnrichedFile> consumer) {
+        while (enriched.isEmpty()) {
+            fill();
+            if (inFlight.isEmpty())
+                return false;
+            enriched.addAll(join(nextBatch()));
+        }
+        consumer.accept(enriched.pop());
+        return true;
+    }
+
+    private void fill() {
+        while (inFlight.size() < spec.concurrency() && files.hasNext()) {
+            List<File> batch = new ArrayList<>(spec.filesPerBatch());
+            while (batch.size() < spec.filesPerBatch() && files.hasNext())
+                batch.add(files.next());
+            CompletableFuture<List<EnrichedFile>> future = CompletableFuture.supplyAsync(() -> enricher.enrich(batch), spec.executor());
+            inFlight.add(future);
+            if (!spec.ordered())
+                future.whenComplete((result, error) -> completed.add(future));
+        }
+    }
+
+    private CompletableFuture<List<EnrichedFile>> nextBatch() {
+        if (spec.ordered())
+            return inFlight.poll();
+        try {
+            CompletableFuture<List<EnrichedFile>> next = completed.take();
+            inFlight.remove(next);
+            return next;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(INTERRUPTED, e);
+        }
+    }
+
+    private static List<EnrichedFile> join(CompletableFuture<List<EnrichedFile>> batch) {
+        try {
+            return batch.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        inFlight.forEach(batch -> batch.cancel(false));
+        inFlight.clear();
+        completed.clear();
+    }
+
+    @Override
+    public Spliterator<EnrichedFile> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return spec.ordered() ? ORDERED | NONNULL : NONNULL;
+    }
+}
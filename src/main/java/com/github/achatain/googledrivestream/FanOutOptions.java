@@ -0,0 +1,112 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+
+import static java.lang.String.format;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+public final class FanOutOptions {
+
+    private static final String INVALID_PARALLELISM = "Parallelism must be positive but was [%d].";
+
+    private int parallelism;
+    private Executor executor;
+    private boolean ordered;
+    private BiConsumer<DriveTarget, RuntimeException> failureHandler;
+
+    private FanOutOptions() {
+        parallelism = 4;
+        executor = ForkJoinPool.commonPool();
+    }
+
+    private FanOutOptions(FanOutOptions other) {
+        parallelism = other.parallelism;
+        executor = other.executor;
+        ordered = other.ordered;
+        failureHandler = other.failureHandler;
+    }
+
+    public static FanOutOptions defaults() {
+        return new FanOutOptions();
+    }
+
+    public FanOutOptions withParallelism(int pages) {
+        return withParallelism(pages, executor);
+    }
+
+    public FanOutOptions withParallelism(int pages, Executor newExecutor) {
+        if (pages < 1)
+            throw new IllegalArgumentException(format(INVALID_PARALLELISM, pages));
+        FanOutOptions copy = new FanOutOptions(this);
+        copy.parallelism = pages;
+        copy.executor = requireNonNull(newExecutor);
+        return copy;
+    }
+
+    public FanOutOptions ordered() {
+        FanOutOptions copy = new FanOutOptions(this);
+        copy.ordered = true;
+        return copy;
+    }
+
+    public FanOutOptions skipFailedTargets() {
+        return skipFailedTargets((target, e) -> {
+        });
+    }
+
+    public FanOutOptions skipFailedTargets(BiConsumer<DriveTarget, RuntimeException> handler) {
+        FanOutOptions copy = new FanOutOptions(this);
+        copy.failureHandler = requireNonNull(handler);
+        return copy;
+    }
+
+    int parallelism() {
+        return parallelism;
+    }
+
+    Executor executor() {
+        return executor;
+    }
+
+    boolean isOrdered() {
+        return ordered;
+    }
+
+    boolean skipsFailures() {
+        return nonNull(failureHandler);
+    }
+
+    void failed(DriveTarget target, RuntimeException e) {
+        if (nonNull(failureHandler))
+            failureHandler.accept(target, e);
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.FileList;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+public class FanOutSpliterator implements Spliterator<SourcedFile>, AutoCloseable {
+
+    static final int PAGES_AHEAD = 2;
+    private static final String INTERRUPTED = "Interrupted while waiting for a page of files.";
+
+    private final List<Lane> lanes;
+    private final int pagesAhead;
+    private final FanOutOptions fanOut;
+    private final Deque<Lane> ready;
+    private final Deque<Page> arrivals;
+    private final Deque<SourcedFile> files;
+
+    private boolean started;
+    private boolean closed;
+    private int inFlight;
+    private int cursor;
+    private RuntimeException failure;
+
+    FanOutSpliterator(Collection<DriveTarget> targets, Function<DriveTarget, Function<String, FileList>> fetchers, int pagesAhead,
+                      FanOutOptions fanOut) {
+        this.pagesAhead = pagesAhead;
+        this.fanOut = fanOut;
+        lanes = new ArrayList<>(targets.size());
+        for (DriveTarget target : targets)
+            lanes.add(new Lane(target, fetchers.apply(target)));
+        ready = new ArrayDeque<>(lanes.size());
+        arrivals = new ArrayDeque<>();
+        files = new ArrayDeque<>();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super SourcedFile> consumer) {
+        if (files.isEmpty() && !takePage())
+            return false;
+        consumer.accept(files.poll());
+        return true;
+    }
+
+    private synchronized boolean takePage() {
+        if (!started) {
+            started = true;
+            ready.addAll(lanes);
+            lanes.forEach(lane -> lane.scheduled = true);
+            schedule();
+        }
+        while (true) {
+            if (nonNull(failure)) {
+                close();
+                throw failure;
+            }
+            Page page = fanOut.isOrdered() ? pollOrdered() : arrivals.poll();
+            if (nonNull(page)) {
+                page.files.forEach(file -> files.add(new SourcedFile(page.lane.target, file)));
+                consumed(page.lane);
+                if (!files.isEmpty())
+                    return true;
+            } else if (exhausted())
+                return false;
+            else
+                await();
+        }
+    }
+
+    private Page pollOrdered() {
+        while (cursor < lanes.size()) {
+            Lane lane = lanes.get(cursor);
+            if (!lane.pages.isEmpty())
+                return lane.pages.poll();
+            if (!lane.done || lane.scheduled)
+                return null;
+            cursor++;
+        }
+        return null;
+    }
+
+    private boolean exhausted() {
+        if (fanOut.isOrdered())
+            return cursor == lanes.size();
+        return arrivals.isEmpty() && inFlight == 0 && ready.isEmpty() && lanes.stream().allMatch(lane -> lane.done);
+    }
+
+    private void await() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RuntimeException(INTERRUPTED, e);
+        }
+    }
+
+    private void consumed(Lane lane) {
+        lane.buffered--;
+        resume(lane);
+        schedule();
+    }
+
+    private void resume(Lane lane) {
+        if (!lane.done && !lane.scheduled && lane.buffered < pagesAhead) {
+            lane.scheduled = true;
+            ready.add(lane);
+        }
+    }
+
+    private void schedule() {
+        while (!closed && inFlight < fanOut.parallelism() && !ready.isEmpty()) {
+            Lane lane = ready.poll();
+            String pageToken = lane.nextPageToken;
+            inFlight++;
+            CompletableFuture.supplyAsync(() -> lane.fetcher.apply(pageToken), fanOut.executor())
+                    .whenComplete((page, e) -> fetched(lane, page, e));
+        }
+    }
+
+    private synchronized void fetched(Lane lane, FileList page, Throwable e) {
+        inFlight--;
+        lane.scheduled = false;
+        if (closed)
+            return;
+        if (nonNull(e))
+            failed(lane, unwrap(e));
+        else {
+            lane.nextPageToken = page.getNextPageToken();
+            lane.done = isNull(lane.nextPageToken);
+            lane.buffered++;
+            Page arrived = new Page(lane, isNull(page.getFiles()) ? List.of() : page.getFiles());
+            if (fanOut.isOrdered())
+                lane.pages.add(arrived);
+            else
+                arrivals.add(arrived);
+            resume(lane);
+        }
+        schedule();
+        notifyAll();
+    }
+
+    private void failed(Lane lane, RuntimeException e) {
+        lane.done = true;
+        if (fanOut.skipsFailures())
+            fanOut.failed(lane.target, e);
+        else if (isNull(failure))
+            failure = e;
+    }
+
+    private static RuntimeException unwrap(Throwable e) {
+        Throwable cause = e instanceof CompletionException && nonNull(e.getCause()) ? e.getCause() : e;
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        ready.clear();
+        arrivals.clear();
+        lanes.forEach(lane -> lane.pages.clear());
+        notifyAll();
+    }
+
+    @Override
+    public Spliterator<SourcedFile> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return fanOut.isOrdered() ? ORDERED | NONNULL : NONNULL;
+    }
+
+    private static final class Lane {
+        private final DriveTarget target;
+        private final Function<String, FileList> fetcher;
+        private final Deque<Page> pages = new ArrayDeque<>();
+        private String nextPageToken;
+        private boolean done;
+        private boolean scheduled;
+        private int buffered;
+
+        private Lane(DriveTarget target, Function<String, FileList> fetcher) {
+            this.target = target;
+            this.fetcher = fetcher;
+        }
+    }
+
+    private static final class Page {
+        private final Lane lane;
+        private final List<File> files;
+
+        private Page(Lane lane, List<File> files) {
+            this.lane = lane;
+            this.files = files;
+        }
+    }
+}
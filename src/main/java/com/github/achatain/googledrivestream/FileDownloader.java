@@ -0,0 +1,374 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.http.HttpResponse;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.File;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+final class FileDownloader {
+
+    private static final int PARTIAL_CONTENT = 206;
+    private static final String PART = ".part";
+    private static final String PROGRESS = ".progress";
+    private static final String SIZE = "size";
+    private static final String CHUNK_SIZE = "chunkSize";
+    private static final String MD5 = "md5Checksum";
+    private static final String CHUNKS = "chunks";
+    private static final String RANGE = "bytes=%d-%d";
+    private static final String UNSAFE_NAME = "File [%s] can not be saved as [%s].";
+    private static final String NAME_COLLISION = "File [%s] can not be saved as [%s], which is already the target of file [%s].";
+    private static final String IN_PROGRESS = "File [%s] is already being saved as [%s].";
+    private static final String RANGE_IGNORED = "Range [%s] of file [%s] was not honoured.";
+    private static final String CHECKSUM_MISMATCH = "Content of file [%s] does not match its md5 checksum [%s].";
+    private static final String INTERRUPTED = "Interrupted while downloading file [%s].";
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(DownloadOptions.BLOCK_SIZE));
+
+    private final Drive drive;
+    private final ListingOptions options;
+    private final DownloadOptions downloadOptions;
+    private final Path targetDir;
+    private final Semaphore requests;
+    private final ConcurrentMap<Path, String> targets = new ConcurrentHashMap<>();
+    private final Set<Path> active = ConcurrentHashMap.newKeySet();
+    private final Set<Transfer> transfers = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean closed;
+
+    FileDownloader(Drive drive, ListingOptions options, DownloadOptions downloadOptions, Path targetDir) {
+        this.drive = drive;
+        this.options = options;
+        this.downloadOptions = downloadOptions;
+        this.targetDir = targetDir.toAbsolutePath().normalize();
+        requests = new Semaphore(downloadOptions.concurrency());
+    }
+
+    CompletableFuture<DownloadResult> download(File file) {
+        Path target;
+        try {
+            target = target(file);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(new DownloadResult(file, null, DownloadResult.Status.FAILED, 0L, e));
+        }
+        return CompletableFuture.supplyAsync(() -> prepare(file, target), downloadOptions.executor())
+                .thenCompose(transfer -> isNull(transfer)
+                        ? CompletableFuture.completedFuture(new DownloadResult(file, target, DownloadResult.Status.SKIPPED, 0L, null))
+                        : transfer.run())
+                .exceptionally(e -> new DownloadResult(file, target, DownloadResult.Status.FAILED, 0L, unwrap(e)))
+                .whenComplete((result, e) -> active.remove(target));
+    }
+
+    private Path target(File file) {
+        String name = downloadOptions.naming().apply(file);
+        if (isNull(name) || name.trim().isEmpty())
+            name = file.getId();
+        Path target = targetDir.resolve(name).normalize();
+        if (!targetDir.equals(target.getParent()))
+            throw new IllegalArgumentException(format(UNSAFE_NAME, file.getId(), name));
+        String claimant = targets.putIfAbsent(target, file.getId());
+        if (nonNull(claimant) && !claimant.equals(file.getId()))
+            throw new IllegalArgumentException(format(NAME_COLLISION, file.getId(), name, claimant));
+        if (!active.add(target))
+            throw new IllegalArgumentException(format(IN_PROGRESS, file.getId(), name));
+        return target;
+    }
+
+    private Transfer prepare(File file, Path target) {
+        if (closed)
+            throw new CancellationException();
+        try {
+            if (nonNull(file.getMd5Checksum()) && Files.isRegularFile(target) && file.getMd5Checksum().equalsIgnoreCase(md5(target)))
+                return null;
+            return new Transfer(file, target);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String md5(Path path) throws IOException {
+        MessageDigest digest = md5();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = buffer();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest())
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        return hex.toString();
+    }
+
+    private static ByteBuffer buffer() {
+        ByteBuffer buffer = BUFFERS.get();
+        buffer.clear();
+        return buffer;
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void close() {
+        closed = true;
+        transfers.forEach(Transfer::cancel);
+    }
+
+    private static Exception unwrap(Throwable e) {
+        Throwable cause = e instanceof CompletionException && nonNull(e.getCause()) ? e.getCause() : e;
+        if (cause instanceof UncheckedIOException)
+            return ((UncheckedIOException) cause).getCause();
+        return cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+    }
+
+    private final class Transfer {
+        private final File file;
+        private final Path target;
+        private final Path part;
+        private final Path progress;
+        private final long chunkSize;
+        private final int chunkCount;
+        private final BitSet completed;
+        private final boolean resumed;
+        private final FileChannel channel;
+        private final AtomicLong bytesTransferred = new AtomicLong();
+        private final List<CompletableFuture<Void>> chunks = new ArrayList<>();
+
+        private Transfer(File file, Path target) throws IOException {
+            this.file = file;
+            this.target = target;
+            part = target.resolveSibling(target.getFileName() + PART);
+            progress = target.resolveSibling(target.getFileName() + PART + PROGRESS);
+            chunkSize = downloadOptions.chunkSize();
+            chunkCount = isNull(file.getSize()) ? 1 : (int) Math.max(1L, (file.getSize() + chunkSize - 1) / chunkSize);
+            completed = loadProgress();
+            resumed = !completed.isEmpty();
+            channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (!resumed) {
+                channel.truncate(0L);
+                saveProgress();
+            }
+        }
+
+        private CompletableFuture<DownloadResult> run() {
+            for (int chunk = completed.nextClearBit(0); chunk < chunkCount; chunk = completed.nextClearBit(chunk + 1)) {
+                int index = chunk;
+                chunks.add(CompletableFuture.runAsync(() -> fetch(index), downloadOptions.executor()));
+            }
+            transfers.add(this);
+            if (closed)
+                cancel();
+            return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0]))
+                    .thenApply(done -> finish())
+                    .whenComplete((result, e) -> closeChannel());
+        }
+
+        private void cancel() {
+            chunks.forEach(chunk -> chunk.cancel(false));
+        }
+
+        private void fetch(int chunk) {
+            if (closed)
+                throw new CancellationException();
+            try {
+                requests.acquire();
+                try {
+                    bytesTransferred.addAndGet(options.retryPolicy().execute(() -> write(chunk), options.rateLimiter()));
+                } finally {
+                    requests.release();
+                }
+                markCompleted(chunk);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException(format(INTERRUPTED, file.getId())));
+            }
+        }
+
+        private Long write(int chunk) throws IOException {
+            long position = chunk * chunkSize;
+            Drive.Files.Get request = drive.files().get(file.getId());
+            boolean ranged = chunkCount > 1;
+            String range = ranged ? format(RANGE, position, Math.min(file.getSize(), position + chunkSize) - 1) : null;
+            if (ranged)
+                request.getRequestHeaders().setRange(range);
+
+            HttpResponse response = request.executeMedia();
+            try (InputStream content = response.getContent(); ReadableByteChannel source = Channels.newChannel(content)) {
+                if (ranged && response.getStatusCode() != PARTIAL_CONTENT)
+                    throw new IOException(format(RANGE_IGNORED, range, file.getId()));
+                ByteBuffer buffer = buffer();
+                boolean exhausted = false;
+                while (!exhausted) {
+                    if (closed)
+                        throw new CancellationException();
+                    exhausted = source.read(buffer) == -1;
+                    if (buffer.hasRemaining() && !exhausted)
+                        continue;
+                    buffer.flip();
+                    if (buffer.hasRemaining())
+                        throttle();
+                    while (buffer.hasRemaining())
+                        position += channel.write(buffer, position);
+                    buffer.clear();
+                }
+            } finally {
+                response.disconnect();
+            }
+            return position - chunk * chunkSize;
+        }
+
+        private void throttle() throws InterruptedIOException {
+            RateLimiter bandwidth = downloadOptions.bandwidth();
+            if (isNull(bandwidth))
+                return;
+            try {
+                bandwidth.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(format(INTERRUPTED, file.getId()));
+            }
+        }
+
+        private DownloadResult finish() {
+            try {
+                channel.force(false);
+                channel.close();
+                if (closed)
+                    throw new CancellationException();
+                String md5 = file.getMd5Checksum();
+                if (nonNull(md5) && !md5.equalsIgnoreCase(md5(part))) {
+                    Files.deleteIfExists(part);
+                    Files.deleteIfExists(progress);
+                    throw new IOException(format(CHECKSUM_MISMATCH, file.getId(), md5));
+                }
+                Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.deleteIfExists(progress);
+                DownloadResult.Status status = resumed ? DownloadResult.Status.RESUMED : DownloadResult.Status.DOWNLOADED;
+                return new DownloadResult(file, target, status, bytesTransferred.get(), null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void closeChannel() {
+            transfers.remove(this);
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private BitSet loadProgress() throws IOException {
+            if (!Files.exists(part) || !Files.exists(progress))
+                return new BitSet(chunkCount);
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(progress, UTF_8)) {
+                properties.load(reader);
+            }
+            if (!header().equals(header(properties)))
+                return new BitSet(chunkCount);
+            BitSet chunks = new BitSet(chunkCount);
+            for (String chunk : properties.getProperty(CHUNKS, "").split(","))
+                if (!chunk.isEmpty())
+                    chunks.set(Integer.parseInt(chunk));
+            return chunks;
+        }
+
+        private synchronized void markCompleted(int chunk) throws IOException {
+            completed.set(chunk);
+            saveProgress();
+        }
+
+        private synchronized void saveProgress() throws IOException {
+            Properties properties = header();
+            properties.setProperty(CHUNKS, completed.stream().mapToObj(String::valueOf).collect(Collectors.joining(",")));
+            Path temporary = progress.resolveSibling(progress.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, UTF_8)) {
+                properties.store(writer, null);
+            }
+            Files.move(temporary, progress, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private Properties header() {
+            Properties properties = new Properties();
+            properties.setProperty(SIZE, String.valueOf(file.getSize()));
+            properties.setProperty(CHUNK_SIZE, String.valueOf(chunkSize));
+            properties.setProperty(MD5, String.valueOf(file.getMd5Checksum()));
+            return properties;
+        }
+
+        private Properties header(Properties stored) {
+            Properties properties = new Properties();
+            for (String key : new String[]{SIZE, CHUNK_SIZE, MD5})
+                properties.setProperty(key, stored.getProperty(key, ""));
+            return properties;
+        }
+    }
+}
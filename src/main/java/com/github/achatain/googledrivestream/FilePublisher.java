@@ -0,0 +1,179 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.FileList;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+final class FilePublisher implements Flow.Publisher<File> {
+
+    private static final String INVALID_DEMAND = "Demand must be positive but was [%d].";
+
+    private final Function<String, FileList> fetcher;
+    private final ListingOptions options;
+    private final Executor executor;
+
+    FilePublisher(Function<String, FileList> fetcher, ListingOptions options, Executor executor) {
+        this.fetcher = fetcher;
+        this.options = options;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super File> subscriber) {
+        FileSubscription subscription = new FileSubscription(requireNonNull(subscriber));
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class FileSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super File> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+        private final Deque<File> files = new ArrayDeque<>();
+
+        private volatile boolean cancelled;
+        private volatile FileList arrived;
+        private volatile Throwable error;
+        private FutureTask<FileList> inFlight;
+        private PagePrefetcher prefetcher;
+        private boolean firstPageFetched;
+        private String nextPageToken;
+        private boolean terminated;
+
+        private FileSubscription(Flow.Subscriber<? super File> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n < 1)
+                error = new IllegalArgumentException(format(INVALID_DEMAND, n));
+            else
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (work.getAndIncrement() != 0)
+                return;
+            do {
+                if (terminated)
+                    continue;
+                collectArrivedPage();
+                while (!files.isEmpty() && demand.get() > 0 && !cancelled && isNull(error)) {
+                    subscriber.onNext(files.poll());
+                    demand.getAndUpdate(current -> current == Long.MAX_VALUE ? current : current - 1);
+                }
+                if (cancelled)
+                    stop();
+                else if (nonNull(error)) {
+                    stop();
+                    subscriber.onError(error);
+                } else if (files.isEmpty() && isNull(inFlight)) {
+                    if (firstPageFetched && isNull(nextPageToken)) {
+                        stop();
+                        subscriber.onComplete();
+                    } else if (demand.get() > 0)
+                        fetch();
+                }
+            } while (work.decrementAndGet() != 0);
+        }
+
+        private void collectArrivedPage() {
+            FileList page = arrived;
+            if (isNull(page))
+                return;
+            arrived = null;
+            inFlight = null;
+            firstPageFetched = true;
+            nextPageToken = page.getNextPageToken();
+            if (nonNull(page.getFiles()))
+                files.addAll(page.getFiles());
+        }
+
+        private void fetch() {
+            String pageToken = nextPageToken;
+            PagePrefetcher pages = options.prefetching() ? prefetcher(pageToken) : null;
+            inFlight = new FutureTask<>(() -> isNull(pages) ? fetcher.apply(pageToken) : pages.next()) {
+                @Override
+                protected void done() {
+                    if (isCancelled())
+                        return;
+                    try {
+                        arrived = get();
+                    } catch (Exception e) {
+                        error = isNull(e.getCause()) ? e : e.getCause();
+                    }
+                    drain();
+                }
+            };
+            try {
+                executor.execute(inFlight);
+            } catch (RuntimeException e) {
+                inFlight = null;
+                error = e;
+                work.incrementAndGet();
+            }
+        }
+
+        private PagePrefetcher prefetcher(String pageToken) {
+            if (isNull(prefetcher))
+                prefetcher = new PagePrefetcher(fetcher, pageToken, options.prefetchPages(), options.prefetchExecutor());
+            return prefetcher;
+        }
+
+        private void stop() {
+            terminated = true;
+            files.clear();
+            if (nonNull(inFlight))
+                inFlight.cancel(true);
+            inFlight = null;
+            if (nonNull(prefetcher))
+                prefetcher.close();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.model.File;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+
+public final class FileRecord {
+
+    public static final long UNKNOWN_SIZE = -1L;
+    public static final long UNKNOWN_TIME = Long.MIN_VALUE;
+
+    static final String[] FIELDS = {"id", "name", "mimeType", "size", "createdTime", "modifiedTime", "md5Checksum"};
+
+    private static final Map<String, String> MIME_TYPES = new ConcurrentHashMap<>();
+    private static final int MD5_HEX_LENGTH = 32;
+
+    private final byte[] id;
+    private final byte[] name;
+    private final String mimeType;
+    private final long size;
+    private final long createdTime;
+    private final long modifiedTime;
+    private final boolean hasMd5;
+    private final long md5High;
+    private final long md5Low;
+
+    FileRecord(byte[] id, byte[] name, String mimeType, long size, long createdTime, long modifiedTime,
+               boolean hasMd5, long md5High, long md5Low) {
+        this.id = id;
+        this.name = name;
+        this.mimeType = mimeType;
+        this.size = size;
+        this.createdTime = createdTime;
+        this.modifiedTime = modifiedTime;
+        this.hasMd5 = hasMd5;
+        this.md5High = md5High;
+        this.md5Low = md5Low;
+    }
+
+    public static FileRecord of(File file) {
+        String md5 = file.getMd5Checksum();
+        boolean hasMd5 = isMd5(md5);
+        return new FileRecord(
+                bytes(file.getId()),
+                bytes(file.getName()),
+                intern(file.getMimeType()),
+                isNull(file.getSize()) ? UNKNOWN_SIZE : file.getSize(),
+                millis(file.getCreatedTime()),
+                millis(file.getModifiedTime()),
+                hasMd5,
+                hasMd5 ? Long.parseUnsignedLong(md5.substring(0, 16), 16) : 0L,
+                hasMd5 ? Long.parseUnsignedLong(md5.substring(16), 16) : 0L);
+    }
+
+    static String intern(String mimeType) {
+        return isNull(mimeType) ? null : MIME_TYPES.computeIfAbsent(mimeType, type -> type);
+    }
+
+    private static byte[] bytes(String value) {
+        return isNull(value) ? null : value.getBytes(UTF_8);
+    }
+
+    private static long millis(DateTime dateTime) {
+        return isNull(dateTime) ? UNKNOWN_TIME : dateTime.getValue();
+    }
+
+    static boolean isMd5(String md5) {
+        if (isNull(md5) || md5.length() != MD5_HEX_LENGTH)
+            return false;
+        for (int i = 0; i < md5.length(); i++)
+            if (Character.digit(md5.charAt(i), 16) < 0)
+                return false;
+        return true;
+    }
+
+    static String md5(long high, long low) {
+        StringBuilder hex = new StringBuilder(MD5_HEX_LENGTH);
+        appendHex(hex, high);
+        appendHex(hex, low);
+        return hex.toString();
+    }
+
+    private static void appendHex(StringBuilder hex, long value) {
+        for (int shift = 60; shift >= 0; shift -= 4)
+            hex.append(Character.forDigit((int) (value >>> shift) & 0xf, 16));
+    }
+
+    byte[] idBytes() {
+        return id;
+    }
+
+    byte[] nameBytes() {
+        return name;
+    }
+
+    boolean hasMd5() {
+        return hasMd5;
+    }
+
+    long md5High() {
+        return md5High;
+    }
+
+    long md5Low() {
+        return md5Low;
+    }
+
+    public String id() {
+        return isNull(id) ? null : new String(id, UTF_8);
+    }
+
+    public String name() {
+        return isNull(name) ? null : new String(name, UTF_8);
+    }
+
+    public String mimeType() {
+        return mimeType;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long createdTime() {
+        return createdTime;
+    }
+
+    public long modifiedTime() {
+        return modifiedTime;
+    }
+
+    public String md5Checksum() {
+        return hasMd5 ? md5(md5High, md5Low) : null;
+    }
+
+    @Override
+    public String toString() {
+        return id() + " " + name();
+    }
+}
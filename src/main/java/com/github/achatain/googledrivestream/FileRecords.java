@@ -0,0 +1,265 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+
+public final class FileRecords implements Iterable<FileRecord> {
+
+    private static final int INITIAL_RECORDS = 64;
+    private static final int INITIAL_ARENA_BYTES = 4096;
+    private static final int MAX_ARENA_BYTES = Integer.MAX_VALUE - 8;
+    private static final int NO_MIME_TYPE = -1;
+    private static final String ARENA_FULL = "Record strings can not exceed [%d] bytes.";
+
+    private final boolean offHeap;
+    private final List<String> mimeTypes;
+    private final Map<String, Integer> mimeTypeIndex;
+
+    private ByteBuffer arena;
+    private int count;
+    private long[] ids;
+    private long[] names;
+    private int[] mimeTypeRefs;
+    private long[] sizes;
+    private long[] createdTimes;
+    private long[] modifiedTimes;
+    private long[] md5Highs;
+    private long[] md5Lows;
+    private boolean[] md5Present;
+
+    private FileRecords(boolean offHeap) {
+        this.offHeap = offHeap;
+        mimeTypes = new ArrayList<>();
+        mimeTypeIndex = new HashMap<>();
+        arena = allocate(INITIAL_ARENA_BYTES);
+        ids = new long[INITIAL_RECORDS];
+        names = new long[INITIAL_RECORDS];
+        mimeTypeRefs = new int[INITIAL_RECORDS];
+        sizes = new long[INITIAL_RECORDS];
+        createdTimes = new long[INITIAL_RECORDS];
+        modifiedTimes = new long[INITIAL_RECORDS];
+        md5Highs = new long[INITIAL_RECORDS];
+        md5Lows = new long[INITIAL_RECORDS];
+        md5Present = new boolean[INITIAL_RECORDS];
+    }
+
+    public static Collector<FileRecord, ?, FileRecords> collector() {
+        return collector(false);
+    }
+
+    public static Collector<FileRecord, ?, FileRecords> offHeapCollector() {
+        return collector(true);
+    }
+
+    private static Collector<FileRecord, FileRecords, FileRecords> collector(boolean offHeap) {
+        return Collector.of(() -> new FileRecords(offHeap), FileRecords::add, FileRecords::append);
+    }
+
+    void add(FileRecord record) {
+        ensureCapacity(count + 1);
+        ids[count] = store(record.idBytes());
+        names[count] = store(record.nameBytes());
+        mimeTypeRefs[count] = mimeTypeRef(record.mimeType());
+        sizes[count] = record.size();
+        createdTimes[count] = record.createdTime();
+        modifiedTimes[count] = record.modifiedTime();
+        md5Present[count] = record.hasMd5();
+        md5Highs[count] = record.md5High();
+        md5Lows[count] = record.md5Low();
+        count++;
+    }
+
+    FileRecords append(FileRecords other) {
+        for (int i = 0; i < other.count; i++)
+            add(other.get(i));
+        return this;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean offHeap() {
+        return offHeap;
+    }
+
+    public long arenaBytes() {
+        return arena.position();
+    }
+
+    public FileRecord get(int index) {
+        checkIndex(index);
+        return new FileRecord(load(ids[index]), load(names[index]), mimeType(index), sizes[index],
+                createdTimes[index], modifiedTimes[index], md5Present[index], md5Highs[index], md5Lows[index]);
+    }
+
+    public String id(int index) {
+        checkIndex(index);
+        return string(ids[index]);
+    }
+
+    public String name(int index) {
+        checkIndex(index);
+        return string(names[index]);
+    }
+
+    public String mimeType(int index) {
+        checkIndex(index);
+        int ref = mimeTypeRefs[index];
+        return ref == NO_MIME_TYPE ? null : mimeTypes.get(ref);
+    }
+
+    public long fileSize(int index) {
+        checkIndex(index);
+        return sizes[index];
+    }
+
+    public long createdTime(int index) {
+        checkIndex(index);
+        return createdTimes[index];
+    }
+
+    public long modifiedTime(int index) {
+        checkIndex(index);
+        return modifiedTimes[index];
+    }
+
+    public String md5Checksum(int index) {
+        checkIndex(index);
+        return md5Present[index] ? FileRecord.md5(md5Highs[index], md5Lows[index]) : null;
+    }
+
+    public Stream<FileRecord> stream() {
+        return IntStream.range(0, count).mapToObj(this::get);
+    }
+
+    @Override
+    public Iterator<FileRecord> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public FileRecord next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return get(next++);
+            }
+        };
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException(index);
+    }
+
+    private int mimeTypeRef(String mimeType) {
+        if (isNull(mimeType))
+            return NO_MIME_TYPE;
+        return mimeTypeIndex.computeIfAbsent(mimeType, type -> {
+            mimeTypes.add(FileRecord.intern(type));
+            return mimeTypes.size() - 1;
+        });
+    }
+
+    private long store(byte[] bytes) {
+        if (isNull(bytes))
+            return -1L;
+        ensureArena(bytes.length);
+        int offset = arena.position();
+        arena.put(bytes);
+        return ((long) offset << 32) | bytes.length;
+    }
+
+    private byte[] load(long ref) {
+        if (ref == -1L)
+            return null;
+        byte[] bytes = new byte[(int) ref];
+        ByteBuffer view = arena.duplicate();
+        view.position((int) (ref >>> 32));
+        view.get(bytes);
+        return bytes;
+    }
+
+    private String string(long ref) {
+        if (ref == -1L)
+            return null;
+        if (arena.hasArray())
+            return new String(arena.array(), arena.arrayOffset() + (int) (ref >>> 32), (int) ref, UTF_8);
+        return new String(load(ref), UTF_8);
+    }
+
+    private void ensureArena(int bytes) {
+        if (arena.remaining() >= bytes)
+            return;
+        long required = (long) arena.position() + bytes;
+        if (required > MAX_ARENA_BYTES)
+            throw new IllegalStateException(format(ARENA_FULL, MAX_ARENA_BYTES));
+        ByteBuffer grown = allocate((int) Math.min(MAX_ARENA_BYTES, Math.max(required, (long) arena.capacity() << 1)));
+        arena.flip();
+        grown.put(arena);
+        arena = grown;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length)
+            return;
+        int capacity = Math.max(required, ids.length << 1);
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        mimeTypeRefs = Arrays.copyOf(mimeTypeRefs, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        createdTimes = Arrays.copyOf(createdTimes, capacity);
+        modifiedTimes = Arrays.copyOf(modifiedTimes, capacity);
+        md5Highs = Arrays.copyOf(md5Highs, capacity);
+        md5Lows = Arrays.copyOf(md5Lows, capacity);
+        md5Present = Arrays.copyOf(md5Present, capacity);
+    }
+}
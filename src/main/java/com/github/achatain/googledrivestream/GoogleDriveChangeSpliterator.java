@@ -0,0 +1,154 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.util.Sleeper;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.Change;
+import com.google.api.services.drive.model.ChangeList;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+public class GoogleDriveChangeSpliterator implements Spliterator<Change> {
+
+    private static final int PAGE_SIZE = 1000;
+    private static final String FIELDS = "changes,kind,newStartPageToken,nextPageToken";
+    private static final String PROJECTED_FIELDS = "nextPageToken,newStartPageToken,changes(type,fileId,removed,time,file(%s))";
+    private static final String ERROR = "Failed to fetch changes for page token [%s].";
+
+    private final Drive drive;
+    private final ListingOptions options;
+    private final StartPageTokenStore store;
+    private final Duration pollInterval;
+    private final Sleeper sleeper;
+    private final Deque<Change> changes;
+
+    private String pageToken;
+    private String newStartPageToken;
+
+    GoogleDriveChangeSpliterator(Drive drive, ListingOptions options, String startPageToken, StartPageTokenStore store, Duration pollInterval, Sleeper sleeper) {
+        this.drive = drive;
+        this.options = options;
+        this.store = store;
+        this.pollInterval = pollInterval;
+        this.sleeper = sleeper;
+        changes = new ArrayDeque<>();
+        pageToken = startPageToken;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Change> changeConsumer) {
+        while (changes.isEmpty())
+            if (hasNextPage())
+                fetchNextPage();
+            else {
+                checkpoint(newStartPageToken);
+                if (polling())
+                    poll();
+                else
+                    return false;
+            }
+
+        changeConsumer.accept(changes.pop());
+        return true;
+    }
+
+    private boolean hasNextPage() {
+        return nonNull(pageToken);
+    }
+
+    private boolean polling() {
+        return nonNull(pollInterval) && nonNull(newStartPageToken);
+    }
+
+    private void poll() {
+        try {
+            sleeper.sleep(pollInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(format(ERROR, newStartPageToken), e);
+        }
+        pageToken = newStartPageToken;
+        newStartPageToken = null;
+    }
+
+    private void checkpoint(String token) {
+        if (nonNull(store) && nonNull(token))
+            store.save(token);
+    }
+
+    private void fetchNextPage() {
+        checkpoint(pageToken);
+
+        ChangeList nextPage = fetchPage(pageToken);
+        if (nonNull(nextPage.getChanges()))
+            changes.addAll(nextPage.getChanges());
+        pageToken = nextPage.getNextPageToken();
+        newStartPageToken = nextPage.getNewStartPageToken();
+    }
+
+    private ChangeList fetchPage(String token) {
+        try {
+            Drive.Changes.List request = drive.changes().list(token).setFields(fields()).setPageSize(PAGE_SIZE);
+            return options.retryPolicy().execute(request, options.rateLimiter());
+        } catch (IOException e) {
+            throw new RuntimeException(format(ERROR, token), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(format(ERROR, token), e);
+        }
+    }
+
+    private String fields() {
+        Projection projection = options.projection();
+        return isNull(projection) ? FIELDS : format(PROJECTED_FIELDS, projection.toFileFields());
+    }
+
+    @Override
+    public Spliterator<Change> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
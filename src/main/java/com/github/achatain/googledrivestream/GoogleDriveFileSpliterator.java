@@ -26,82 +26,284 @@
 
 package com.github.achatain.googledrivestream;
 
+import com.google.api.client.http.HttpResponse;
 import com.google.api.services.drive.Drive;
 import com.google.api.services.drive.model.File;
 import com.google.api.services.drive.model.FileList;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Deque;
 import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Consumer;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static java.lang.String.format;
 
-public class GoogleDriveFileSpliterator implements Spliterator<File> {
+public class GoogleDriveFileSpliterator implements Spliterator<File>, AutoCloseable {
+
+    static final String CREATED_TIME = "createdTime";
 
-    private static final int PAGE_SIZE = 1000;
-    private static final String FIELDS = "files,incompleteSearch,kind,nextPageToken";
     private static final String ERROR = "Failed to fetch files for page token [%s].";
 
     private final Drive drive;
+    private final ListingOptions options;
     private final Deque<File> files;
+    private final Collection<GoogleDriveFileSpliterator> splitOff;
 
+    private CreatedTimeRange range;
+    private int splits;
     private boolean firstPageFetched;
     private String nextPageToken;
+    private PagePrefetcher prefetcher;
+    private StreamingFilePage streamingPage;
+    private HttpResponse streamingResponse;
+    private CountingInputStream streamingContent;
+    private long streamingLatencyNanos;
+    private int pageSize;
+    private long filesRequested;
 
     GoogleDriveFileSpliterator(Drive drive) {
+        this(drive, ListingOptions.DEFAULT);
+    }
+
+    GoogleDriveFileSpliterator(Drive drive, ListingOptions options) {
+        this(drive, options, null, 0);
+    }
+
+    GoogleDriveFileSpliterator(Drive drive, ListingOptions options, CreatedTimeRange range, int splits) {
+        this(drive, options, range, splits, new ConcurrentLinkedQueue<>());
+    }
+
+    private GoogleDriveFileSpliterator(Drive drive, ListingOptions options, CreatedTimeRange range, int splits,
+                                       Collection<GoogleDriveFileSpliterator> splitOff) {
         this.drive = drive;
+        this.options = options;
+        this.range = range;
+        this.splits = splits;
+        this.splitOff = splitOff;
         files = new ArrayDeque<>();
     }
 
     @Override
     public boolean tryAdvance(Consumer<? super File> fileConsumer) {
+        if (files.isEmpty() && !refill())
+            return false;
+
+        fileConsumer.accept(files.pop());
+        return true;
+    }
+
+    private boolean refill() {
+        ListingListener listener = options.listener();
+        long start = nonNull(listener) ? System.nanoTime() : 0L;
+        while (files.isEmpty())
+            if (nonNull(streamingPage))
+                readStreamingPage();
+            else if (hasNextPage())
+                fetchNextPage();
+            else {
+                release();
+                return false;
+            }
+
+        if (nonNull(listener))
+            listener.stalled(System.nanoTime() - start);
+        return true;
+    }
+
+    private boolean hasNextPage() {
+        return !firstPageFetched || nonNull(nextPageToken);
+    }
+
+    private void fetchNextPage() {
+        if (options.streamingParser()) {
+            streamingPage = openPage(nextPageToken);
+            firstPageFetched = true;
+            return;
+        }
+        FileList nextPage = options.prefetching() ? prefetcher().next() : fetchPage(nextPageToken);
+        buffer(nextPage);
+    }
+
+    private void buffer(FileList page) {
+        files.addAll(page.getFiles());
+        nextPageToken = page.getNextPageToken();
+        firstPageFetched = true;
+        if (nonNull(options.listener()))
+            options.listener().buffered(files.size());
+    }
+
+    private PagePrefetcher prefetcher() {
+        if (isNull(prefetcher))
+            prefetcher = new PagePrefetcher(this::fetchPage, nextPageToken, options.prefetchPages(), options.prefetchExecutor());
+        return prefetcher;
+    }
+
+    FileList fetchPage(String pageToken) {
+        return fetchPage(pageToken, nextPageSize());
+    }
+
+    FileList fetchPage(String pageToken, int pageSize) {
         try {
-            if (!firstPageFetched)
-                fetchFirstPage();
-
-            if (files.isEmpty())
-                if (hasNextPage()) {
-                    fetchNextPage();
-                    return tryAdvance(fileConsumer);
-                } else
-                    return false;
+            if (isNull(options.listener()))
+                return options.retryPolicy().execute(listRequest(pageToken, pageSize), options.rateLimiter());
+            return fetchObservedPage(listRequest(pageToken, pageSize), options.listener());
+        } catch (IOException e) {
+            throw new RuntimeException(format(ERROR, pageToken), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(format(ERROR, pageToken), e);
+        }
+    }
+
+    private FileList fetchObservedPage(Drive.Files.List request, ListingListener listener) throws IOException, InterruptedException {
+        return options.retryPolicy().execute(() -> {
+            long start = System.nanoTime();
+            HttpResponse response = request.executeUnparsed();
+            CountingInputStream content = new CountingInputStream(response.getContent());
+            FileList page = drive.getObjectParser().parseAndClose(content, response.getContentCharset(), FileList.class);
+            listener.pageFetched(System.nanoTime() - start, content.count(), page.getFiles().size());
+            return page;
+        }, options.rateLimiter(), 1, listener);
+    }
+
+    private StreamingFilePage openPage(String pageToken) {
+        try {
+            Drive.Files.List request = listRequest(pageToken, nextPageSize());
+            ListingListener listener = options.listener();
+            if (isNull(listener)) {
+                HttpResponse response = options.retryPolicy().execute(request::executeUnparsed, options.rateLimiter());
+                streamingResponse = response;
+                return new StreamingFilePage(drive.getJsonFactory().createJsonParser(response.getContent(), response.getContentCharset()));
+            }
+            HttpResponse response = options.retryPolicy().execute(() -> {
+                long start = System.nanoTime();
+                HttpResponse attempt = request.executeUnparsed();
+                streamingLatencyNanos = System.nanoTime() - start;
+                return attempt;
+            }, options.rateLimiter(), 1, listener);
+            streamingResponse = response;
+            streamingContent = new CountingInputStream(response.getContent());
+            return new StreamingFilePage(drive.getJsonFactory().createJsonParser(streamingContent, response.getContentCharset()));
+        } catch (IOException e) {
+            throw new RuntimeException(format(ERROR, pageToken), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(format(ERROR, pageToken), e);
+        }
+    }
+
+    private void readStreamingPage() {
+        try {
+            File file = streamingPage.next();
+            if (nonNull(file))
+                files.add(file);
             else {
-                fileConsumer.accept(files.pop());
-                return true;
+                nextPageToken = streamingPage.nextPageToken();
+                if (nonNull(options.listener()))
+                    options.listener().pageFetched(streamingLatencyNanos, streamingContent.count(), streamingPage.files());
+                closeStreamingPage();
             }
         } catch (IOException e) {
+            closeStreamingPage();
             throw new RuntimeException(format(ERROR, nextPageToken), e);
         }
     }
 
-    private void fetchFirstPage() throws IOException {
-        FileList firstPage = drive.files().list().setFields(FIELDS).setPageSize(PAGE_SIZE).execute();
-        files.addAll(firstPage.getFiles());
-        nextPageToken = firstPage.getNextPageToken();
-        firstPageFetched = true;
+    private void closeStreamingPage() {
+        try {
+            try {
+                streamingPage.close();
+            } finally {
+                streamingResponse.disconnect();
+            }
+        } catch (IOException ignored) {
+        } finally {
+            streamingPage = null;
+            streamingResponse = null;
+            streamingContent = null;
+        }
     }
 
-    private boolean hasNextPage() {
-        return nonNull(nextPageToken);
+    private Drive.Files.List listRequest(String pageToken, int pageSize) throws IOException {
+        Drive.Files.List request = drive.files().list().setFields(options.fields()).setPageSize(pageSize);
+        String query = options.query(range);
+        if (nonNull(query))
+            request = request.setQ(query);
+        if (nonNull(range))
+            request = request.setOrderBy(CREATED_TIME);
+        if (nonNull(options.corpora()))
+            request = request.setCorpora(options.corpora());
+        if (nonNull(options.teamDriveId()))
+            request = request.setTeamDriveId(options.teamDriveId()).setIncludeTeamDriveItems(true).setSupportsTeamDrives(true);
+        if (nonNull(pageToken))
+            request = request.setPageToken(pageToken);
+        return request;
     }
 
-    private void fetchNextPage() throws IOException {
-        FileList nextPage = drive.files().list().setFields(FIELDS).setPageSize(PAGE_SIZE).setPageToken(nextPageToken).execute();
-        files.addAll(nextPage.getFiles());
-        nextPageToken = nextPage.getNextPageToken();
+    private int nextPageSize() {
+        pageSize = options.pageSizePolicy().next(pageSize);
+        long hinted = options.sizeHint() - filesRequested;
+        int size = hinted > 0 ? (int) Math.min(pageSize, hinted) : pageSize;
+        filesRequested += size;
+        return size;
+    }
+
+    @Override
+    public void close() {
+        release();
+        splitOff.forEach(GoogleDriveFileSpliterator::release);
+    }
+
+    private void release() {
+        if (nonNull(prefetcher))
+            prefetcher.close();
+        if (nonNull(streamingPage))
+            closeStreamingPage();
     }
 
     @Override
     public Spliterator<File> trySplit() {
-        throw new UnsupportedOperationException();
+        if (isNull(range) || firstPageFetched || splits < 2)
+            return null;
+
+        probeFirstPage();
+        if (!hasNextPage())
+            return null;
+
+        File last = files.peekLast();
+        CreatedTimeRange[] halves = range.from(createdTime(last)).split();
+        if (isNull(halves))
+            return null;
+
+        files.removeIf(file -> createdTime(file).equals(createdTime(last)));
+        range = halves[0];
+        firstPageFetched = false;
+        nextPageToken = null;
+
+        int prefixSplits = splits / 2;
+        splits -= prefixSplits;
+        GoogleDriveFileSpliterator prefix = new GoogleDriveFileSpliterator(drive, options, halves[1], prefixSplits, splitOff);
+        splitOff.add(prefix);
+        return prefix;
+    }
+
+    private void probeFirstPage() {
+        buffer(fetchPage(null));
+    }
+
+    private static Instant createdTime(File file) {
+        return Instant.ofEpochMilli(file.getCreatedTime().getValue());
     }
 
     @Override
     public long estimateSize() {
-        return Long.MAX_VALUE;
+        return hasNextPage() || nonNull(streamingPage) ? Long.MAX_VALUE : files.size();
     }
 
     @Override
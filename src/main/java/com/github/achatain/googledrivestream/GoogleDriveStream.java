@@ -26,21 +26,276 @@
 
 package com.github.achatain.googledrivestream;
 
+import com.google.api.client.util.Sleeper;
 import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.Change;
 import com.google.api.services.drive.model.File;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
 public class GoogleDriveStream {
 
+    private static final String START_PAGE_TOKEN_ERROR = "Failed to fetch the start page token.";
+    private static final String INVALID_PARALLELISM = "Parallelism must be positive but was [%d].";
+    private static final String INVALID_SAVE_INTERVAL = "Checkpoints must be saved every positive number of files but was [%d].";
+    private static final String STREAMING_WHOLE_PAGES = "Streaming page parsing can not be combined with [%s], which consumes whole pages.";
+
     private final Drive drive;
+    private final ListingOptions options;
 
     public GoogleDriveStream(Drive drive) {
+        this(drive, ListingOptions.DEFAULT);
+    }
+
+    private GoogleDriveStream(Drive drive, ListingOptions options) {
         this.drive = drive;
+        this.options = options;
+    }
+
+    public GoogleDriveStream withPrefetch(int pages) {
+        return withPrefetch(pages, PagePrefetcher.DEFAULT_EXECUTOR);
+    }
+
+    public GoogleDriveStream withPrefetch(int pages, Executor executor) {
+        return new GoogleDriveStream(drive, options.withPrefetch(pages, executor));
+    }
+
+    public GoogleDriveStream withStreamingParser() {
+        return new GoogleDriveStream(drive, options.withStreamingParser());
+    }
+
+    public GoogleDriveStream withProjection(Projection projection) {
+        return new GoogleDriveStream(drive, options.withProjection(projection));
+    }
+
+    public GoogleDriveStream withRetryPolicy(RetryPolicy retryPolicy) {
+        return new GoogleDriveStream(drive, options.withRetryPolicy(retryPolicy));
+    }
+
+    public GoogleDriveStream withRateLimiter(RateLimiter rateLimiter) {
+        return new GoogleDriveStream(drive, options.withRateLimiter(rateLimiter));
+    }
+
+    public GoogleDriveStream withPageSizePolicy(PageSizePolicy pageSizePolicy) {
+        return new GoogleDriveStream(drive, options.withPageSizePolicy(pageSizePolicy));
+    }
+
+    public GoogleDriveStream withSizeHint(long files) {
+        return new GoogleDriveStream(drive, options.withSizeHint(files));
+    }
+
+    public GoogleDriveStream withListener(ListingListener listener) {
+        return new GoogleDriveStream(drive, options.withListener(listener));
     }
 
     public Stream<File> files() {
-        return StreamSupport.stream(new GoogleDriveFileSpliterator(drive), false);
+        return stream(new GoogleDriveFileSpliterator(drive, options), false);
+    }
+
+    public Stream<File> files(Projection projection) {
+        return withProjection(projection).files();
+    }
+
+    public Stream<File> files(int parallelism) {
+        return files(options, parallelism);
+    }
+
+    public Stream<File> files(Query query) {
+        return stream(new GoogleDriveFileSpliterator(drive, querying(query)), false)
+                .filter(query.residual());
+    }
+
+    public Stream<File> files(Query query, int parallelism) {
+        return files(querying(query), parallelism)
+                .filter(query.residual());
+    }
+
+    private ListingOptions querying(Query query) {
+        return options.andQuery(query.toQ()).requiring(query.fields());
+    }
+
+    public Stream<CheckpointedFile> checkpointed(CheckpointStore store) {
+        return checkpointed(store, 1);
+    }
+
+    public Stream<CheckpointedFile> checkpointed(CheckpointStore store, int saveEvery) {
+        if (saveEvery < 1)
+            throw new IllegalArgumentException(format(INVALID_SAVE_INTERVAL, saveEvery));
+        return checkpointed(store.load().orElse(Checkpoint.start()), store, saveEvery);
+    }
+
+    public Stream<CheckpointedFile> resume(Checkpoint checkpoint) {
+        return checkpointed(requireNonNull(checkpoint), null, 1);
+    }
+
+    private Stream<CheckpointedFile> checkpointed(Checkpoint start, CheckpointStore store, int saveEvery) {
+        CheckpointSpliterator spliterator = new CheckpointSpliterator(new GoogleDriveFileSpliterator(drive, wholePages(options, "checkpointed")),
+                options, start, store, saveEvery);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    public Flow.Publisher<File> filesPublisher() {
+        return filesPublisher(ForkJoinPool.commonPool());
+    }
+
+    public Flow.Publisher<File> filesPublisher(Executor executor) {
+        return new FilePublisher(new GoogleDriveFileSpliterator(drive, wholePages(options, "filesPublisher"))::fetchPage,
+                options, requireNonNull(executor));
+    }
+
+    public Stream<FileRecord> records() {
+        return stream(new GoogleDriveFileSpliterator(drive, projecting(FileRecord.FIELDS)), false).map(FileRecord::of);
+    }
+
+    public Stream<FileRecord> records(int parallelism) {
+        return files(projecting(FileRecord.FIELDS), parallelism).map(FileRecord::of);
+    }
+
+    public DriveUsage usage() {
+        DriveUsageAnalyzer analyzer = new DriveUsageAnalyzer();
+        try (Stream<File> files = stream(new GoogleDriveFileSpliterator(drive, projecting(DriveUsageAnalyzer.FIELDS)), false)) {
+            files.forEach(analyzer);
+        }
+        return analyzer.finish();
+    }
+
+    public Stream<DuplicateGroup> duplicates() {
+        return duplicates(DuplicateOptions.defaults());
+    }
+
+    public Stream<DuplicateGroup> duplicates(DuplicateOptions duplicateOptions) {
+        try (Stream<File> files = stream(new GoogleDriveFileSpliterator(drive, projecting(DuplicateFinder.FIELDS)), false)) {
+            return files.collect(DuplicateFinder.collector(duplicateOptions));
+        }
+    }
+
+    public Stream<DuplicateGroup> duplicates(DuplicateOptions duplicateOptions, int parallelism) {
+        try (Stream<File> files = files(projecting(DuplicateFinder.FIELDS), parallelism)) {
+            return files.collect(DuplicateFinder.collector(duplicateOptions));
+        }
+    }
+
+    private ListingOptions projecting(String... fields) {
+        return isNull(options.projection())
+                ? options.withProjection(Projection.of(fields))
+                : options.requiring(fields);
+    }
+
+    public Stream<EnrichedFile> enrich(Stream<File> files, EnrichmentSpec spec) {
+        EnrichmentSpliterator spliterator = new EnrichmentSpliterator(files.iterator(), new BatchEnricher(drive, options, spec), spec);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close).onClose(files::close);
+    }
+
+    public Stream<MutationResult> apply(Stream<File> files, Function<File, Mutation> mutations) {
+        return apply(files, mutations, MutationOptions.defaults());
+    }
+
+    public Stream<MutationResult> apply(Stream<File> files, Function<File, Mutation> mutations, MutationOptions mutationOptions) {
+        MutationSpliterator spliterator = new MutationSpliterator(files.iterator(), requireNonNull(mutations),
+                new BatchMutator(drive, options, mutationOptions.retryPolicy()), mutationOptions);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close).onClose(files::close);
+    }
+
+    public Stream<DownloadResult> download(Stream<File> files, Path targetDir, DownloadOptions downloadOptions) {
+        FileDownloader downloader = new FileDownloader(drive, options, downloadOptions, requireNonNull(targetDir));
+        DownloadSpliterator spliterator = new DownloadSpliterator(files.iterator(), downloader, downloadOptions.concurrency());
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close).onClose(files::close);
+    }
+
+    public Stream<SourcedFile> filesAcross(Collection<DriveTarget> targets) {
+        return filesAcross(targets, FanOutOptions.defaults());
+    }
+
+    public Stream<SourcedFile> filesAcross(Collection<DriveTarget> targets, FanOutOptions fanOut) {
+        ListingOptions listing = wholePages(options, "filesAcross");
+        int pagesAhead = listing.prefetching() ? listing.prefetchPages() : FanOutSpliterator.PAGES_AHEAD;
+        FanOutSpliterator spliterator = new FanOutSpliterator(targets,
+                target -> new GoogleDriveFileSpliterator(target.client(drive), target.apply(listing))::fetchPage, pagesAhead, fanOut);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    public Stream<File> tree(String rootFolderId) {
+        GoogleDriveTreeSpliterator spliterator = new GoogleDriveTreeSpliterator(drive, options, requireNonNull(rootFolderId));
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    public Stream<File> cached(MetadataCache cache, Duration maxStaleness) {
+        return cache.synchronize(this, requireNonNull(maxStaleness)) ? cache.files() : files();
+    }
+
+    public Stream<Change> changes(String startPageToken) {
+        return changes(requireNonNull(startPageToken), null, null);
+    }
+
+    public Stream<Change> changes(String startPageToken, Consumer<String> newStartPageToken) {
+        return changes(requireNonNull(startPageToken), saving(requireNonNull(newStartPageToken)), null);
+    }
+
+    public Stream<Change> changes(StartPageTokenStore store) {
+        return changes(store.load().orElseGet(this::startPageToken), store, null);
+    }
+
+    public Stream<Change> changes(StartPageTokenStore store, Duration pollInterval) {
+        return changes(store.load().orElseGet(this::startPageToken), store, requireNonNull(pollInterval));
+    }
+
+    private Stream<Change> changes(String startPageToken, StartPageTokenStore store, Duration pollInterval) {
+        return StreamSupport.stream(new GoogleDriveChangeSpliterator(drive, options, startPageToken, store, pollInterval, Sleeper.DEFAULT), false);
+    }
+
+    private static StartPageTokenStore saving(Consumer<String> newStartPageToken) {
+        return new StartPageTokenStore() {
+            @Override
+            public Optional<String> load() {
+                return Optional.empty();
+            }
+
+            @Override
+            public void save(String startPageToken) {
+                newStartPageToken.accept(startPageToken);
+            }
+        };
+    }
+
+    public String startPageToken() {
+        try {
+            return drive.changes().getStartPageToken().execute().getStartPageToken();
+        } catch (IOException e) {
+            throw new RuntimeException(START_PAGE_TOKEN_ERROR, e);
+        }
+    }
+
+    private Stream<File> files(ListingOptions listingOptions, int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException(format(INVALID_PARALLELISM, parallelism));
+        CreatedTimeRange range = CreatedTimeRange.unbounded(Instant.now());
+        ListingOptions partitioned = listingOptions.requiring(GoogleDriveFileSpliterator.CREATED_TIME);
+        return stream(new GoogleDriveFileSpliterator(drive, partitioned, range, parallelism << 2), true);
+    }
+
+    private static ListingOptions wholePages(ListingOptions listingOptions, String consumer) {
+        if (listingOptions.streamingParser())
+            throw new IllegalStateException(format(STREAMING_WHOLE_PAGES, consumer));
+        return listingOptions;
+    }
+
+    private static Stream<File> stream(GoogleDriveFileSpliterator spliterator, boolean parallel) {
+        return StreamSupport.stream(spliterator, parallel).onClose(spliterator::close);
     }
 }
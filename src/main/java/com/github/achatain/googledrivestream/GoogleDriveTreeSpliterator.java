@@ -0,0 +1,160 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.File;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+public class GoogleDriveTreeSpliterator implements Spliterator<File>, AutoCloseable {
+
+    static final String FOLDER_MIME_TYPE = "application/vnd.google-apps.folder";
+
+    private static final String ID = "id";
+    private static final String MIME_TYPE = "mimeType";
+    private static final String IN_PARENTS = "'%s' in parents";
+
+    private final Drive drive;
+    private final ListingOptions options;
+    private final Set<String> visited;
+    private final Deque<String> folders;
+    private final Deque<File> expanded;
+
+    private GoogleDriveFileSpliterator current;
+    private File received;
+
+    GoogleDriveTreeSpliterator(Drive drive, ListingOptions options, String rootFolderId) {
+        this(drive, options.requiring(ID, MIME_TYPE), ConcurrentHashMap.newKeySet(), new ArrayDeque<>());
+        visited.add(rootFolderId);
+        folders.add(rootFolderId);
+    }
+
+    private GoogleDriveTreeSpliterator(Drive drive, ListingOptions options, Set<String> visited, Deque<String> folders) {
+        this.drive = drive;
+        this.options = options;
+        this.visited = visited;
+        this.folders = folders;
+        expanded = new ArrayDeque<>();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super File> fileConsumer) {
+        if (!expanded.isEmpty()) {
+            fileConsumer.accept(expanded.pop());
+            return true;
+        }
+
+        File file;
+        while (nonNull(file = nextChild()))
+            if (visit(file)) {
+                fileConsumer.accept(file);
+                return true;
+            }
+        return false;
+    }
+
+    private File nextChild() {
+        while (true) {
+            if (isNull(current))
+                if (folders.isEmpty())
+                    return null;
+                else
+                    current = children(folders.poll());
+
+            if (current.tryAdvance(this::receive)) {
+                File file = received;
+                received = null;
+                return file;
+            }
+            current = null;
+        }
+    }
+
+    private void receive(File file) {
+        received = file;
+    }
+
+    private GoogleDriveFileSpliterator children(String folderId) {
+        return new GoogleDriveFileSpliterator(drive, options.andQuery(format(IN_PARENTS, folderId)));
+    }
+
+    private boolean visit(File file) {
+        if (!visited.add(file.getId()))
+            return false;
+        if (FOLDER_MIME_TYPE.equals(file.getMimeType()))
+            folders.add(file.getId());
+        return true;
+    }
+
+    @Override
+    public Spliterator<File> trySplit() {
+        if (isNull(current))
+            while (folders.size() == 1)
+                expand(folders.poll());
+
+        if (folders.size() < 2)
+            return null;
+
+        Deque<String> prefix = new ArrayDeque<>();
+        for (int i = folders.size() / 2; i > 0; i--)
+            prefix.add(folders.poll());
+        return new GoogleDriveTreeSpliterator(drive, options, visited, prefix);
+    }
+
+    private void expand(String folderId) {
+        children(folderId).forEachRemaining(file -> {
+            if (visit(file))
+                expanded.add(file);
+        });
+    }
+
+    @Override
+    public long estimateSize() {
+        return isNull(current) && folders.isEmpty() ? expanded.size() : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | NONNULL;
+    }
+
+    @Override
+    public void close() {
+        if (nonNull(current))
+            current.close();
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import java.util.Arrays;
+
+final class IdIndex {
+
+    static final int ABSENT = -1;
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long[] fingerprints;
+    private int[] slots;
+    private int mask;
+    private int size;
+
+    IdIndex() {
+        fingerprints = new long[INITIAL_CAPACITY];
+        slots = new int[INITIAL_CAPACITY << 1];
+        mask = slots.length - 1;
+    }
+
+    static long fingerprint(String id) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ hash >>> 33;
+    }
+
+    int intern(String id) {
+        long fingerprint = fingerprint(id);
+        int slot = (int) fingerprint & mask;
+        for (int ref = slots[slot]; ref != 0; ref = slots[slot]) {
+            if (fingerprints[ref - 1] == fingerprint)
+                return ref - 1;
+            slot = slot + 1 & mask;
+        }
+        if (size == fingerprints.length)
+            fingerprints = Arrays.copyOf(fingerprints, size << 1);
+        fingerprints[size] = fingerprint;
+        slots[slot] = ++size;
+        if (size > slots.length - (slots.length >>> 2))
+            rehash(slots.length << 1);
+        return size - 1;
+    }
+
+    int find(String id) {
+        long fingerprint = fingerprint(id);
+        int slot = (int) fingerprint & mask;
+        for (int ref = slots[slot]; ref != 0; ref = slots[slot]) {
+            if (fingerprints[ref - 1] == fingerprint)
+                return ref - 1;
+            slot = slot + 1 & mask;
+        }
+        return ABSENT;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void trim() {
+        fingerprints = Arrays.copyOf(fingerprints, size);
+        int capacity = 2;
+        while (capacity - (capacity >>> 2) < size)
+            capacity <<= 1;
+        if (capacity < slots.length)
+            rehash(capacity);
+    }
+
+    long retainedBytes() {
+        return 8L * fingerprints.length + 4L * slots.length;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = (int) fingerprints[i] & mask;
+            while (slots[slot] != 0)
+                slot = slot + 1 & mask;
+            slots[slot] = i + 1;
+        }
+    }
+}
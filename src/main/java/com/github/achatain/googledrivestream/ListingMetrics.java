@@ -0,0 +1,238 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+
+public final class ListingMetrics implements ListingListener, ListingMetricsMBean, AutoCloseable {
+
+    private static final String OBJECT_NAME = "com.github.achatain.googledrivestream:type=ListingMetrics,name=%s";
+    private static final String REGISTRATION_ERROR = "Failed to register the listing metrics [%s].";
+    private static final String UNREGISTRATION_ERROR = "Failed to unregister the listing metrics [%s].";
+    private static final int BUCKETS = 40;
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ObjectName objectName;
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder throttledNanos = new LongAdder();
+    private final LongAdder stalledNanos = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final AtomicInteger bufferedFiles = new AtomicInteger();
+    private final AtomicInteger maxBufferedFiles = new AtomicInteger();
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray(BUCKETS);
+
+    ListingMetrics(ObjectName objectName) {
+        this.objectName = objectName;
+    }
+
+    public static ListingMetrics register(String name) {
+        try {
+            ListingMetrics metrics = new ListingMetrics(new ObjectName(format(OBJECT_NAME, ObjectName.quote(name))));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, metrics.objectName);
+            return metrics;
+        } catch (JMException e) {
+            throw new RuntimeException(format(REGISTRATION_ERROR, name), e);
+        }
+    }
+
+    public ObjectName objectName() {
+        return objectName;
+    }
+
+    @Override
+    public void pageFetched(long latencyNanos, long responseBytes, int files) {
+        pages.increment();
+        this.files.add(files);
+        this.responseBytes.add(responseBytes);
+        this.latencyNanos.add(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+        latencyHistogram.incrementAndGet(bucket(latencyNanos));
+    }
+
+    @Override
+    public void retried(int attempt, long backOffMillis) {
+        retries.increment();
+    }
+
+    @Override
+    public void throttled(long waitNanos) {
+        throttledNanos.add(waitNanos);
+    }
+
+    @Override
+    public void buffered(int files) {
+        bufferedFiles.set(files);
+        maxBufferedFiles.accumulateAndGet(files, Math::max);
+    }
+
+    @Override
+    public void stalled(long stallNanos) {
+        stalledNanos.add(stallNanos);
+    }
+
+    private static int bucket(long latencyNanos) {
+        return Math.min(Long.SIZE - Long.numberOfLeadingZeros(TimeUnit.NANOSECONDS.toMicros(latencyNanos)), BUCKETS - 1);
+    }
+
+    @Override
+    public long getPages() {
+        return pages.sum();
+    }
+
+    @Override
+    public long getFiles() {
+        return files.sum();
+    }
+
+    @Override
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getThrottledMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(throttledNanos.sum());
+    }
+
+    @Override
+    public long getStalledMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(stalledNanos.sum());
+    }
+
+    @Override
+    public int getBufferedFiles() {
+        return bufferedFiles.get();
+    }
+
+    @Override
+    public int getMaxBufferedFiles() {
+        return maxBufferedFiles.get();
+    }
+
+    @Override
+    public double getMeanPageLatencyMillis() {
+        long count = pages.sum();
+        return count == 0 ? 0.0 : latencyNanos.sum() / NANOS_PER_MILLI / count;
+    }
+
+    @Override
+    public double getMaxPageLatencyMillis() {
+        return maxLatencyNanos.get() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getPageLatency50thPercentileMillis() {
+        return percentile(0.50);
+    }
+
+    @Override
+    public double getPageLatency90thPercentileMillis() {
+        return percentile(0.90);
+    }
+
+    @Override
+    public double getPageLatency99thPercentileMillis() {
+        return percentile(0.99);
+    }
+
+    private double percentile(double rank) {
+        long[] histogram = getPageLatencyHistogram();
+        long total = 0L;
+        for (long count : histogram)
+            total += count;
+        if (total == 0)
+            return 0.0;
+        long threshold = (long) Math.ceil(rank * total);
+        long seen = 0L;
+        for (int bucket = 0; bucket < histogram.length; bucket++) {
+            seen += histogram[bucket];
+            if (seen >= threshold)
+                return upperBoundMillis(bucket);
+        }
+        return upperBoundMillis(histogram.length - 1);
+    }
+
+    private static double upperBoundMillis(int bucket) {
+        return TimeUnit.MICROSECONDS.toNanos(1L << bucket) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long[] getPageLatencyHistogram() {
+        long[] histogram = new long[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+            histogram[bucket] = latencyHistogram.get(bucket);
+        return histogram;
+    }
+
+    @Override
+    public void reset() {
+        pages.reset();
+        files.reset();
+        responseBytes.reset();
+        retries.reset();
+        throttledNanos.reset();
+        stalledNanos.reset();
+        latencyNanos.reset();
+        maxLatencyNanos.set(0L);
+        bufferedFiles.set(0);
+        maxBufferedFiles.set(0);
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+            latencyHistogram.set(bucket, 0L);
+    }
+
+    @Override
+    public void close() {
+        if (isNull(objectName))
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException ignored) {
+        } catch (JMException e) {
+            throw new RuntimeException(format(UNREGISTRATION_ERROR, objectName), e);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import java.util.concurrent.Executor;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+final class ListingOptions {
+
+    static final ListingOptions DEFAULT = new ListingOptions();
+
+    private static final String FIELDS = "files,incompleteSearch,kind,nextPageToken";
+    private static final String CONJUNCTION = "(%s) and (%s)";
+    private static final String INVALID_PREFETCH = "Prefetched pages must be positive but was [%d].";
+    private static final String INVALID_SIZE_HINT = "Size hint must be positive but was [%d].";
+    private static final String PREFETCH_WHILE_STREAMING = "Prefetching can not be combined with streaming page parsing.";
+
+    private int prefetchPages;
+    private Executor prefetchExecutor;
+    private String query;
+    private Projection projection;
+    private RetryPolicy retryPolicy;
+    private RateLimiter rateLimiter;
+    private boolean streamingParser;
+    private String corpora;
+    private String teamDriveId;
+    private ListingListener listener;
+    private PageSizePolicy pageSizePolicy;
+    private long sizeHint;
+
+    private ListingOptions() {
+        prefetchExecutor = PagePrefetcher.DEFAULT_EXECUTOR;
+        retryPolicy = RetryPolicy.none();
+        pageSizePolicy = PageSizePolicy.DEFAULT;
+    }
+
+    private ListingOptions(ListingOptions other) {
+        prefetchPages = other.prefetchPages;
+        prefetchExecutor = other.prefetchExecutor;
+        query = other.query;
+        projection = other.projection;
+        retryPolicy = other.retryPolicy;
+        rateLimiter = other.rateLimiter;
+        streamingParser = other.streamingParser;
+        corpora = other.corpora;
+        teamDriveId = other.teamDriveId;
+        listener = other.listener;
+        pageSizePolicy = other.pageSizePolicy;
+        sizeHint = other.sizeHint;
+    }
+
+    ListingOptions withPrefetch(int pages, Executor executor) {
+        if (pages < 1)
+            throw new IllegalArgumentException(format(INVALID_PREFETCH, pages));
+        if (streamingParser)
+            throw new IllegalStateException(PREFETCH_WHILE_STREAMING);
+        ListingOptions copy = new ListingOptions(this);
+        copy.prefetchPages = pages;
+        copy.prefetchExecutor = requireNonNull(executor);
+        return copy;
+    }
+
+    ListingOptions andQuery(String newQuery) {
+        if (isNull(newQuery))
+            return this;
+        ListingOptions copy = new ListingOptions(this);
+        copy.query = isNull(query) ? newQuery : format(CONJUNCTION, query, newQuery);
+        return copy;
+    }
+
+    ListingOptions withProjection(Projection newProjection) {
+        ListingOptions copy = new ListingOptions(this);
+        copy.projection = requireNonNull(newProjection);
+        return copy;
+    }
+
+    ListingOptions withRetryPolicy(RetryPolicy newRetryPolicy) {
+        ListingOptions copy = new ListingOptions(this);
+        copy.retryPolicy = requireNonNull(newRetryPolicy);
+        return copy;
+    }
+
+    ListingOptions withRateLimiter(RateLimiter newRateLimiter) {
+        ListingOptions copy = new ListingOptions(this);
+        copy.rateLimiter = requireNonNull(newRateLimiter);
+        return copy;
+    }
+
+    ListingOptions withStreamingParser() {
+        if (prefetching())
+            throw new IllegalStateException(PREFETCH_WHILE_STREAMING);
+        ListingOptions copy = new ListingOptions(this);
+        copy.streamingParser = true;
+        return copy;
+    }
+
+    ListingOptions withCorpora(String newCorpora, String newTeamDriveId) {
+        ListingOptions copy = new ListingOptions(this);
+        copy.corpora = newCorpora;
+        copy.teamDriveId = newTeamDriveId;
+        return copy;
+    }
+
+    ListingOptions withListener(ListingListener newListener) {
+        ListingOptions copy = new ListingOptions(this);
+        copy.listener = requireNonNull(newListener);
+        return copy;
+    }
+
+    ListingOptions withPageSizePolicy(PageSizePolicy newPageSizePolicy) {
+        ListingOptions copy = new ListingOptions(this);
+        copy.pageSizePolicy = requireNonNull(newPageSizePolicy);
+        return copy;
+    }
+
+    ListingOptions withSizeHint(long files) {
+        if (files < 1)
+            throw new IllegalArgumentException(format(INVALID_SIZE_HINT, files));
+        ListingOptions copy = new ListingOptions(this);
+        copy.sizeHint = files;
+        return copy;
+    }
+
+    ListingOptions requiring(String... fields) {
+        return isNull(projection) ? this : withProjection(projection.with(fields));
+    }
+
+    boolean prefetching() {
+        return prefetchPages > 0;
+    }
+
+    int prefetchPages() {
+        return prefetchPages;
+    }
+
+    Executor prefetchExecutor() {
+        return prefetchExecutor;
+    }
+
+    boolean streamingParser() {
+        return streamingParser;
+    }
+
+    String corpora() {
+        return corpora;
+    }
+
+    String teamDriveId() {
+        return teamDriveId;
+    }
+
+    String query() {
+        return query;
+    }
+
+    String query(CreatedTimeRange range) {
+        String rangeQuery = isNull(range) ? null : range.toQuery();
+        if (isNull(rangeQuery))
+            return query;
+        if (isNull(query))
+            return rangeQuery;
+        return format(CONJUNCTION, query, rangeQuery);
+    }
+
+    Projection projection() {
+        return projection;
+    }
+
+    RetryPolicy retryPolicy() {
+        return retryPolicy;
+    }
+
+    RateLimiter rateLimiter() {
+        return rateLimiter;
+    }
+
+    ListingListener listener() {
+        return listener;
+    }
+
+    PageSizePolicy pageSizePolicy() {
+        return pageSizePolicy;
+    }
+
+    long sizeHint() {
+        return sizeHint;
+    }
+
+    String fields() {
+        return isNull(projection) ? FIELDS : projection.toPageFields();
+    }
+}
@@ -0,0 +1,654 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.drive.model.Change;
+import com.google.api.services.drive.model.File;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+public final class MetadataCache implements StartPageTokenStore, AutoCloseable {
+
+    private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{8})\\.seg");
+    private static final String SEGMENT = "segment-%08d.seg";
+    private static final String STATE = "cache.properties";
+    private static final String START_PAGE_TOKEN = "startPageToken";
+    private static final String SYNCED_AT = "syncedAt";
+    private static final String COMPLETE = "complete";
+    private static final String OVER_BUDGET = "overBudget";
+    private static final String BYPASSED_AT = "bypassedAt";
+    private static final String RETIRED = "retiredSegments";
+    private static final long SEGMENT_SIZE = 64L << 20;
+    private static final byte DELETE = 0;
+    private static final byte PUT = 1;
+    private static final int MIN_RECORD_LENGTH = 1 + 2;
+    private static final String ERROR = "Failed to access the metadata cache in [%s].";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Clock clock;
+    private final Properties state;
+    private final TreeMap<Integer, Segment> segments;
+    private final Map<String, Long> locations;
+    private final Map<String, Set<String>> children;
+    private final Set<Integer> retired;
+
+    private Segment active;
+    private int lastSegment;
+    private long liveBytes;
+
+    MetadataCache(Path directory, long maxBytes, Clock clock) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+        state = new Properties();
+        segments = new TreeMap<>();
+        locations = new HashMap<>();
+        children = new HashMap<>();
+        retired = new TreeSet<>();
+
+        Files.createDirectories(directory);
+        loadState();
+        loadSegments();
+    }
+
+    public static MetadataCache open(Path directory) {
+        return open(directory, Long.MAX_VALUE);
+    }
+
+    public static MetadataCache open(Path directory, long maxBytes) {
+        try {
+            return new MetadataCache(directory, maxBytes, Clock.systemUTC());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format(ERROR, directory), e);
+        }
+    }
+
+    public synchronized Optional<File> get(String id) {
+        Long location = locations.get(id);
+        return isNull(location) ? Optional.empty() : Optional.of(read(location).file());
+    }
+
+    public synchronized Stream<File> children(String parentId) {
+        Set<String> ids = children.getOrDefault(parentId, Collections.emptySet());
+        return snapshot(ids.stream().mapToLong(locations::get).toArray());
+    }
+
+    public synchronized Stream<File> files() {
+        return snapshot(locations.values().stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private Stream<File> snapshot(long[] snapshot) {
+        Map<Integer, Segment> pinned = new HashMap<>(segments);
+        pinned.values().forEach(segment -> segment.pins++);
+        CachedFiles files = new CachedFiles(snapshot, pinned);
+        return StreamSupport.stream(files, false).onClose(files::release);
+    }
+
+    public synchronized int size() {
+        return locations.size();
+    }
+
+    public synchronized Optional<Instant> syncedAt() {
+        String syncedAt = state.getProperty(SYNCED_AT);
+        return isNull(syncedAt) ? Optional.empty() : Optional.of(Instant.ofEpochMilli(Long.parseLong(syncedAt)));
+    }
+
+    @Override
+    public synchronized Optional<String> load() {
+        return Optional.ofNullable(state.getProperty(START_PAGE_TOKEN));
+    }
+
+    @Override
+    public synchronized void save(String startPageToken) {
+        try {
+            if (nonNull(active))
+                active.channel.force(false);
+            state.setProperty(START_PAGE_TOKEN, startPageToken);
+            saveState();
+        } catch (IOException e) {
+            throw new UncheckedIOException(format(ERROR, directory), e);
+        }
+    }
+
+    synchronized boolean synchronize(GoogleDriveStream stream, Duration maxStaleness) {
+        try {
+            if (bypassed(maxStaleness))
+                return false;
+            if (!Boolean.parseBoolean(state.getProperty(COMPLETE)))
+                return fill(stream);
+            if (stale(maxStaleness))
+                return update(stream);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(format(ERROR, directory), e);
+        }
+    }
+
+    private boolean bypassed(Duration maxStaleness) {
+        String overBudget = state.getProperty(OVER_BUDGET);
+        if (isNull(overBudget) || maxBytes > Long.parseLong(overBudget))
+            return false;
+        return !stale(Instant.ofEpochMilli(Long.parseLong(state.getProperty(BYPASSED_AT))), maxStaleness);
+    }
+
+    private boolean stale(Duration maxStaleness) {
+        return syncedAt().map(syncedAt -> stale(syncedAt, maxStaleness)).orElse(true);
+    }
+
+    private boolean stale(Instant syncedAt, Duration maxStaleness) {
+        return syncedAt.plus(maxStaleness).isBefore(clock.instant());
+    }
+
+    private boolean fill(GoogleDriveStream stream) throws IOException {
+        clear();
+        String startPageToken = stream.startPageToken();
+        try (Stream<File> files = stream.files()) {
+            Iterator<File> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                put(iterator.next());
+                if (liveBytes > maxBytes)
+                    return bypass();
+            }
+        }
+        seal();
+        state.setProperty(COMPLETE, String.valueOf(true));
+        state.setProperty(SYNCED_AT, String.valueOf(clock.millis()));
+        save(startPageToken);
+        return true;
+    }
+
+    private boolean update(GoogleDriveStream stream) throws IOException {
+        try (Stream<Change> changes = stream.changes(this)) {
+            Iterator<Change> iterator = changes.iterator();
+            while (iterator.hasNext())
+                apply(iterator.next());
+        }
+        seal();
+        state.setProperty(SYNCED_AT, String.valueOf(clock.millis()));
+        saveState();
+
+        if (liveBytes > maxBytes)
+            return bypass();
+        long totalBytes = totalBytes();
+        if (totalBytes > maxBytes || totalBytes - liveBytes >= liveBytes)
+            compact();
+        return true;
+    }
+
+    private boolean bypass() throws IOException {
+        clear();
+        state.setProperty(OVER_BUDGET, String.valueOf(maxBytes));
+        state.setProperty(BYPASSED_AT, String.valueOf(clock.millis()));
+        saveState();
+        return false;
+    }
+
+    private void apply(Change change) throws IOException {
+        if (Boolean.TRUE.equals(change.getRemoved()) || isNull(change.getFile()))
+            delete(change.getFileId());
+        else
+            put(change.getFile());
+    }
+
+    private void put(File file) throws IOException {
+        byte[] json = JSON_FACTORY.toByteArray(file);
+        List<String> parents = isNull(file.getParents()) ? Collections.emptyList() : file.getParents();
+        byte[] id = file.getId().getBytes(UTF_8);
+
+        int length = 1 + 2 + id.length + 2 + json.length + 4;
+        for (String parent : parents)
+            length += 2 + parent.getBytes(UTF_8).length;
+
+        ByteBuffer record = ByteBuffer.allocate(4 + length).putInt(length).put(PUT).putShort((short) id.length).put(id);
+        record.putShort((short) parents.size());
+        for (String parent : parents) {
+            byte[] bytes = parent.getBytes(UTF_8);
+            record.putShort((short) bytes.length).put(bytes);
+        }
+        record.putInt(json.length).put(json).flip();
+        index(file.getId(), append(record), 4 + length, parents);
+    }
+
+    private void delete(String fileId) throws IOException {
+        if (!locations.containsKey(fileId))
+            return;
+        byte[] id = fileId.getBytes(UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(4 + 1 + 2 + id.length).putInt(1 + 2 + id.length).put(DELETE).putShort((short) id.length).put(id);
+        record.flip();
+        append(record);
+        unindex(fileId);
+    }
+
+    private long append(ByteBuffer record) throws IOException {
+        if (isNull(active) || active.size + record.remaining() > SEGMENT_SIZE) {
+            seal();
+            int number = ++lastSegment;
+            active = Segment.create(directory.resolve(format(SEGMENT, number)), number);
+            segments.put(number, active);
+        }
+        long location = location(active.number, active.size);
+        active.size += active.channel.write(record, active.size);
+        return location;
+    }
+
+    private void seal() throws IOException {
+        if (nonNull(active))
+            active.seal();
+        active = null;
+    }
+
+    private void index(Record record) {
+        index(record.id, record.location, record.length, record.parents);
+    }
+
+    private void index(String id, long location, int length, List<String> parents) {
+        unindex(id);
+        locations.put(id, location);
+        liveBytes += length;
+        for (String parent : parents)
+            children.computeIfAbsent(parent, key -> new HashSet<>()).add(id);
+    }
+
+    private void unindex(String id) {
+        Long location = locations.remove(id);
+        if (isNull(location))
+            return;
+        Record previous = read(location);
+        liveBytes -= previous.length;
+        for (String parent : previous.parents) {
+            Set<String> siblings = children.get(parent);
+            siblings.remove(id);
+            if (siblings.isEmpty())
+                children.remove(parent);
+        }
+    }
+
+    private Record read(long location) {
+        return read(segments, location);
+    }
+
+    private static Record read(Map<Integer, Segment> segments, long location) {
+        Segment segment = segments.get((int) (location >>> 32));
+        return Record.read(segment.record((int) location), location);
+    }
+
+    private void loadSegments() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.forEach(path -> {
+                Matcher name = SEGMENT_NAME.matcher(path.getFileName().toString());
+                if (name.matches())
+                    segments.put(Integer.parseInt(name.group(1)), null);
+            });
+        }
+        lastSegment = segments.isEmpty() ? 0 : segments.lastKey();
+        for (Integer number : retired) {
+            segments.remove(number);
+            Files.deleteIfExists(directory.resolve(format(SEGMENT, number)));
+        }
+        if (!retired.isEmpty()) {
+            retired.clear();
+            saveState();
+        }
+        for (Integer number : new ArrayList<>(segments.keySet())) {
+            Segment segment = Segment.open(directory.resolve(format(SEGMENT, number)), number);
+            segments.put(number, segment);
+            scan(segment);
+        }
+    }
+
+    private void scan(Segment segment) throws IOException {
+        int offset = 0;
+        while (offset < segment.size) {
+            Record record = complete(segment, offset);
+            if (isNull(record)) {
+                segment.truncate(offset);
+                return;
+            }
+            if (record.put)
+                index(record);
+            else
+                unindex(record.id);
+            offset += record.length;
+        }
+    }
+
+    private static Record complete(Segment segment, int offset) {
+        if (segment.size - offset < 4 + MIN_RECORD_LENGTH)
+            return null;
+        ByteBuffer buffer = segment.record(offset);
+        int length = buffer.getInt(buffer.position());
+        if (length < MIN_RECORD_LENGTH || segment.size - offset - 4 < length)
+            return null;
+        try {
+            return Record.read(buffer, location(segment.number, offset));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void compact() throws IOException {
+        Map<String, Long> live = new HashMap<>(locations);
+        TreeMap<Integer, Segment> obsolete = new TreeMap<>(segments);
+        locations.clear();
+        children.clear();
+        liveBytes = 0;
+
+        for (Map.Entry<String, Long> entry : live.entrySet()) {
+            long location = entry.getValue();
+            ByteBuffer record = obsolete.get((int) (location >>> 32)).record((int) location);
+            record.limit(record.position() + 4 + record.getInt(record.position()));
+            index(read(append(record)));
+        }
+        seal();
+
+        for (Segment segment : obsolete.values())
+            retire(segment);
+        saveState();
+    }
+
+    private void clear() throws IOException {
+        seal();
+        for (Segment segment : new ArrayList<>(segments.values()))
+            retire(segment);
+        locations.clear();
+        children.clear();
+        liveBytes = 0;
+        state.clear();
+        saveState();
+    }
+
+    private void retire(Segment segment) throws IOException {
+        segments.remove(segment.number);
+        if (segment.pins == 0)
+            segment.delete();
+        else
+            retired.add(segment.number);
+    }
+
+    private synchronized void release(Collection<Segment> pinned) {
+        try {
+            boolean deleted = false;
+            for (Segment segment : pinned)
+                if (--segment.pins == 0 && retired.remove(segment.number)) {
+                    segment.delete();
+                    deleted = true;
+                }
+            if (deleted)
+                saveState();
+        } catch (IOException e) {
+            throw new UncheckedIOException(format(ERROR, directory), e);
+        }
+    }
+
+    private synchronized ByteBuffer record(Map<Integer, Segment> pinned, long location) {
+        return pinned.get((int) (location >>> 32)).record((int) location);
+    }
+
+    private long totalBytes() {
+        return segments.values().stream().mapToLong(segment -> segment.size).sum();
+    }
+
+    private static long location(int segment, long offset) {
+        return (long) segment << 32 | offset;
+    }
+
+    private void loadState() throws IOException {
+        Path path = directory.resolve(STATE);
+        if (Files.exists(path))
+            try (InputStream in = Files.newInputStream(path)) {
+                state.load(in);
+            }
+        for (String number : state.getProperty(RETIRED, "").split(","))
+            if (!number.isEmpty())
+                retired.add(Integer.parseInt(number));
+    }
+
+    private void saveState() throws IOException {
+        if (retired.isEmpty())
+            state.remove(RETIRED);
+        else
+            state.setProperty(RETIRED, retired.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        Path temporary = directory.resolve(STATE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            state.store(out, null);
+        }
+        Files.move(temporary, directory.resolve(STATE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            seal();
+            for (Segment segment : segments.values())
+                segment.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(format(ERROR, directory), e);
+        }
+    }
+
+    private final class CachedFiles implements Spliterator<File> {
+
+        private final long[] locations;
+        private final Map<Integer, Segment> pinned;
+
+        private int index;
+        private boolean released;
+
+        private CachedFiles(long[] locations, Map<Integer, Segment> pinned) {
+            this.locations = locations;
+            this.pinned = pinned;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super File> action) {
+            if (index == locations.length) {
+                release();
+                return false;
+            }
+            long location = locations[index++];
+            action.accept(Record.read(record(pinned, location), location).file());
+            return true;
+        }
+
+        private void release() {
+            if (released)
+                return;
+            released = true;
+            MetadataCache.this.release(pinned.values());
+        }
+
+        @Override
+        public Spliterator<File> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return locations.length - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL | IMMUTABLE;
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private final int number;
+        private final FileChannel channel;
+
+        private long size;
+        private MappedByteBuffer mapped;
+        private int pins;
+
+        private Segment(Path path, int number, FileChannel channel, long size) {
+            this.path = path;
+            this.number = number;
+            this.channel = channel;
+            this.size = size;
+        }
+
+        static Segment create(Path path, int number) throws IOException {
+            return new Segment(path, number, FileChannel.open(path, CREATE_NEW, READ, WRITE), 0);
+        }
+
+        static Segment open(Path path, int number) throws IOException {
+            FileChannel channel = FileChannel.open(path, READ);
+            Segment segment = new Segment(path, number, channel, channel.size());
+            segment.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+            return segment;
+        }
+
+        void seal() throws IOException {
+            channel.force(false);
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        void truncate(long newSize) throws IOException {
+            try (FileChannel writable = FileChannel.open(path, WRITE)) {
+                writable.truncate(newSize);
+            }
+            size = newSize;
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        ByteBuffer record(int offset) {
+            if (nonNull(mapped))
+                return (ByteBuffer) mapped.duplicate().position(offset);
+            try {
+                ByteBuffer length = ByteBuffer.allocate(4);
+                channel.read(length, offset);
+                ByteBuffer unsealed = ByteBuffer.allocate(4 + length.getInt(0));
+                channel.read(unsealed, offset);
+                unsealed.flip();
+                return unsealed;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static final class Record {
+
+        private final ByteBuffer buffer;
+        private final long location;
+        private final int length;
+        private final boolean put;
+        private final String id;
+        private final List<String> parents;
+
+        private Record(ByteBuffer buffer, long location, int length, boolean put, String id, List<String> parents) {
+            this.buffer = buffer;
+            this.location = location;
+            this.length = length;
+            this.put = put;
+            this.id = id;
+            this.parents = parents;
+        }
+
+        static Record read(ByteBuffer buffer, long location) {
+            int length = 4 + buffer.getInt();
+            boolean put = buffer.get() == PUT;
+            String id = string(buffer);
+            List<String> parents = new ArrayList<>();
+            if (put)
+                for (int i = buffer.getShort(); i > 0; i--)
+                    parents.add(string(buffer));
+            return new Record(buffer, location, length, put, id, parents);
+        }
+
+        private static String string(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.getShort()];
+            buffer.get(bytes);
+            return new String(bytes, UTF_8);
+        }
+
+        File file() {
+            ByteBuffer json = buffer.duplicate();
+            byte[] bytes = new byte[json.getInt()];
+            json.get(bytes);
+            try {
+                return JSON_FACTORY.fromInputStream(new ByteArrayInputStream(bytes), File.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+
+import java.util.stream.Collectors;
+
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+public final class Mutation {
+
+    enum Kind {NONE, UPDATE, DELETE}
+
+    private static final Mutation NONE = new Mutation(Kind.NONE, null, null, null, false);
+    private static final Mutation DELETE = new Mutation(Kind.DELETE, null, null, null, false);
+
+    private final Kind kind;
+    private final File patch;
+    private final String addParents;
+    private final String removeParents;
+    private final boolean replaceParents;
+
+    private Mutation(Kind kind, File patch, String addParents, String removeParents, boolean replaceParents) {
+        this.kind = kind;
+        this.patch = patch;
+        this.addParents = addParents;
+        this.removeParents = removeParents;
+        this.replaceParents = replaceParents;
+    }
+
+    public static Mutation none() {
+        return NONE;
+    }
+
+    public static Mutation delete() {
+        return DELETE;
+    }
+
+    public static Mutation update(File patch) {
+        return new Mutation(Kind.UPDATE, requireNonNull(patch), null, null, false);
+    }
+
+    public static Mutation trash() {
+        return update(new File().setTrashed(true));
+    }
+
+    public static Mutation untrash() {
+        return update(new File().setTrashed(false));
+    }
+
+    public static Mutation rename(String name) {
+        return update(new File().setName(requireNonNull(name)));
+    }
+
+    public static Mutation moveTo(String folderId) {
+        return new Mutation(Kind.UPDATE, new File(), requireNonNull(folderId), null, true);
+    }
+
+    public static Mutation addParent(String folderId) {
+        return new Mutation(Kind.UPDATE, new File(), requireNonNull(folderId), null, false);
+    }
+
+    public static Mutation removeParent(String folderId) {
+        return new Mutation(Kind.UPDATE, new File(), null, requireNonNull(folderId), false);
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    File patch() {
+        return patch;
+    }
+
+    String addParents() {
+        return addParents;
+    }
+
+    boolean appliesTo(File file) {
+        return !replaceParents || nonNull(file.getParents());
+    }
+
+    String removeParents(File file) {
+        if (!replaceParents)
+            return removeParents;
+        String removed = file.getParents().stream().filter(parent -> !parent.equals(addParents)).collect(Collectors.joining(","));
+        return removed.isEmpty() ? null : removed;
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case UPDATE:
+                return replaceParents ? "move to " + addParents : "update " + patch;
+            case DELETE:
+                return "delete";
+            default:
+                return "none";
+        }
+    }
+}
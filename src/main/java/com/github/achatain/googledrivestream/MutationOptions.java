@@ -0,0 +1,119 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+public final class MutationOptions {
+
+    static final int MAX_BATCH_SIZE = EnrichmentSpec.MAX_BATCH_SIZE;
+
+    private static final String INVALID_BATCH_SIZE = "Batch size must be between 1 and " + MAX_BATCH_SIZE + " but was [%d].";
+    private static final String INVALID_CONCURRENCY = "Concurrency must be positive but was [%d].";
+
+    private int batchSize;
+    private int concurrency;
+    private Executor executor;
+    private boolean dryRun;
+    private RetryPolicy retryPolicy;
+
+    private MutationOptions() {
+        batchSize = MAX_BATCH_SIZE;
+        concurrency = 4;
+        executor = ForkJoinPool.commonPool();
+        retryPolicy = RetryPolicy.exponentialBackOff();
+    }
+
+    private MutationOptions(MutationOptions other) {
+        batchSize = other.batchSize;
+        concurrency = other.concurrency;
+        executor = other.executor;
+        dryRun = other.dryRun;
+        retryPolicy = other.retryPolicy;
+    }
+
+    public static MutationOptions defaults() {
+        return new MutationOptions();
+    }
+
+    public MutationOptions withBatchSize(int mutations) {
+        if (mutations < 1 || mutations > MAX_BATCH_SIZE)
+            throw new IllegalArgumentException(format(INVALID_BATCH_SIZE, mutations));
+        MutationOptions copy = new MutationOptions(this);
+        copy.batchSize = mutations;
+        return copy;
+    }
+
+    public MutationOptions withConcurrency(int batches) {
+        return withConcurrency(batches, executor);
+    }
+
+    public MutationOptions withConcurrency(int batches, Executor newExecutor) {
+        if (batches < 1)
+            throw new IllegalArgumentException(format(INVALID_CONCURRENCY, batches));
+        MutationOptions copy = new MutationOptions(this);
+        copy.concurrency = batches;
+        copy.executor = requireNonNull(newExecutor);
+        return copy;
+    }
+
+    public MutationOptions dryRun() {
+        MutationOptions copy = new MutationOptions(this);
+        copy.dryRun = true;
+        return copy;
+    }
+
+    public MutationOptions withRetryPolicy(RetryPolicy newRetryPolicy) {
+        MutationOptions copy = new MutationOptions(this);
+        copy.retryPolicy = requireNonNull(newRetryPolicy);
+        return copy;
+    }
+
+    int batchSize() {
+        return batchSize;
+    }
+
+    int concurrency() {
+        return concurrency;
+    }
+
+    Executor executor() {
+        return executor;
+    }
+
+    boolean isDryRun() {
+        return dryRun;
+    }
+
+    RetryPolicy retryPolicy() {
+        return retryPolicy;
+    }
+}
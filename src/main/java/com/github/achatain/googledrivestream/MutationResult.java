@@ -0,0 +1,80 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.services.drive.model.File;
+
+import static java.util.Objects.nonNull;
+
+public final class MutationResult {
+
+    public enum Status {APPLIED, DRY_RUN, SKIPPED, FAILED}
+
+    private final File file;
+    private final Mutation mutation;
+    private final Status status;
+    private final File updated;
+    private final GoogleJsonError error;
+
+    MutationResult(File file, Mutation mutation, Status status, File updated, GoogleJsonError error) {
+        this.file = file;
+        this.mutation = mutation;
+        this.status = status;
+        this.updated = updated;
+        this.error = error;
+    }
+
+    public File file() {
+        return file;
+    }
+
+    public Mutation mutation() {
+        return mutation;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    public File updated() {
+        return updated;
+    }
+
+    public boolean failed() {
+        return nonNull(error);
+    }
+
+    public GoogleJsonError error() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return status + " " + file.getId() + " (" + mutation + ")";
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.util.Objects.isNull;
+
+final class MutationSpliterator implements Spliterator<MutationResult>, AutoCloseable {
+
+    private static final String INTERRUPTED = "Interrupted while waiting for a mutation batch.";
+
+    private final Iterator<File> files;
+    private final Function<File, Mutation> mutations;
+    private final BatchMutator mutator;
+    private final MutationOptions options;
+    private final Set<CompletableFuture<BatchMutator.Applied>> inFlight;
+    private final BlockingQueue<CompletableFuture<BatchMutator.Applied>> completed;
+    private final Set<String> claimed;
+    private final Map<String, Deque<BatchMutator.Call>> deferred;
+    private final Deque<BatchMutator.Call> released;
+    private final Deque<MutationResult> results;
+    private final int maxDeferred;
+    private int deferredCalls;
+    private int concurrency;
+
+    MutationSpliterator(Iterator<File> files, Function<File, Mutation> mutations, BatchMutator mutator, MutationOptions options) {
+        this.files = files;
+        this.mutations = mutations;
+        this.mutator = mutator;
+        this.options = options;
+        inFlight = new HashSet<>();
+        completed = new LinkedBlockingQueue<>();
+        claimed = new HashSet<>();
+        deferred = new HashMap<>();
+        released = new ArrayDeque<>();
+        results = new ArrayDeque<>();
+        maxDeferred = options.batchSize() * options.concurrency();
+        concurrency = options.concurrency();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super MutationResult> consumer) {
+        while (results.isEmpty()) {
+            fill();
+            if (!results.isEmpty())
+                break;
+            if (inFlight.isEmpty())
+                return false;
+            complete(nextBatch());
+        }
+        consumer.accept(results.pop());
+        return true;
+    }
+
+    private void fill() {
+        while (inFlight.size() < concurrency) {
+            List<BatchMutator.Call> batch = nextCalls();
+            if (batch.isEmpty())
+                return;
+            CompletableFuture<BatchMutator.Applied> future = CompletableFuture.supplyAsync(() -> mutator.apply(batch), options.executor());
+            inFlight.add(future);
+            future.whenComplete((result, error) -> completed.add(future));
+        }
+    }
+
+    private List<BatchMutator.Call> nextCalls() {
+        List<BatchMutator.Call> batch = new ArrayList<>(options.batchSize());
+        while (batch.size() < options.batchSize() && !released.isEmpty())
+            dispatch(released.poll(), batch);
+        while (batch.size() < options.batchSize() && results.size() < options.batchSize()
+                && deferredCalls < maxDeferred && files.hasNext()) {
+            File file = files.next();
+            Mutation mutation = mutations.apply(file);
+            if (isNull(mutation) || mutation.kind() == Mutation.Kind.NONE) {
+                results.add(new MutationResult(file, Mutation.none(), MutationResult.Status.SKIPPED, null, null));
+                continue;
+            }
+            BatchMutator.Call call = new BatchMutator.Call(file, mutation);
+            if (options.isDryRun())
+                results.add(call.dryRun());
+            else if (claimed.add(call.fileId()))
+                dispatch(call, batch);
+            else {
+                deferred.computeIfAbsent(call.fileId(), id -> new ArrayDeque<>()).add(call);
+                deferredCalls++;
+            }
+        }
+        return batch;
+    }
+
+    private void dispatch(BatchMutator.Call call, List<BatchMutator.Call> batch) {
+        if (call.resolve())
+            batch.add(call);
+        else {
+            results.add(call.result());
+            release(call);
+        }
+    }
+
+    private CompletableFuture<BatchMutator.Applied> nextBatch() {
+        try {
+            CompletableFuture<BatchMutator.Applied> next = completed.take();
+            inFlight.remove(next);
+            return next;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(INTERRUPTED, e);
+        }
+    }
+
+    private void complete(CompletableFuture<BatchMutator.Applied> batch) {
+        BatchMutator.Applied applied = join(batch);
+        if (applied.throttled())
+            concurrency = Math.max(1, concurrency / 2);
+        else if (concurrency < options.concurrency())
+            concurrency++;
+        for (BatchMutator.Call call : applied.calls()) {
+            results.add(call.result());
+            release(call);
+        }
+    }
+
+    private void release(BatchMutator.Call call) {
+        Deque<BatchMutator.Call> waiting = deferred.get(call.fileId());
+        if (isNull(waiting)) {
+            claimed.remove(call.fileId());
+            return;
+        }
+        BatchMutator.Call next = waiting.poll();
+        next.rebase(call);
+        released.add(next);
+        deferredCalls--;
+        if (waiting.isEmpty())
+            deferred.remove(call.fileId());
+    }
+
+    private static BatchMutator.Applied join(CompletableFuture<BatchMutator.Applied> batch) {
+        try {
+            return batch.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    int concurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public void close() {
+        inFlight.forEach(batch -> batch.cancel(false));
+        inFlight.clear();
+        completed.clear();
+    }
+
+    @Override
+    public Spliterator<MutationResult> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+}
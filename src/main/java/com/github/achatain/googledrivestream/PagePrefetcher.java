@@ -0,0 +1,110 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.FileList;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+
+final class PagePrefetcher implements AutoCloseable {
+
+    static final Executor DEFAULT_EXECUTOR = Executors.newCachedThreadPool(PagePrefetcher::daemon);
+
+    private static final String THREAD_NAME = "google-drive-stream-prefetch-%d";
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final Function<String, FileList> fetcher;
+    private final int depth;
+    private final Executor executor;
+    private final Deque<CompletableFuture<FileList>> pages;
+
+    private volatile boolean closed;
+
+    PagePrefetcher(Function<String, FileList> fetcher, String pageToken, int depth, Executor executor) {
+        this.fetcher = fetcher;
+        this.depth = depth;
+        this.executor = executor;
+        pages = new ArrayDeque<>(depth + 1);
+        pages.add(CompletableFuture.supplyAsync(() -> fetch(pageToken), executor));
+    }
+
+    private static Thread daemon(Runnable task) {
+        Thread thread = new Thread(task, format(THREAD_NAME, THREADS.incrementAndGet()));
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    FileList next() {
+        CompletableFuture<FileList> page = pages.poll();
+        topUp(page);
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    private void topUp(CompletableFuture<FileList> head) {
+        CompletableFuture<FileList> tail = pages.isEmpty() ? head : pages.peekLast();
+        while (pages.size() < depth) {
+            tail = tail.thenApplyAsync(this::fetchAfter, executor);
+            pages.add(tail);
+        }
+    }
+
+    private FileList fetchAfter(FileList previous) {
+        if (isNull(previous) || isNull(previous.getNextPageToken()))
+            return null;
+        return fetch(previous.getNextPageToken());
+    }
+
+    private FileList fetch(String pageToken) {
+        if (closed)
+            throw new CancellationException();
+        return fetcher.apply(pageToken);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        pages.forEach(page -> page.cancel(false));
+        pages.clear();
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import static java.lang.String.format;
+
+public final class PageSizePolicy {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    static final PageSizePolicy DEFAULT = fixed(MAX_PAGE_SIZE);
+
+    private static final String INVALID_PAGE_SIZE = "Page size must be between 1 and %d but was [%d].";
+    private static final String INVALID_GROWTH = "Growth must be at least 1 but was [%s].";
+
+    private final int firstPageSize;
+    private final double growth;
+
+    private PageSizePolicy(int firstPageSize, double growth) {
+        this.firstPageSize = firstPageSize;
+        this.growth = growth;
+    }
+
+    public static PageSizePolicy fixed(int pageSize) {
+        return new PageSizePolicy(validate(pageSize), 1.0);
+    }
+
+    public static PageSizePolicy adaptive() {
+        return adaptive(25, 4.0);
+    }
+
+    public static PageSizePolicy adaptive(int firstPageSize, double growth) {
+        if (!(growth >= 1.0))
+            throw new IllegalArgumentException(format(INVALID_GROWTH, growth));
+        return new PageSizePolicy(validate(firstPageSize), growth);
+    }
+
+    private static int validate(int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE)
+            throw new IllegalArgumentException(format(INVALID_PAGE_SIZE, MAX_PAGE_SIZE, pageSize));
+        return pageSize;
+    }
+
+    int next(int previousPageSize) {
+        if (previousPageSize < 1)
+            return firstPageSize;
+        return (int) Math.min(MAX_PAGE_SIZE, Math.ceil(previousPageSize * growth));
+    }
+
+    @Override
+    public String toString() {
+        return growth == 1.0 ? "fixed(" + firstPageSize + ")" : "adaptive(" + firstPageSize + ", " + growth + ")";
+    }
+}
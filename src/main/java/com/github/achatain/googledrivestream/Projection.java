@@ -0,0 +1,99 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.util.ClassInfo;
+import com.google.api.services.drive.model.File;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static java.lang.String.format;
+import static java.lang.String.join;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Objects.isNull;
+
+public final class Projection {
+
+    private static final Collection<String> FILE_FIELDS = ClassInfo.of(File.class).getNames();
+    private static final String PAGE_FIELDS = "nextPageToken,incompleteSearch,files(%s)";
+    private static final String UNKNOWN_FIELD = "Unknown file field [%s].";
+    private static final String NO_FIELD = "A projection requires at least one file field.";
+
+    private final Set<String> fields;
+
+    private Projection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    public static Projection of(String... fields) {
+        if (isNull(fields) || fields.length == 0)
+            throw new IllegalArgumentException(NO_FIELD);
+        return new Projection(new LinkedHashSet<>()).with(fields);
+    }
+
+    public Projection with(String... moreFields) {
+        Set<String> union = new LinkedHashSet<>(fields);
+        for (String field : moreFields)
+            union.add(validate(field));
+        return new Projection(union);
+    }
+
+    public Set<String> fields() {
+        return unmodifiableSet(fields);
+    }
+
+    String toFileFields() {
+        return join(",", fields);
+    }
+
+    String toPageFields() {
+        return format(PAGE_FIELDS, toFileFields());
+    }
+
+    private static String validate(String field) {
+        if (isNull(field) || !FILE_FIELDS.contains(topLevelName(field)))
+            throw new IllegalArgumentException(format(UNKNOWN_FIELD, field));
+        return field;
+    }
+
+    private static String topLevelName(String field) {
+        int end = field.length();
+        for (int i = 0; i < field.length(); i++)
+            if (field.charAt(i) == '/' || field.charAt(i) == '(') {
+                end = i;
+                break;
+            }
+        return field.substring(0, end).trim();
+    }
+
+    @Override
+    public String toString() {
+        return toFileFields();
+    }
+}
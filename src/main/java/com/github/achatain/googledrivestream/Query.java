@@ -0,0 +1,182 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.model.File;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+public final class Query {
+
+    private static final String FOLDER_MIME_TYPE = GoogleDriveTreeSpliterator.FOLDER_MIME_TYPE;
+    private static final String AND = "%s and %s";
+    private static final String OR = "(%s or %s)";
+    private static final String NOT_SERVER_SIDE = "Only queries evaluated by Google Drive can be combined with or.";
+    private static final String SIZE = "size";
+
+    private final String q;
+    private final Predicate<File> residual;
+    private final Set<String> fields;
+
+    private Query(String q, Predicate<File> residual) {
+        this(q, residual, Set.of());
+    }
+
+    private Query(String q, Predicate<File> residual, Set<String> fields) {
+        this.q = q;
+        this.residual = residual;
+        this.fields = fields;
+    }
+
+    private static Query server(String q, Object... operands) {
+        Object[] escaped = new Object[operands.length];
+        for (int i = 0; i < operands.length; i++)
+            escaped[i] = escape(operands[i]);
+        return new Query(format(q, escaped), null);
+    }
+
+    private static Object escape(Object operand) {
+        if (operand instanceof String)
+            return ((String) operand).replace("\\", "\\\\").replace("'", "\\'");
+        if (operand instanceof Instant)
+            return new DateTime(((Instant) operand).toEpochMilli()).toStringRfc3339();
+        return operand;
+    }
+
+    public static Query where(Predicate<File> predicate) {
+        return new Query(null, requireNonNull(predicate));
+    }
+
+    public static Query mimeType(String mimeType) {
+        return server("mimeType = '%s'", requireNonNull(mimeType));
+    }
+
+    public static Query folders() {
+        return mimeType(FOLDER_MIME_TYPE);
+    }
+
+    public static Query notFolders() {
+        return server("mimeType != '%s'", FOLDER_MIME_TYPE);
+    }
+
+    public static Query nameIs(String name) {
+        return server("name = '%s'", requireNonNull(name));
+    }
+
+    public static Query nameContains(String text) {
+        return server("name contains '%s'", requireNonNull(text));
+    }
+
+    public static Query fullTextContains(String text) {
+        return server("fullText contains '%s'", requireNonNull(text));
+    }
+
+    public static Query inFolder(String folderId) {
+        return server("'%s' in parents", requireNonNull(folderId));
+    }
+
+    public static Query ownedBy(String emailAddress) {
+        return server("'%s' in owners", requireNonNull(emailAddress));
+    }
+
+    public static Query modifiedAfter(Instant instant) {
+        return server("modifiedTime > '%s'", requireNonNull(instant));
+    }
+
+    public static Query modifiedBefore(Instant instant) {
+        return server("modifiedTime < '%s'", requireNonNull(instant));
+    }
+
+    public static Query createdAfter(Instant instant) {
+        return server("createdTime > '%s'", requireNonNull(instant));
+    }
+
+    public static Query createdBefore(Instant instant) {
+        return server("createdTime < '%s'", requireNonNull(instant));
+    }
+
+    public static Query notTrashed() {
+        return server("trashed = false");
+    }
+
+    public static Query trashed() {
+        return server("trashed = true");
+    }
+
+    public static Query starred() {
+        return server("starred = true");
+    }
+
+    public static Query largerThan(long bytes) {
+        return new Query(null, file -> nonNull(file.getSize()) && file.getSize() > bytes, Set.of(SIZE));
+    }
+
+    public static Query smallerThan(long bytes) {
+        return new Query(null, file -> nonNull(file.getSize()) && file.getSize() < bytes, Set.of(SIZE));
+    }
+
+    public Query and(Query other) {
+        String combinedQ = isNull(q) ? other.q : isNull(other.q) ? q : format(AND, q, other.q);
+        Predicate<File> combinedResidual = isNull(residual) ? other.residual : isNull(other.residual) ? residual : residual.and(other.residual);
+        Set<String> combinedFields = new TreeSet<>(fields);
+        combinedFields.addAll(other.fields);
+        return new Query(combinedQ, combinedResidual, Collections.unmodifiableSet(combinedFields));
+    }
+
+    public Query or(Query other) {
+        if (isNull(q) || isNull(other.q) || nonNull(residual) || nonNull(other.residual))
+            throw new IllegalArgumentException(NOT_SERVER_SIDE);
+        return new Query(format(OR, q, other.q), null);
+    }
+
+    String toQ() {
+        return q;
+    }
+
+    String[] fields() {
+        return fields.toArray(new String[0]);
+    }
+
+    Predicate<File> residual() {
+        return isNull(residual) ? file -> true : residual;
+    }
+
+    @Override
+    public String toString() {
+        return isNull(q) ? "" : q;
+    }
+}
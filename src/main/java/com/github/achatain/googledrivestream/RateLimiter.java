@@ -0,0 +1,98 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.util.Sleeper;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static java.lang.String.format;
+
+public final class RateLimiter {
+
+    private static final String INVALID_RATE = "Permits per second must be positive but was [%s].";
+    private static final String INVALID_BURST = "Burst must be positive but was [%d].";
+    private static final String INVALID_PERMITS = "Permits must be positive but was [%d].";
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier ticker;
+    private final Sleeper sleeper;
+
+    private long nextFreeNanos;
+
+    RateLimiter(double permitsPerSecond, int burst, LongSupplier ticker, Sleeper sleeper) {
+        if (!(permitsPerSecond > 0))
+            throw new IllegalArgumentException(format(INVALID_RATE, permitsPerSecond));
+        if (burst < 1)
+            throw new IllegalArgumentException(format(INVALID_BURST, burst));
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstNanos = intervalNanos * (burst - 1);
+        this.ticker = ticker;
+        this.sleeper = sleeper;
+        nextFreeNanos = ticker.getAsLong() - burstNanos;
+    }
+
+    public static RateLimiter perSecond(double permitsPerSecond) {
+        return perSecond(permitsPerSecond, 1);
+    }
+
+    public static RateLimiter perSecond(double permitsPerSecond, int burst) {
+        return new RateLimiter(permitsPerSecond, burst, System::nanoTime, Sleeper.DEFAULT);
+    }
+
+    public void acquire() throws InterruptedException {
+        acquire(1);
+    }
+
+    public void acquire(int permits) throws InterruptedException {
+        throttle(permits);
+    }
+
+    long throttle(int permits) throws InterruptedException {
+        if (permits < 1)
+            throw new IllegalArgumentException(format(INVALID_PERMITS, permits));
+        long waitNanos = reserve(permits);
+        if (waitNanos > 0)
+            sleeper.sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1));
+        return waitNanos;
+    }
+
+    long reserve() {
+        return reserve(1);
+    }
+
+    long reserve(int permits) {
+        long now = ticker.getAsLong();
+        synchronized (this) {
+            long grantedAt = Math.max(nextFreeNanos, now - burstNanos);
+            nextFreeNanos = grantedAt + intervalNanos * permits;
+            return Math.max(0L, grantedAt - now);
+        }
+    }
+}
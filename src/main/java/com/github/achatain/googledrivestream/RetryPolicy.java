@@ -0,0 +1,204 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.googleapis.services.AbstractGoogleClientRequest;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.util.BackOff;
+import com.google.api.client.util.ExponentialBackOff;
+import com.google.api.client.util.Sleeper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+public final class RetryPolicy {
+
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(429, 500, 502, 503, 504);
+    private static final Set<String> RATE_LIMIT_REASONS = Set.of("userRateLimitExceeded", "rateLimitExceeded", "sharingRateLimitExceeded");
+    private static final int FORBIDDEN = 403;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final String INVALID_ATTEMPTS = "Attempts must be positive but was [%d].";
+
+    private final int maxAttempts;
+    private final ExponentialBackOff.Builder backOff;
+    private final Sleeper sleeper;
+
+    private RetryPolicy(int maxAttempts, ExponentialBackOff.Builder backOff, Sleeper sleeper) {
+        this.maxAttempts = maxAttempts;
+        this.backOff = backOff;
+        this.sleeper = sleeper;
+    }
+
+    public static RetryPolicy none() {
+        return new RetryPolicy(1, backOff(), Sleeper.DEFAULT);
+    }
+
+    public static RetryPolicy exponentialBackOff() {
+        return new RetryPolicy(6, backOff(), Sleeper.DEFAULT);
+    }
+
+    private static ExponentialBackOff.Builder backOff() {
+        return new ExponentialBackOff.Builder()
+                .setInitialIntervalMillis(500)
+                .setMultiplier(2.0)
+                .setRandomizationFactor(0.5)
+                .setMaxIntervalMillis(32_000)
+                .setMaxElapsedTimeMillis(Integer.MAX_VALUE);
+    }
+
+    public RetryPolicy withMaxAttempts(int attempts) {
+        if (attempts < 1)
+            throw new IllegalArgumentException(format(INVALID_ATTEMPTS, attempts));
+        return new RetryPolicy(attempts, copy(), sleeper);
+    }
+
+    public RetryPolicy withInitialInterval(Duration interval) {
+        return new RetryPolicy(maxAttempts, copy().setInitialIntervalMillis(Math.toIntExact(interval.toMillis())), sleeper);
+    }
+
+    public RetryPolicy withMaxInterval(Duration interval) {
+        return new RetryPolicy(maxAttempts, copy().setMaxIntervalMillis(Math.toIntExact(interval.toMillis())), sleeper);
+    }
+
+    public RetryPolicy withMultiplier(double multiplier) {
+        return new RetryPolicy(maxAttempts, copy().setMultiplier(multiplier), sleeper);
+    }
+
+    public RetryPolicy withJitter(double randomizationFactor) {
+        return new RetryPolicy(maxAttempts, copy().setRandomizationFactor(randomizationFactor), sleeper);
+    }
+
+    RetryPolicy withSleeper(Sleeper newSleeper) {
+        return new RetryPolicy(maxAttempts, copy(), requireNonNull(newSleeper));
+    }
+
+    private ExponentialBackOff.Builder copy() {
+        return new ExponentialBackOff.Builder()
+                .setInitialIntervalMillis(backOff.getInitialIntervalMillis())
+                .setMultiplier(backOff.getMultiplier())
+                .setRandomizationFactor(backOff.getRandomizationFactor())
+                .setMaxIntervalMillis(backOff.getMaxIntervalMillis())
+                .setMaxElapsedTimeMillis(backOff.getMaxElapsedTimeMillis());
+    }
+
+    <T> T execute(AbstractGoogleClientRequest<T> request, RateLimiter rateLimiter) throws IOException, InterruptedException {
+        return execute(request::execute, rateLimiter);
+    }
+
+    <T> T execute(Attempt<T> attempt, RateLimiter rateLimiter) throws IOException, InterruptedException {
+        return execute(attempt, rateLimiter, 1);
+    }
+
+    <T> T execute(Attempt<T> attempt, RateLimiter rateLimiter, int permits) throws IOException, InterruptedException {
+        return execute(attempt, rateLimiter, permits, null);
+    }
+
+    <T> T execute(Attempt<T> attempt, RateLimiter rateLimiter, int permits, ListingListener listener) throws IOException, InterruptedException {
+        BackOff attemptBackOff = backOff.build();
+        for (int attempts = 1; ; attempts++) {
+            if (nonNull(rateLimiter)) {
+                long waitNanos = rateLimiter.throttle(permits);
+                if (nonNull(listener) && waitNanos > 0)
+                    listener.throttled(waitNanos);
+            }
+            try {
+                return attempt.run();
+            } catch (IOException e) {
+                long wait = attemptBackOff.nextBackOffMillis();
+                if (attempts >= maxAttempts || !retryable(e) || wait == BackOff.STOP)
+                    throw e;
+                if (nonNull(listener))
+                    listener.retried(attempts, wait);
+                sleeper.sleep(wait);
+            }
+        }
+    }
+
+    int maxAttempts() {
+        return maxAttempts;
+    }
+
+    BackOff newBackOff() {
+        return backOff.build();
+    }
+
+    void sleep(long millis) throws InterruptedException {
+        sleeper.sleep(millis);
+    }
+
+    static boolean retryable(IOException e) {
+        if (!(e instanceof HttpResponseException))
+            return true;
+        GoogleJsonError details = e instanceof GoogleJsonResponseException ? ((GoogleJsonResponseException) e).getDetails() : null;
+        return retryable(((HttpResponseException) e).getStatusCode(), details);
+    }
+
+    static boolean retryable(GoogleJsonError error) {
+        return retryable(error.getCode(), error);
+    }
+
+    static boolean throttled(HttpResponseException e) {
+        if (e instanceof GoogleJsonResponseException && nonNull(((GoogleJsonResponseException) e).getDetails()))
+            return throttled(((GoogleJsonResponseException) e).getDetails());
+        return e.getStatusCode() == TOO_MANY_REQUESTS;
+    }
+
+    static boolean throttled(GoogleJsonError error) {
+        if (error.getCode() == FORBIDDEN) {
+            String reason = reason(error);
+            return nonNull(reason) && RATE_LIMIT_REASONS.contains(reason);
+        }
+        return error.getCode() == TOO_MANY_REQUESTS;
+    }
+
+    private static boolean retryable(int status, GoogleJsonError details) {
+        if (status == FORBIDDEN) {
+            String reason = reason(details);
+            return nonNull(reason) && RATE_LIMIT_REASONS.contains(reason);
+        }
+        return RETRYABLE_STATUSES.contains(status);
+    }
+
+    private static String reason(GoogleJsonError details) {
+        if (isNull(details) || isNull(details.getErrors()) || details.getErrors().isEmpty())
+            return null;
+        return details.getErrors().get(0).getReason();
+    }
+
+    @FunctionalInterface
+    interface Attempt<T> {
+        T run() throws IOException;
+    }
+}
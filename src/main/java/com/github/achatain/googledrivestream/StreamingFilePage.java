@@ -0,0 +1,110 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+import com.google.api.services.drive.model.File;
+
+import java.io.IOException;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+
+final class StreamingFilePage implements AutoCloseable {
+
+    private static final String FILES = "files";
+    private static final String NEXT_PAGE_TOKEN = "nextPageToken";
+    private static final String MALFORMED = "Expected [%s] but found [%s] in the file list.";
+
+    private final JsonParser parser;
+
+    private boolean started;
+    private boolean insideFiles;
+    private boolean finished;
+    private String nextPageToken;
+    private int files;
+
+    StreamingFilePage(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    File next() throws IOException {
+        if (!started) {
+            expect(JsonToken.START_OBJECT, parser.nextToken());
+            started = true;
+        }
+        while (!finished) {
+            if (insideFiles) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.END_ARRAY)
+                    insideFiles = false;
+                else {
+                    expect(JsonToken.START_OBJECT, token);
+                    files++;
+                    return parser.parse(File.class);
+                }
+            } else
+                readField();
+        }
+        return null;
+    }
+
+    private void readField() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (isNull(token) || token == JsonToken.END_OBJECT) {
+            finished = true;
+            return;
+        }
+        String name = parser.getCurrentName();
+        JsonToken value = parser.nextToken();
+        if (FILES.equals(name) && value == JsonToken.START_ARRAY)
+            insideFiles = true;
+        else if (NEXT_PAGE_TOKEN.equals(name) && value == JsonToken.VALUE_STRING)
+            nextPageToken = parser.getText();
+        else
+            parser.skipChildren();
+    }
+
+    private static void expect(JsonToken expected, JsonToken actual) throws IOException {
+        if (expected != actual)
+            throw new IOException(format(MALFORMED, expected, actual));
+    }
+
+    String nextPageToken() {
+        return nextPageToken;
+    }
+
+    int files() {
+        return files;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -32,7 +32,8 @@ import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInsta
 import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
+import com.google.api.client.http.GenericUrl;
 import com.google.api.client.http.HttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
@@ -43,13 +44,23 @@ import com.google.api.services.drive.model.File;
 
 import java.io.FileReader;
 import java.io.IOException;
-import java.security.GeneralSecurityException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 
+import static java.lang.String.format;
 import static java.util.Collections.singletonList;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
 
-public class GoogleDriveStreamClient {
+public class GoogleDriveStreamClient implements AutoCloseable {
 
     private static final String APPLICATION_NAME = "Google Drive Stream Client";
     private static final String OFFLINE = "offline";
@@ -57,15 +68,42 @@ public class GoogleDriveStreamClient {
     private static final String TOKENS_DIR_PATH = System.getProperty("user.home") + java.io.File.separator + "g-drive-stream-client-tokens";
     private static final String CREDENTIALS_FILE_PATH = System.getProperty("user.home") + java.io.File.separator + "g-drive-stream-client-id.json";
     private static final List<String> SCOPES = singletonList(DriveScopes.DRIVE_READONLY);
+    private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+    private static final long REFRESH_MARGIN_SECONDS = 60;
+    private static final String CREDENTIAL_ERROR = "Failed to obtain credentials for [%s].";
+    private static final String TOKEN_ERROR = "Failed to refresh the access token.";
+    private static final String CONNECT_ERROR = "Failed to open a connection to [%s].";
+    private static final String SHUTDOWN_ERROR = "Failed to shut down the HTTP transport.";
+    private static final String NO_SCOPE = "A client requires at least one scope.";
 
     private final HttpTransport httpTransport;
-    private final JsonFactory jsonFactory;
+    private final boolean ownsTransport;
+    private final Credential credential;
     private final Drive drive;
+    private volatile CompletableFuture<Void> warmUp = CompletableFuture.completedFuture(null);
 
-    private Credential getCredentials() throws IOException {
-        GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(jsonFactory, new FileReader(CREDENTIALS_FILE_PATH));
+    public GoogleDriveStreamClient() {
+        this(builder());
+    }
+
+    private GoogleDriveStreamClient(Builder builder) {
+        ownsTransport = isNull(builder.transport);
+        httpTransport = ownsTransport ? PooledTransport.create() : builder.transport;
+        credential = builder.credential(httpTransport);
+        drive = new Drive.Builder(httpTransport, JSON_FACTORY, credential).setApplicationName(builder.applicationName).build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
 
-        GoogleAuthorizationCodeFlow authorizationFlow = new GoogleAuthorizationCodeFlow.Builder(httpTransport, jsonFactory, clientSecrets, SCOPES)
+    private static Credential authorize(HttpTransport httpTransport, List<String> scopes) throws IOException {
+        GoogleClientSecrets clientSecrets;
+        try (Reader secrets = new FileReader(CREDENTIALS_FILE_PATH)) {
+            clientSecrets = GoogleClientSecrets.load(JSON_FACTORY, secrets);
+        }
+
+        GoogleAuthorizationCodeFlow authorizationFlow = new GoogleAuthorizationCodeFlow.Builder(httpTransport, JSON_FACTORY, clientSecrets, scopes)
                 .setDataStoreFactory(new FileDataStoreFactory(new java.io.File(TOKENS_DIR_PATH)))
                 .setAccessType(OFFLINE)
                 .build();
@@ -73,17 +111,151 @@ public class GoogleDriveStreamClient {
         return new AuthorizationCodeInstalledApp(authorizationFlow, new LocalServerReceiver()).authorize(USER);
     }
 
-    public GoogleDriveStreamClient() {
+    private GoogleDriveStreamClient startWarmUp(Executor executor) {
+        CompletableFuture<Void> connection = CompletableFuture.runAsync(this::connect, executor);
+        CompletableFuture<Void> token = CompletableFuture.runAsync(() -> refresh(credential), executor);
+        warmUp = CompletableFuture.allOf(connection, token);
+        return this;
+    }
+
+    private void connect() {
+        GenericUrl rootUrl = new GenericUrl(drive.getRootUrl());
+        try {
+            httpTransport.createRequestFactory().buildHeadRequest(rootUrl)
+                    .setThrowExceptionOnExecuteError(false)
+                    .execute()
+                    .ignore();
+        } catch (IOException e) {
+            throw new RuntimeException(format(CONNECT_ERROR, rootUrl), e);
+        }
+    }
+
+    private static void refresh(Credential credential) {
+        Long expiresInSeconds = credential.getExpiresInSeconds();
+        if (nonNull(credential.getAccessToken()) && (isNull(expiresInSeconds) || expiresInSeconds > REFRESH_MARGIN_SECONDS))
+            return;
         try {
-            httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-            jsonFactory = JacksonFactory.getDefaultInstance();
-            drive = new Drive.Builder(httpTransport, jsonFactory, getCredentials()).setApplicationName(APPLICATION_NAME).build();
-        } catch (IOException | GeneralSecurityException e) {
-            throw new RuntimeException(e);
+            credential.refreshToken();
+        } catch (IOException e) {
+            throw new RuntimeException(TOKEN_ERROR, e);
         }
     }
 
+    public CompletableFuture<Void> warmUp() {
+        return warmUp.copy();
+    }
+
+    public GoogleDriveStream stream() {
+        return new GoogleDriveStream(drive);
+    }
+
     public Stream<File> files() {
-        return new GoogleDriveStream(drive).files();
+        return stream().files();
+    }
+
+    @Override
+    public void close() {
+        if (!ownsTransport)
+            return;
+        try {
+            httpTransport.shutdown();
+        } catch (IOException e) {
+            throw new RuntimeException(SHUTDOWN_ERROR, e);
+        }
+    }
+
+    public static final class Builder {
+
+        private Credential credential;
+        private Path serviceAccountKey;
+        private List<String> scopes;
+        private HttpTransport transport;
+        private String applicationName;
+        private Executor executor;
+        private boolean warmUp;
+
+        private Builder() {
+            scopes = SCOPES;
+            applicationName = APPLICATION_NAME;
+            executor = ForkJoinPool.commonPool();
+            warmUp = true;
+        }
+
+        private Builder(Builder other) {
+            credential = other.credential;
+            serviceAccountKey = other.serviceAccountKey;
+            scopes = other.scopes;
+            transport = other.transport;
+            applicationName = other.applicationName;
+            executor = other.executor;
+            warmUp = other.warmUp;
+        }
+
+        public Builder withCredential(Credential newCredential) {
+            Builder copy = new Builder(this);
+            copy.credential = requireNonNull(newCredential);
+            copy.serviceAccountKey = null;
+            return copy;
+        }
+
+        public Builder withServiceAccount(Path keyFile) {
+            Builder copy = new Builder(this);
+            copy.serviceAccountKey = requireNonNull(keyFile);
+            copy.credential = null;
+            return copy;
+        }
+
+        public Builder withScopes(String... newScopes) {
+            if (newScopes.length == 0)
+                throw new IllegalArgumentException(NO_SCOPE);
+            Builder copy = new Builder(this);
+            copy.scopes = List.of(newScopes);
+            return copy;
+        }
+
+        public Builder withTransport(HttpTransport newTransport) {
+            Builder copy = new Builder(this);
+            copy.transport = requireNonNull(newTransport);
+            return copy;
+        }
+
+        public Builder withApplicationName(String newApplicationName) {
+            Builder copy = new Builder(this);
+            copy.applicationName = requireNonNull(newApplicationName);
+            return copy;
+        }
+
+        public Builder withWarmUp(Executor newExecutor) {
+            Builder copy = new Builder(this);
+            copy.executor = requireNonNull(newExecutor);
+            copy.warmUp = true;
+            return copy;
+        }
+
+        public Builder withoutWarmUp() {
+            Builder copy = new Builder(this);
+            copy.warmUp = false;
+            return copy;
+        }
+
+        public GoogleDriveStreamClient build() {
+            GoogleDriveStreamClient client = new GoogleDriveStreamClient(this);
+            return warmUp ? client.startWarmUp(executor) : client;
+        }
+
+        private Credential credential(HttpTransport httpTransport) {
+            if (nonNull(credential))
+                return credential;
+            String source = isNull(serviceAccountKey) ? CREDENTIALS_FILE_PATH : serviceAccountKey.toString();
+            try {
+                if (isNull(serviceAccountKey))
+                    return authorize(httpTransport, scopes);
+                try (InputStream key = Files.newInputStream(serviceAccountKey)) {
+                    return GoogleCredential.fromStream(key, httpTransport, JSON_FACTORY).createScoped(scopes);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(format(CREDENTIAL_ERROR, source), e);
+            }
+        }
     }
 }
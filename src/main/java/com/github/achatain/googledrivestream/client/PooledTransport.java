@@ -0,0 +1,71 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream.client;
+
+import com.google.api.client.googleapis.GoogleUtils;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.ApacheHttpTransport;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+import static java.lang.String.format;
+
+public final class PooledTransport {
+
+    static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+    private static final String INVALID_CONNECTIONS = "Max connections must be positive but was [%d].";
+    private static final String ERROR = "Failed to create a pooled transport of [%d] connections.";
+
+    private PooledTransport() {
+    }
+
+    public static HttpTransport create() {
+        return create(DEFAULT_MAX_CONNECTIONS);
+    }
+
+    public static HttpTransport create(int maxConnections) {
+        if (maxConnections < 1)
+            throw new IllegalArgumentException(format(INVALID_CONNECTIONS, maxConnections));
+        try {
+            ApacheHttpTransport.Builder builder = new ApacheHttpTransport.Builder()
+                    .trustCertificates(GoogleUtils.getCertificateTrustStore());
+            HttpParams params = builder.getHttpParams();
+            ConnManagerParams.setMaxTotalConnections(params, maxConnections);
+            ConnManagerParams.setMaxConnectionsPerRoute(params, new ConnPerRouteBean(maxConnections));
+            HttpConnectionParams.setTcpNoDelay(params, true);
+            return builder.build();
+        } catch (IOException | GeneralSecurityException e) {
+            throw new RuntimeException(format(ERROR, maxConnections), e);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class CheckpointSpliteratorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeDrive fakeDrive;
+    private GoogleDriveStream stream;
+    private List<String> allIds;
+    private RecordingStore store;
+
+    @Before
+    public void setUp() {
+        fakeDrive = new FakeDrive().with(IntStream.range(0, 2_500)
+                .mapToObj(i -> FakeDrive.file("file-" + i, "root"))
+                .collect(toList()));
+        stream = new GoogleDriveStream(fakeDrive.drive());
+        allIds = stream.files().map(File::getId).collect(toList());
+        store = new RecordingStore();
+    }
+
+    private static List<CheckpointedFile> take(Stream<CheckpointedFile> files, int count) {
+        Iterator<CheckpointedFile> iterator = files.iterator();
+        List<CheckpointedFile> taken = new ArrayList<>();
+        while (taken.size() < count && iterator.hasNext())
+            taken.add(iterator.next());
+        return taken;
+    }
+
+    private static List<String> ids(List<CheckpointedFile> files) {
+        return files.stream().map(file -> file.file().getId()).collect(toList());
+    }
+
+    @Test
+    public void acknowledgedFilesAreNotReplayedAfterACrash() {
+        List<CheckpointedFile> beforeCrash = take(stream.checkpointed(store), 1_234);
+        beforeCrash.forEach(CheckpointedFile::acknowledge);
+
+        List<String> afterCrash = stream.checkpointed(store)
+                .peek(CheckpointedFile::acknowledge)
+                .map(file -> file.file().getId())
+                .collect(toList());
+
+        List<String> seen = new ArrayList<>(ids(beforeCrash));
+        seen.addAll(afterCrash);
+        assertEquals(allIds, seen);
+    }
+
+    @Test
+    public void unacknowledgedFilesAreReplayed() {
+        List<CheckpointedFile> beforeCrash = take(stream.checkpointed(store), 10);
+        beforeCrash.subList(0, 5).forEach(CheckpointedFile::acknowledge);
+
+        List<CheckpointedFile> afterCrash = take(stream.checkpointed(store), 5);
+
+        assertEquals(ids(beforeCrash.subList(5, 10)), ids(afterCrash));
+    }
+
+    @Test
+    public void onlyTheAcknowledgedPrefixIsCommitted() {
+        List<CheckpointedFile> files = take(stream.checkpointed(store), 4);
+        files.get(0).acknowledge();
+        files.get(2).acknowledge();
+        files.get(3).acknowledge();
+
+        assertEquals(Optional.of(files.get(0).checkpoint()), store.load());
+
+        files.get(1).acknowledge();
+
+        assertEquals(Optional.of(files.get(3).checkpoint()), store.load());
+    }
+
+    @Test
+    public void checkpointsSpanPageBoundaries() {
+        List<CheckpointedFile> beforeCrash = take(stream.checkpointed(store), 1_000);
+        beforeCrash.forEach(CheckpointedFile::acknowledge);
+
+        List<CheckpointedFile> afterCrash = take(stream.checkpointed(store), 1);
+
+        assertEquals(Checkpoint.of(null, 1_000, 1_000), store.saved.get(store.saved.size() - 1));
+        assertEquals(allIds.get(1_000), afterCrash.get(0).file().getId());
+    }
+
+    @Test
+    public void completedListingClearsTheStore() {
+        long count = stream.checkpointed(store).peek(CheckpointedFile::acknowledge).count();
+
+        assertEquals(2_500L, count);
+        assertEquals(Optional.empty(), store.load());
+        assertEquals(1, store.clears);
+    }
+
+    @Test
+    public void listingIsNotCompleteUntilTheLastFileIsAcknowledged() {
+        List<CheckpointedFile> files = stream.checkpointed(store).collect(toList());
+        files.subList(0, 2_499).forEach(CheckpointedFile::acknowledge);
+
+        assertEquals(0, store.clears);
+        assertEquals(Optional.of(files.get(2_498).checkpoint()), store.load());
+
+        files.get(2_499).acknowledge();
+
+        assertEquals(1, store.clears);
+    }
+
+    @Test
+    public void savesAreBatchedAndFlushedOnClose() {
+        try (Stream<CheckpointedFile> files = stream.checkpointed(store, 100)) {
+            take(files, 250).forEach(CheckpointedFile::acknowledge);
+            assertEquals(2, store.saved.size());
+        }
+
+        assertEquals(3, store.saved.size());
+        assertEquals(allIds.get(250), take(stream.checkpointed(store), 1).get(0).file().getId());
+    }
+
+    @Test
+    public void resumeContinuesRightAfterTheCheckpointOfAFile() {
+        CheckpointedFile last = take(stream.resume(Checkpoint.start()), 1_500).get(1_499);
+
+        List<String> resumed = stream.resume(Checkpoint.parse(last.checkpoint().toString()))
+                .map(file -> file.file().getId())
+                .collect(toList());
+
+        assertEquals(allIds.subList(1_500, 2_500), resumed);
+        assertEquals(Optional.empty(), store.load());
+    }
+
+    @Test
+    public void prefetchedListingResumesFromTheStore() {
+        take(stream.withPrefetch(2).checkpointed(store), 1_700).forEach(CheckpointedFile::acknowledge);
+
+        List<String> resumed = stream.withPrefetch(2).checkpointed(store)
+                .map(file -> file.file().getId())
+                .collect(toList());
+
+        assertEquals(allIds.subList(1_700, 2_500), resumed);
+    }
+
+    @Test
+    public void adaptiveListingResumesWithoutReplayingAcknowledgedFiles() {
+        GoogleDriveStream adaptive = stream.withPageSizePolicy(PageSizePolicy.adaptive());
+        take(adaptive.checkpointed(store), 200).forEach(CheckpointedFile::acknowledge);
+
+        List<String> resumed = adaptive.checkpointed(store)
+                .map(file -> file.file().getId())
+                .collect(toList());
+
+        assertEquals(400, store.load().get().pageSize());
+        assertEquals(allIds.subList(200, 2_500), resumed);
+    }
+
+    @Test
+    public void hintedListingResumesWithoutReplayingAcknowledgedFiles() {
+        take(stream.checkpointed(store), 600).forEach(CheckpointedFile::acknowledge);
+
+        List<String> resumed = stream.withSizeHint(10).checkpointed(store)
+                .map(file -> file.file().getId())
+                .collect(toList());
+
+        assertEquals(allIds.subList(600, 2_500), resumed);
+    }
+
+    @Test
+    public void checkpointWithoutPageSizeResumesWithFullPages() {
+        List<String> resumed = stream.withPageSizePolicy(PageSizePolicy.adaptive()).resume(Checkpoint.parse("600:"))
+                .map(file -> file.file().getId())
+                .collect(toList());
+
+        assertEquals(allIds.subList(600, 2_500), resumed);
+    }
+
+    @Test
+    public void fileStoreKeepsTheCheckpointAcrossInstances() throws Exception {
+        Path path = temporaryFolder.getRoot().toPath().resolve("listing.checkpoint");
+        take(stream.checkpointed(CheckpointStore.file(path)), 1_200).forEach(CheckpointedFile::acknowledge);
+
+        List<CheckpointedFile> resumed = take(stream.checkpointed(CheckpointStore.file(path)), 1);
+
+        assertEquals(allIds.get(1_200), resumed.get(0).file().getId());
+    }
+
+    @Test
+    public void checkpointRoundTripsThroughItsText() {
+        Checkpoint checkpoint = Checkpoint.of("token:with:colons", 42);
+        Checkpoint sized = Checkpoint.of("token", 42, 100);
+
+        assertEquals(checkpoint, Checkpoint.parse(checkpoint.toString()));
+        assertEquals(sized, Checkpoint.parse(sized.toString()));
+        assertEquals("42/100:token", sized.toString());
+        assertEquals(Checkpoint.start(), Checkpoint.parse(Checkpoint.start().toString()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedCheckpointIsRejected() {
+        Checkpoint.parse("token");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveSaveIntervalIsRejected() {
+        stream.checkpointed(store, 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void streamingParserIsRejected() {
+        stream.withStreamingParser().checkpointed(store, 1);
+    }
+
+    private static final class RecordingStore implements CheckpointStore {
+        private final CheckpointStore delegate = CheckpointStore.inMemory();
+        private final List<Checkpoint> saved = new ArrayList<>();
+        private int clears;
+
+        @Override
+        public Optional<Checkpoint> load() {
+            return delegate.load();
+        }
+
+        @Override
+        public void save(Checkpoint checkpoint) {
+            saved.add(checkpoint);
+            delegate.save(checkpoint);
+        }
+
+        @Override
+        public void clear() {
+            clears++;
+            delegate.clear();
+        }
+    }
+}
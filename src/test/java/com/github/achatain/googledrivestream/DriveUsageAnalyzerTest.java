@@ -0,0 +1,169 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class DriveUsageAnalyzerTest {
+
+    private DriveUsageAnalyzer analyzer;
+
+    @Before
+    public void setUp() {
+        analyzer = new DriveUsageAnalyzer();
+    }
+
+    private static File file(String id, long size, String mimeType, String parent) {
+        return FakeDrive.file(id, parent).setSize(size).setMimeType(mimeType);
+    }
+
+    private DriveUsage analyze(File... files) {
+        Stream.of(files).forEach(analyzer);
+        return analyzer.finish();
+    }
+
+    private static List<String> ids(List<FolderUsage> folders) {
+        return folders.stream().map(FolderUsage::id).collect(toList());
+    }
+
+    @Test
+    public void sizesAreRolledUpTheParentChain() {
+        DriveUsage usage = analyze(
+                file("a.txt", 10L, "text/plain", "photos"),
+                file("b.png", 200L, "image/png", "holidays"),
+                FakeDrive.folder("holidays", "photos"),
+                FakeDrive.folder("photos", "root"),
+                file("c.png", 3_000L, "image/png", "root"));
+
+        assertEquals(OptionalLong.of(3_210L), usage.bytes("root"));
+        assertEquals(OptionalLong.of(210L), usage.bytes("photos"));
+        assertEquals(OptionalLong.of(200L), usage.bytes("holidays"));
+        assertEquals(OptionalLong.of(10L), usage.bytes("a.txt"));
+        assertEquals(OptionalLong.empty(), usage.bytes("missing"));
+        assertEquals(3_210L, usage.totalBytes());
+        assertEquals(3L, usage.fileCount());
+        assertEquals(3, usage.folderCount());
+        assertEquals(3L, usage.folder("root").get().files());
+        assertEquals(2L, usage.folder("photos").get().files());
+    }
+
+    @Test
+    public void foldersCanBeBrowsedFromTheRoots() {
+        DriveUsage usage = analyze(
+                FakeDrive.folder("photos", "root"),
+                FakeDrive.folder("music", "root"),
+                FakeDrive.folder("holidays", "photos"),
+                file("orphan", 1L, "text/plain", "shared"));
+
+        assertEquals(List.of("root", "shared"), ids(usage.roots()).stream().sorted().collect(toList()));
+        assertEquals(List.of("music", "photos"), ids(usage.subfolders("root")).stream().sorted().collect(toList()));
+        assertEquals(List.of("holidays"), ids(usage.subfolders("photos")));
+        assertEquals(List.of(), usage.subfolders("holidays"));
+        assertEquals(List.of(), usage.subfolders("orphan"));
+        assertFalse(usage.folder("orphan").isPresent());
+    }
+
+    @Test
+    public void largestFoldersAreRankedBySubtreeSize() {
+        for (int folder = 0; folder < 50; folder++) {
+            analyzer.accept(FakeDrive.folder("folder-" + folder, "root"));
+            analyzer.accept(file("file-" + folder, folder * 100L, "text/plain", "folder-" + folder));
+        }
+        DriveUsage usage = analyzer.finish();
+
+        assertEquals(List.of("root", "folder-49", "folder-48", "folder-47"), ids(usage.largestFolders(4)));
+        assertEquals(51, usage.largestFolders(100).size());
+        assertEquals(List.of(), usage.largestFolders(0));
+    }
+
+    @Test
+    public void bytesAndFilesAreBrokenDownByMimeType() {
+        DriveUsage usage = analyze(
+                file("a.txt", 10L, "text/plain", "root"),
+                file("b.txt", 20L, "text/plain", "root"),
+                file("c.png", 3_000L, "image/png", "root"),
+                new File().setId("d").setParents(List.of("root")));
+
+        assertEquals(Map.of("image/png", 3_000L, "text/plain", 30L, "unknown", 0L), usage.bytesByMimeType());
+        assertEquals(List.of("image/png", "text/plain", "unknown"), List.copyOf(usage.bytesByMimeType().keySet()));
+        assertEquals(Long.valueOf(2L), usage.filesByMimeType().get("text/plain"));
+    }
+
+    @Test
+    public void filesListedTwiceAreCountedOnce() {
+        DriveUsage usage = analyze(
+                file("a.txt", 10L, "text/plain", "root"),
+                file("a.txt", 10L, "text/plain", "root"));
+
+        assertEquals(OptionalLong.of(10L), usage.bytes("root"));
+        assertEquals(1L, usage.fileCount());
+    }
+
+    @Test
+    public void heapRetainedPerFileStaysUnderFiftyBytes() {
+        int files = 200_000;
+        for (int folder = 0; folder < files / 100; folder++)
+            analyzer.accept(FakeDrive.folder("1Bx-folder-" + folder, "root"));
+        for (int file = 0; file < files; file++)
+            analyzer.accept(file("1BxiMVs0XRA5nFMdKvBdBZjgmUUqptlbs74OgvE2upms-" + file, file, "text/plain", "1Bx-folder-" + file / 100));
+        DriveUsage usage = analyzer.finish();
+
+        long bytesPerFile = usage.retainedBytes() / (files + files / 100);
+        assertTrue("Expected under 50 bytes per file but was " + bytesPerFile, bytesPerFile < 50);
+        assertEquals(OptionalLong.of(4_950L), usage.bytes("1Bx-folder-0"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void finishedAnalysisRejectsMoreFiles() {
+        analyzer.finish();
+        analyzer.accept(FakeDrive.file("late", "root"));
+    }
+
+    @Test
+    public void usageOfADriveIsComputedFromItsListing() {
+        FakeDrive fakeDrive = new FakeDrive().with(List.of(
+                FakeDrive.folder("photos", "root"),
+                file("a.png", 100L, "image/png", "photos"),
+                file("b.png", 50L, "image/png", "root").setDescription("description")));
+
+        DriveUsage usage = new GoogleDriveStream(fakeDrive.drive()).usage();
+
+        assertEquals(OptionalLong.of(150L), usage.bytes("root"));
+        assertEquals(OptionalLong.of(100L), usage.bytes("photos"));
+        assertEquals(List.of("root"), ids(usage.roots()));
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.*;
+
+public class DuplicateFinderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static File file(String id, long size, String md5) {
+        return new File().setId(id).setSize(size).setMd5Checksum(md5);
+    }
+
+    private static String md5(long value) {
+        return Long.toHexString(value * 0x9e3779b97f4a7c15L | Long.MIN_VALUE) + Long.toHexString(~value | Long.MIN_VALUE);
+    }
+
+    private static List<File> files(int count, int duplicated) {
+        Random random = new Random(42);
+        return IntStream.range(0, count)
+                .mapToObj(i -> i < duplicated ? file("copy-" + i, 1_000L + i % 7, md5(i % 7)) : file("file-" + i, i, md5(random.nextLong())))
+                .collect(toList());
+    }
+
+    private static Map<String, Set<String>> groups(Stream<DuplicateGroup> duplicates) {
+        try (Stream<DuplicateGroup> groups = duplicates) {
+            return groups.collect(toMap(DuplicateGroup::md5Checksum, group -> Set.copyOf(group.fileIds())));
+        }
+    }
+
+    @Test
+    public void filesSharingChecksumAndSizeAreGrouped() {
+        List<DuplicateGroup> groups = Stream.of(
+                file("a", 10L, md5(1)),
+                file("b", 10L, md5(1)),
+                file("c", 11L, md5(1)),
+                file("d", 20L, md5(2)),
+                file("e", 30L, md5(3)),
+                file("f", 30L, md5(3)),
+                file("g", 30L, md5(3)),
+                new File().setId("google-doc"),
+                new File().setId("not-an-md5").setMd5Checksum("xyz"))
+                .collect(DuplicateFinder.collector())
+                .collect(toList());
+
+        assertEquals(2, groups.size());
+        assertEquals(md5(1), groups.get(0).md5Checksum());
+        assertEquals(List.of("a", "b"), groups.get(0).fileIds().stream().sorted().collect(toList()));
+        assertEquals(10L, groups.get(0).size());
+        assertEquals(Set.of("e", "f", "g"), Set.copyOf(groups.get(1).fileIds()));
+        assertEquals(60L, groups.get(1).wastedBytes());
+    }
+
+    @Test
+    public void parallelStreamFindsTheSameGroups() {
+        List<File> files = files(100_000, 700);
+
+        Map<String, Set<String>> sequential = groups(files.stream().collect(DuplicateFinder.collector()));
+        Map<String, Set<String>> parallel = groups(files.parallelStream().collect(DuplicateFinder.collector()));
+
+        assertEquals(7, sequential.size());
+        assertEquals(100, sequential.get(md5(3)).size());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void offHeapSegmentsFindTheSameGroups() {
+        List<File> files = files(50_000, 70);
+
+        assertEquals(groups(files.stream().collect(DuplicateFinder.collector())),
+                groups(files.stream().collect(DuplicateFinder.collector(DuplicateOptions.defaults().offHeap()))));
+    }
+
+    @Test
+    public void digestsBeyondTheMemoryBudgetAreSpilledAndDeleted() throws Exception {
+        Path spill = temporaryFolder.newFolder("spill").toPath();
+        List<File> files = files(50_000, 700);
+
+        Map<String, Set<String>> spilled = groups(files.parallelStream()
+                .collect(DuplicateFinder.collector(DuplicateOptions.defaults().spillingTo(spill, DigestRun.SEGMENT_SIZE))));
+
+        assertEquals(groups(files.stream().collect(DuplicateFinder.collector())), spilled);
+        try (Stream<Path> leftovers = Files.list(spill)) {
+            assertEquals(0L, leftovers.count());
+        }
+    }
+
+    @Test
+    public void spillStartsOnceTheBudgetIsExhausted() {
+        DigestRun run = new DigestRun(DuplicateOptions.defaults().spillingTo(temporaryFolder.getRoot().toPath(), DigestRun.SEGMENT_SIZE),
+                new AtomicLong());
+        for (int i = 0; i < 40_000; i++)
+            run.add(i, i, i, "file-" + i);
+
+        assertEquals(2L * DigestRun.SEGMENT_SIZE, run.spilledBytes());
+        run.close();
+    }
+
+    @Test
+    public void hugeGroupOfIdenticalFilesIsSortedQuickly() {
+        List<DuplicateGroup> groups = IntStream.range(0, 50_000)
+                .mapToObj(i -> file("empty-" + i, 0L, "d41d8cd98f00b204e9800998ecf8427e"))
+                .collect(DuplicateFinder.collector())
+                .collect(toList());
+
+        assertEquals(1, groups.size());
+        assertEquals(50_000, groups.get(0).fileIds().size());
+    }
+
+    @Test
+    public void duplicatesOfADriveAreFoundInParallel() {
+        Instant start = Instant.parse("2018-01-01T00:00:00Z");
+        FakeDrive fakeDrive = new FakeDrive().with(IntStream.range(0, 2_500)
+                .mapToObj(i -> FakeDrive.file("file-" + i, start.plus(Duration.ofHours(i))).setSize(i % 100L).setMd5Checksum(md5(i % 100)))
+                .collect(toList()));
+        GoogleDriveStream stream = new GoogleDriveStream(fakeDrive.drive());
+
+        Map<String, Set<String>> sequential = groups(stream.duplicates());
+        Map<String, Set<String>> parallel = groups(stream.duplicates(DuplicateOptions.defaults(), 4));
+
+        assertEquals(100, sequential.size());
+        assertEquals(25, sequential.get(md5(42)).size());
+        assertEquals(sequential, parallel);
+        assertEquals(2_500, sequential.values().stream().mapToInt(Set::size).sum());
+        assertTrue(sequential.values().stream().flatMap(Set::stream).collect(toSet()).contains("file-2499"));
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.Permission;
+import com.google.api.services.drive.model.Revision;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.*;
+
+public class EnrichmentSpliteratorTest {
+
+    private FakeDrive fakeDrive;
+    private GoogleDriveStream stream;
+
+    @Before
+    public void setUp() {
+        fakeDrive = new FakeDrive().with(IntStream.range(0, 250)
+                .mapToObj(i -> FakeDrive.file("file-" + i, "parent").setSize((long) i))
+                .collect(toList()));
+        stream = new GoogleDriveStream(fakeDrive.drive());
+    }
+
+    private Stream<File> listed(int count) {
+        return IntStream.range(0, count).mapToObj(i -> new File().setId("file-" + i));
+    }
+
+    @Test
+    public void metadataIsFetchedInBatchesOfOneHundredCalls() {
+        List<EnrichedFile> enriched = stream.enrich(listed(250), EnrichmentSpec.metadata(Projection.of("id", "size")))
+                .collect(toList());
+
+        assertEquals(250, enriched.size());
+        assertEquals(3, fakeDrive.batchRequests());
+        assertEquals(250, fakeDrive.batchedCalls());
+        assertEquals(Long.valueOf(42L), enriched.get(42).metadata().getSize());
+        assertNull(enriched.get(42).metadata().getName());
+    }
+
+    @Test
+    public void orderedEnrichmentKeepsEncounterOrder() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<String> ids = stream.enrich(listed(250), EnrichmentSpec.metadata().withBatchSize(10).withConcurrency(4, executor))
+                    .map(enrichedFile -> enrichedFile.metadata().getId())
+                    .collect(toList());
+            assertEquals(listed(250).map(File::getId).collect(toList()), ids);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void unorderedEnrichmentEmitsEveryFile() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<String> ids = stream.enrich(listed(250), EnrichmentSpec.metadata().withBatchSize(10).withConcurrency(4, executor).unordered())
+                    .map(enrichedFile -> enrichedFile.file().getId())
+                    .collect(toList());
+            assertEquals(250, ids.size());
+            assertEquals(listed(250).map(File::getId).collect(toSet()), ids.stream().collect(toSet()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void permissionsAndRevisionsAreFetchedForEachFile() {
+        fakeDrive.permissions("file-1", new Permission().setId("owner").setRole("owner"), new Permission().setId("reader").setRole("reader"))
+                .revisions("file-1", new Revision().setId("1"), new Revision().setId("2"), new Revision().setId("3"));
+
+        List<EnrichedFile> enriched = stream.enrich(listed(2), EnrichmentSpec.permissions().withRevisions()).collect(toList());
+
+        assertNull(enriched.get(0).metadata());
+        assertTrue(enriched.get(0).permissions().isEmpty());
+        assertEquals(2, enriched.get(1).permissions().size());
+        assertEquals(3, enriched.get(1).revisions().size());
+        assertEquals(1, fakeDrive.batchRequests());
+    }
+
+    @Test
+    public void failedItemIsRetriedWithoutFailingTheBatch() {
+        fakeDrive.failNext("file-3", 2, 429, "userRateLimitExceeded");
+        EnrichmentSpec spec = EnrichmentSpec.metadata().withRetryPolicy(RetryPolicy.exponentialBackOff().withSleeper(millis -> {}));
+
+        List<EnrichedFile> enriched = stream.enrich(listed(5), spec).collect(toList());
+
+        assertTrue(enriched.stream().noneMatch(EnrichedFile::failed));
+        assertEquals("file-3", enriched.get(3).metadata().getId());
+        assertEquals(3, fakeDrive.batchRequests());
+        assertEquals(7, fakeDrive.batchedCalls());
+    }
+
+    @Test
+    public void itemsAreRetriedByDefault() {
+        assertTrue(EnrichmentSpec.metadata().retryPolicy().maxAttempts() > 1);
+    }
+
+    @Test
+    public void permanentlyFailedItemIsReported() {
+        fakeDrive.failNext("file-3", 1, 404, "notFound");
+
+        List<EnrichedFile> enriched = stream.enrich(listed(5), EnrichmentSpec.metadata()).collect(toList());
+
+        assertTrue(enriched.get(3).failed());
+        assertEquals(404, enriched.get(3).error().getCode());
+        assertEquals(4L, enriched.stream().filter(enrichedFile -> !enrichedFile.failed()).count());
+        assertEquals(1, fakeDrive.batchRequests());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void batchOfMoreThanOneHundredCallsIsRejected() {
+        EnrichmentSpec.metadata().withBatchSize(101);
+    }
+}
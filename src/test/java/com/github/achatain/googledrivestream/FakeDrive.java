@@ -0,0 +1,551 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.Change;
+import com.google.api.services.drive.model.ChangeList;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.FileList;
+import com.google.api.services.drive.model.Permission;
+import com.google.api.services.drive.model.PermissionList;
+import com.google.api.services.drive.model.Revision;
+import com.google.api.services.drive.model.RevisionList;
+import com.google.api.services.drive.model.StartPageToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toList;
+
+class FakeDrive extends MockHttpTransport {
+
+    private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+    private static final String FILES_PATH = "/drive/v3/files";
+    private static final String CHANGES_PATH = "/drive/v3/changes";
+    private static final String START_PAGE_TOKEN_PATH = "/drive/v3/changes/startPageToken";
+    private static final String BATCH_PATH = "/batch/drive/v3";
+    private static final String ROOT_URL = "https://www.googleapis.com";
+    private static final String BOUNDARY = "fake_drive_batch";
+    private static final Pattern FILE_PATH = Pattern.compile("(?:/download)?/drive/v3/files/([^/]+)(/permissions|/revisions)?");
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    private static final Pattern BATCH_PART_REQUEST = Pattern.compile("^(GET|POST|PATCH|PUT|DELETE) (\\S+) HTTP/1\\.1\\r?$", Pattern.MULTILINE);
+    private static final String ERROR = "{\"error\":{\"errors\":[{\"domain\":\"usageLimits\",\"reason\":\"%1$s\",\"message\":\"%1$s\"}],\"code\":%2$d,\"message\":\"%1$s\"}}";
+    private static final Pattern FILE_FIELDS = Pattern.compile("files\\((.*)\\)");
+    private static final Pattern IN_PARENTS = Pattern.compile("'(.*)' in parents");
+    private static final Pattern COMPARISON = Pattern.compile("(\\w+) (>=|<=|!=|=|>|<) '?([^']*)'?");
+
+    private final List<File> files = new CopyOnWriteArrayList<>();
+    private final AtomicInteger listRequests = new AtomicInteger();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicInteger connectedResponses = new AtomicInteger();
+    private final AtomicLong filesServed = new AtomicLong();
+    private final List<Change> changes = new CopyOnWriteArrayList<>();
+    private final Queue<LowLevelHttpResponse> failures = new ConcurrentLinkedQueue<>();
+    private final Queue<LowLevelHttpResponse> batchFailures = new ConcurrentLinkedQueue<>();
+    private final Map<String, Queue<Reply>> fileFailures = new ConcurrentHashMap<>();
+    private final Map<String, List<Permission>> permissions = new ConcurrentHashMap<>();
+    private final Map<String, List<Revision>> revisions = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> contents = new ConcurrentHashMap<>();
+    private final Map<String, Queue<Integer>> brokenContents = new ConcurrentHashMap<>();
+    private final AtomicInteger mediaRequests = new AtomicInteger();
+    private final AtomicLong mediaBytes = new AtomicLong();
+    private final AtomicInteger batchRequests = new AtomicInteger();
+    private final AtomicInteger batchedCalls = new AtomicInteger();
+    private final List<String> mutationLog = new CopyOnWriteArrayList<>();
+
+    Drive drive() {
+        return new Drive.Builder(this, JSON_FACTORY, null).setApplicationName("fake-drive").build();
+    }
+
+    FakeDrive with(Collection<File> newFiles) {
+        files.addAll(newFiles);
+        return this;
+    }
+
+    FakeDrive change(File file) {
+        files.removeIf(existing -> existing.getId().equals(file.getId()));
+        files.add(file);
+        changes.add(new Change().setFileId(file.getId()).setFile(file).setRemoved(false).setType("file"));
+        return this;
+    }
+
+    FakeDrive remove(String fileId) {
+        files.removeIf(existing -> existing.getId().equals(fileId));
+        changes.add(new Change().setFileId(fileId).setRemoved(true).setType("file"));
+        return this;
+    }
+
+    FakeDrive failNext(int times, int status, String reason) {
+        for (int i = 0; i < times; i++)
+            failures.add(error(status, reason));
+        return this;
+    }
+
+    FakeDrive failNextBatch(int times, int status, String reason) {
+        for (int i = 0; i < times; i++)
+            batchFailures.add(error(status, reason));
+        return this;
+    }
+
+    FakeDrive failNext(String fileId, int times, int status, String reason) {
+        Queue<Reply> replies = fileFailures.computeIfAbsent(fileId, id -> new ConcurrentLinkedQueue<>());
+        for (int i = 0; i < times; i++)
+            replies.add(new Reply(status, format(ERROR, reason, status)));
+        return this;
+    }
+
+    FakeDrive breakNext(String fileId, int times, int afterBytes) {
+        Queue<Integer> breaks = brokenContents.computeIfAbsent(fileId, id -> new ConcurrentLinkedQueue<>());
+        for (int i = 0; i < times; i++)
+            breaks.add(afterBytes);
+        return this;
+    }
+
+    FakeDrive content(File file, byte[] content) {
+        contents.put(file.getId(), content);
+        return with(List.of(file.setSize((long) content.length).setMd5Checksum(md5(content))));
+    }
+
+    static String md5(byte[] content) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("MD5").digest(content))
+                hex.append(format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    FakeDrive permissions(String fileId, Permission... filePermissions) {
+        permissions.put(fileId, asList(filePermissions));
+        return this;
+    }
+
+    FakeDrive revisions(String fileId, Revision... fileRevisions) {
+        revisions.put(fileId, asList(fileRevisions));
+        return this;
+    }
+
+    private static LowLevelHttpResponse error(int status, String reason) {
+        String content = format(ERROR, reason, status);
+        return new MockLowLevelHttpResponse()
+                .setStatusCode(status)
+                .setContentType(Json.MEDIA_TYPE)
+                .setContent(content);
+    }
+
+    int mediaRequests() {
+        return mediaRequests.get();
+    }
+
+    long mediaBytes() {
+        return mediaBytes.get();
+    }
+
+    List<String> mutationLog() {
+        return mutationLog;
+    }
+
+    File get(String fileId) {
+        return files.stream().filter(file -> file.getId().equals(fileId)).findFirst().orElse(null);
+    }
+
+    int batchRequests() {
+        return batchRequests.get();
+    }
+
+    int batchedCalls() {
+        return batchedCalls.get();
+    }
+
+    int listRequests() {
+        return listRequests.get();
+    }
+
+    long filesServed() {
+        return filesServed.get();
+    }
+
+    long responseBytes() {
+        return responseBytes.get();
+    }
+
+    int connectedResponses() {
+        return connectedResponses.get();
+    }
+
+    static File file(String id, Instant createdTime) {
+        return new File().setId(id).setName(id).setCreatedTime(new DateTime(createdTime.toEpochMilli()));
+    }
+
+    static File file(String id, String... parents) {
+        return new File().setId(id).setName(id).setMimeType("text/plain").setParents(asList(parents));
+    }
+
+    static File folder(String id, String... parents) {
+        return file(id, parents).setMimeType(GoogleDriveTreeSpliterator.FOLDER_MIME_TYPE);
+    }
+
+    @Override
+    public LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest(url) {
+            @Override
+            public LowLevelHttpResponse execute() throws IOException {
+                GenericUrl genericUrl = new GenericUrl(url);
+                if (BATCH_PATH.equals(genericUrl.getRawPath()))
+                    return batch(getContentAsString());
+                if ("media".equals(genericUrl.getFirst("alt")))
+                    return media(genericUrl, getFirstHeaderValue("range"));
+                return respond(genericUrl);
+            }
+        };
+    }
+
+    private LowLevelHttpResponse respond(GenericUrl url) throws IOException {
+        switch (url.getRawPath()) {
+            case FILES_PATH:
+                listRequests.incrementAndGet();
+                LowLevelHttpResponse failure = failures.poll();
+                if (nonNull(failure))
+                    return failure;
+                return json(project(list(url), (String) url.getFirst("fields")));
+            case CHANGES_PATH:
+                return json(changes(url));
+            case START_PAGE_TOKEN_PATH:
+                return json(new StartPageToken().setStartPageToken(String.valueOf(changes.size())));
+            default:
+                return new MockLowLevelHttpResponse().setStatusCode(404);
+        }
+    }
+
+    private LowLevelHttpResponse media(GenericUrl url, String range) {
+        mediaRequests.incrementAndGet();
+        Matcher path = FILE_PATH.matcher(url.getRawPath());
+        String fileId = path.matches() ? path.group(1) : null;
+        Queue<Reply> failure = isNull(fileId) ? null : fileFailures.get(fileId);
+        if (nonNull(failure) && !failure.isEmpty()) {
+            Reply reply = failure.poll();
+            return new MockLowLevelHttpResponse().setStatusCode(reply.status).setContentType(Json.MEDIA_TYPE).setContent(reply.json);
+        }
+        byte[] content = isNull(fileId) ? null : contents.get(fileId);
+        if (isNull(content))
+            return error(404, "notFound");
+        if (isNull(range)) {
+            mediaBytes.addAndGet(content.length);
+            return new MockLowLevelHttpResponse().setContentType("application/octet-stream").setContent(content);
+        }
+        Matcher bounds = RANGE.matcher(range);
+        if (!bounds.matches())
+            return error(416, "requestedRangeNotSatisfiable");
+        int from = Integer.parseInt(bounds.group(1));
+        int to = Math.min(Integer.parseInt(bounds.group(2)) + 1, content.length);
+        mediaBytes.addAndGet(to - from);
+        return new MockLowLevelHttpResponse()
+                .setStatusCode(206)
+                .setContentType("application/octet-stream")
+                .setContent(broken(fileId, Arrays.copyOfRange(content, from, to)));
+    }
+
+    private InputStream broken(String fileId, byte[] content) {
+        Queue<Integer> breaks = brokenContents.get(fileId);
+        Integer afterBytes = isNull(breaks) ? null : breaks.poll();
+        if (isNull(afterBytes))
+            return new ByteArrayInputStream(content);
+        return new SequenceInputStream(new ByteArrayInputStream(content, 0, afterBytes), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+    }
+
+    private LowLevelHttpResponse batch(String content) throws IOException {
+        batchRequests.incrementAndGet();
+        LowLevelHttpResponse failure = batchFailures.poll();
+        if (nonNull(failure))
+            return failure;
+        StringBuilder multipart = new StringBuilder();
+        Matcher request = BATCH_PART_REQUEST.matcher(content);
+        while (request.find()) {
+            batchedCalls.incrementAndGet();
+            String url = request.group(2).startsWith("/") ? ROOT_URL + request.group(2) : request.group(2);
+            Reply reply = call(request.group(1), new GenericUrl(url), body(content, request.end()));
+            multipart.append("--").append(BOUNDARY).append("\r\n")
+                    .append("Content-Type: application/http\r\n\r\n")
+                    .append("HTTP/1.1 ").append(reply.status).append(reply.status / 100 == 2 ? " OK" : " Error").append("\r\n");
+            if (reply.status == 204)
+                multipart.append("\r\n");
+            else
+                multipart.append("Content-Type: application/json; charset=UTF-8\r\n\r\n")
+                        .append(reply.json).append("\r\n");
+        }
+        multipart.append("--").append(BOUNDARY).append("--\r\n");
+        return new MockLowLevelHttpResponse()
+                .setContentType("multipart/mixed; boundary=" + BOUNDARY)
+                .setContent(multipart.toString());
+    }
+
+    private static String body(String content, int requestEnd) {
+        int start = content.indexOf("\r\n\r\n", requestEnd);
+        if (start < 0)
+            return "";
+        int end = content.indexOf("\r\n--", start + 2);
+        return end < start + 4 ? "" : content.substring(start + 4, end);
+    }
+
+    private Reply call(String method, GenericUrl url, String body) throws IOException {
+        Matcher path = FILE_PATH.matcher(url.getRawPath());
+        if (!path.matches())
+            return new Reply(404, format(ERROR, "notFound", 404));
+        String fileId = path.group(1);
+        Queue<Reply> failure = fileFailures.get(fileId);
+        if (nonNull(failure) && !failure.isEmpty())
+            return failure.poll();
+        File file = files.stream().filter(candidate -> candidate.getId().equals(fileId)).findFirst().orElse(null);
+        if (isNull(file))
+            return new Reply(404, format(ERROR, "notFound", 404));
+
+        if (isNull(path.group(2)) && "DELETE".equals(method)) {
+            files.remove(file);
+            mutationLog.add(method + " " + fileId);
+            return new Reply(204, "");
+        }
+        if (isNull(path.group(2)) && "PATCH".equals(method)) {
+            File updated = patch(file, JSON_FACTORY.fromString(body, File.class), url);
+            files.replaceAll(candidate -> candidate == file ? updated : candidate);
+            mutationLog.add(method + " " + fileId);
+            return new Reply(200, JSON_FACTORY.toString(select(updated, (String) url.getFirst("fields"))));
+        }
+        if (isNull(path.group(2)))
+            return new Reply(200, JSON_FACTORY.toString(select(file, (String) url.getFirst("fields"))));
+        int pageSize = Integer.parseInt((String) url.getFirst("pageSize"));
+        Object pageToken = url.getFirst("pageToken");
+        int from = isNull(pageToken) ? 0 : Integer.parseInt((String) pageToken);
+        if (path.group(2).equals("/permissions")) {
+            List<Permission> all = permissions.getOrDefault(fileId, List.of());
+            int to = Math.min(from + pageSize, all.size());
+            PermissionList page = new PermissionList().setPermissions(new ArrayList<>(all.subList(from, to)));
+            if (to < all.size())
+                page.setNextPageToken(String.valueOf(to));
+            return new Reply(200, JSON_FACTORY.toString(page));
+        }
+        List<Revision> all = revisions.getOrDefault(fileId, List.of());
+        int to = Math.min(from + pageSize, all.size());
+        RevisionList page = new RevisionList().setRevisions(new ArrayList<>(all.subList(from, to)));
+        if (to < all.size())
+            page.setNextPageToken(String.valueOf(to));
+        return new Reply(200, JSON_FACTORY.toString(page));
+    }
+
+    private static File patch(File file, File changes, GenericUrl url) {
+        File updated = file.clone();
+        changes.forEach(updated::set);
+        List<String> parents = new ArrayList<>(isNull(file.getParents()) ? List.of() : file.getParents());
+        Object removeParents = url.getFirst("removeParents");
+        if (nonNull(removeParents))
+            parents.removeAll(asList(((String) removeParents).split(",")));
+        Object addParents = url.getFirst("addParents");
+        if (nonNull(addParents))
+            parents.addAll(asList(((String) addParents).split(",")));
+        return updated.setParents(parents);
+    }
+
+    private static File select(File file, String fields) {
+        if (isNull(fields) || "*".equals(fields))
+            return file;
+        File selection = new File();
+        for (String field : fields.split(","))
+            if (nonNull(file.get(field)))
+                selection.set(field, file.get(field));
+        return selection;
+    }
+
+    private LowLevelHttpResponse json(Object content) throws IOException {
+        String json = JSON_FACTORY.toString(content);
+        responseBytes.addAndGet(json.getBytes(UTF_8).length);
+        connectedResponses.incrementAndGet();
+        return new MockLowLevelHttpResponse() {
+            @Override
+            public void disconnect() throws IOException {
+                if (!isDisconnected())
+                    connectedResponses.decrementAndGet();
+                super.disconnect();
+            }
+        }
+                .setContentType(Json.MEDIA_TYPE)
+                .setContent(json);
+    }
+
+    private static FileList project(FileList page, String fields) {
+        Matcher fileFields = FILE_FIELDS.matcher(String.valueOf(fields));
+        if (!fileFields.find())
+            return page;
+
+        List<String> names = new ArrayList<>();
+        for (String field : fileFields.group(1).split(","))
+            names.add(field.split("[/(]")[0]);
+
+        List<File> projected = new ArrayList<>();
+        for (File file : page.getFiles()) {
+            File projection = new File();
+            names.stream().filter(name -> nonNull(file.get(name))).forEach(name -> projection.set(name, file.get(name)));
+            projected.add(projection);
+        }
+        return page.clone().setFiles(projected);
+    }
+
+    private FileList list(GenericUrl url) {
+        Object teamDriveId = url.getFirst("teamDriveId");
+        Predicate<File> filter = filter((String) url.getFirst("q"))
+                .and(file -> isNull(teamDriveId) ? isNull(file.getTeamDriveId()) : teamDriveId.equals(file.getTeamDriveId()));
+        Comparator<File> order = "createdTime".equals(url.getFirst("orderBy"))
+                ? Comparator.comparing((File file) -> file.getCreatedTime().getValue()).thenComparing(File::getId)
+                : Comparator.comparing(File::getId);
+        List<File> matching = files.stream().filter(filter).sorted(order).collect(toList());
+
+        int pageSize = Integer.parseInt((String) url.getFirst("pageSize"));
+        Object pageToken = url.getFirst("pageToken");
+        int from = isNull(pageToken) ? 0 : Integer.parseInt((String) pageToken);
+        int to = Math.min(from + pageSize, matching.size());
+
+        FileList page = new FileList().setFiles(new ArrayList<>(matching.subList(from, to)));
+        filesServed.addAndGet(to - from);
+        if (to < matching.size())
+            page.setNextPageToken(String.valueOf(to));
+        return page;
+    }
+
+    private ChangeList changes(GenericUrl url) {
+        int pageSize = Integer.parseInt((String) url.getFirst("pageSize"));
+        int from = Integer.parseInt((String) url.getFirst("pageToken"));
+        int to = Math.min(from + pageSize, changes.size());
+
+        ChangeList page = new ChangeList().setChanges(new ArrayList<>(changes.subList(from, to)));
+        if (to < changes.size())
+            page.setNextPageToken(String.valueOf(to));
+        else
+            page.setNewStartPageToken(String.valueOf(to));
+        return page;
+    }
+
+    private static Predicate<File> filter(String q) {
+        Predicate<File> filter = file -> true;
+        if (isNull(q))
+            return filter;
+        for (String clause : q.split(" and "))
+            filter = filter.and(clause(clause.replaceAll("^\\(+|\\)+$", "")));
+        return filter;
+    }
+
+    private static Predicate<File> clause(String clause) {
+        Matcher inParents = IN_PARENTS.matcher(clause);
+        if (inParents.matches())
+            return file -> nonNull(file.getParents()) && file.getParents().contains(inParents.group(1));
+
+        Matcher comparison = COMPARISON.matcher(clause);
+        if (!comparison.matches())
+            throw new IllegalArgumentException("Unsupported query clause: " + clause);
+        String field = comparison.group(1);
+        String operator = comparison.group(2);
+        String operand = comparison.group(3);
+        return file -> compare(file.get(field), operand, operator);
+    }
+
+    private static boolean compare(Object value, String operand, String operator) {
+        int comparison;
+        if (isNull(value))
+            return "!=".equals(operator);
+        else if (value instanceof DateTime)
+            comparison = Long.compare(((DateTime) value).getValue(), Instant.parse(operand).toEpochMilli());
+        else if (value instanceof Number)
+            comparison = Long.compare(((Number) value).longValue(), Long.parseLong(operand));
+        else
+            comparison = String.valueOf(value).compareTo(operand);
+
+        switch (operator) {
+            case "=":
+                return comparison == 0;
+            case "!=":
+                return comparison != 0;
+            case ">":
+                return comparison > 0;
+            case ">=":
+                return comparison >= 0;
+            case "<":
+                return comparison < 0;
+            default:
+                return comparison <= 0;
+        }
+    }
+
+    private static final class Reply {
+        private final int status;
+        private final String json;
+
+        private Reply(int status, String json) {
+            this.status = status;
+            this.json = json;
+        }
+    }
+}
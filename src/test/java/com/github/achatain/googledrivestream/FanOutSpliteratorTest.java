@@ -0,0 +1,170 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class FanOutSpliteratorTest {
+
+    private FakeDrive fakeDrive;
+    private GoogleDriveStream stream;
+    private DriveTarget huge, small1, small2, small3;
+
+    @Before
+    public void setUp() {
+        fakeDrive = new FakeDrive()
+                .with(teamDrive("huge", 5_000))
+                .with(teamDrive("small-1", 10))
+                .with(teamDrive("small-2", 20))
+                .with(teamDrive("small-3", 30));
+        stream = new GoogleDriveStream(fakeDrive.drive());
+        huge = DriveTarget.teamDrive("huge");
+        small1 = DriveTarget.teamDrive("small-1");
+        small2 = DriveTarget.teamDrive("small-2");
+        small3 = DriveTarget.teamDrive("small-3");
+    }
+
+    private static List<File> teamDrive(String teamDriveId, int fileCount) {
+        return IntStream.range(0, fileCount)
+                .mapToObj(i -> FakeDrive.file(teamDriveId + "-" + i, "root").setTeamDriveId(teamDriveId))
+                .collect(toList());
+    }
+
+    @Test
+    public void filesOfEveryTargetAreTaggedWithTheirSource() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Map<String, Long> counts = stream.filesAcross(List.of(huge, small1, small2, small3), FanOutOptions.defaults().withParallelism(3, executor))
+                    .peek(sourced -> assertEquals(sourced.target().name(), "teamDrive:" + sourced.file().getTeamDriveId()))
+                    .collect(groupingBy(sourced -> sourced.target().name(), counting()));
+
+            assertEquals(Map.of("teamDrive:huge", 5_000L, "teamDrive:small-1", 10L, "teamDrive:small-2", 20L, "teamDrive:small-3", 30L), counts);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void hugeTargetDoesNotStarveSmallOnes() {
+        List<SourcedFile> files = stream.filesAcross(List.of(huge, small1, small2, small3),
+                FanOutOptions.defaults().withParallelism(1, Runnable::run))
+                .collect(toList());
+
+        int lastSmallFile = 0;
+        for (int i = 0; i < files.size(); i++)
+            if (files.get(i).target() != huge)
+                lastSmallFile = i;
+        assertEquals(5_060, files.size());
+        assertTrue("Small targets were starved until " + lastSmallFile, lastSmallFile < 1_000 + 60);
+    }
+
+    @Test
+    public void orderedFanOutKeepsTargetsInOrder() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<DriveTarget> sources = stream.filesAcross(List.of(small3, huge, small1), FanOutOptions.defaults().withParallelism(4, executor).ordered())
+                    .map(SourcedFile::target)
+                    .collect(toList());
+
+            List<DriveTarget> expected = new ArrayList<>();
+            IntStream.range(0, 30).forEach(i -> expected.add(small3));
+            IntStream.range(0, 5_000).forEach(i -> expected.add(huge));
+            IntStream.range(0, 10).forEach(i -> expected.add(small1));
+            assertEquals(expected, sources);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void targetsCanUseTheirOwnClient() {
+        FakeDrive otherUser = new FakeDrive().with(List.of(FakeDrive.file("mine", "root")));
+        DriveTarget impersonated = DriveTarget.client("other-user", otherUser.drive());
+
+        List<String> ids = stream.filesAcross(List.of(impersonated, small1))
+                .filter(sourced -> sourced.target() == impersonated)
+                .map(sourced -> sourced.file().getId())
+                .collect(toList());
+
+        assertEquals(List.of("mine"), ids);
+    }
+
+    @Test
+    public void failedTargetIsSkippedWhenAllowed() {
+        FakeDrive broken = new FakeDrive().failNext(1, 404, "notFound");
+        DriveTarget failing = DriveTarget.client("broken", broken.drive());
+        List<DriveTarget> failures = new ArrayList<>();
+
+        long count = stream.filesAcross(List.of(small1, failing, small2),
+                FanOutOptions.defaults().skipFailedTargets((target, e) -> failures.add(target)))
+                .count();
+
+        assertEquals(30L, count);
+        assertEquals(List.of(failing), failures);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void failedTargetFailsTheStreamByDefault() {
+        FakeDrive broken = new FakeDrive().failNext(1, 404, "notFound");
+        stream.filesAcross(List.of(small1, DriveTarget.client("broken", broken.drive()), small2)).count();
+    }
+
+    @Test
+    public void noTargetMeansNoFile() {
+        assertEquals(0L, stream.filesAcross(List.of()).count());
+    }
+
+    @Test
+    public void prefetchDeepensTheLookAheadOfEachTarget() {
+        FanOutOptions inline = FanOutOptions.defaults().withParallelism(1, Runnable::run);
+
+        stream.filesAcross(List.of(huge), inline).findFirst();
+        assertEquals(3, fakeDrive.listRequests());
+
+        stream.withPrefetch(4, Runnable::run).filesAcross(List.of(huge), inline).findFirst();
+        assertEquals(3 + 5, fakeDrive.listRequests());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void streamingParserIsRejected() {
+        stream.withStreamingParser().filesAcross(List.of(small1));
+    }
+}
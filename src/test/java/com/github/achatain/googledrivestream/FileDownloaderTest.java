@@ -0,0 +1,263 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class FileDownloaderTest {
+
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeDrive fakeDrive;
+    private GoogleDriveStream stream;
+    private Path directory;
+    private DownloadOptions sequential;
+
+    @Before
+    public void setUp() {
+        fakeDrive = new FakeDrive();
+        stream = new GoogleDriveStream(fakeDrive.drive());
+        directory = temporaryFolder.getRoot().toPath();
+        sequential = DownloadOptions.defaults().withChunkSize(CHUNK_SIZE).withConcurrency(1, Runnable::run);
+    }
+
+    private File givenFile(String id, int size) {
+        File file = new File().setId(id).setName(id + ".bin");
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        fakeDrive.content(file, content);
+        return file;
+    }
+
+    private List<DownloadResult> download(DownloadOptions options, File... files) {
+        return stream.download(Stream.of(files), directory, options).collect(toList());
+    }
+
+    private void thenContentIsDownloaded(File file) throws Exception {
+        Path path = directory.resolve(file.getName());
+        assertEquals(file.getSize().longValue(), Files.size(path));
+        assertEquals(file.getMd5Checksum(), FileDownloader.md5(path));
+        assertFalse(Files.exists(directory.resolve(file.getName() + ".part")));
+        assertFalse(Files.exists(directory.resolve(file.getName() + ".part.progress")));
+    }
+
+    @Test
+    public void smallFilesAreDownloadedConcurrently() throws Exception {
+        File[] files = IntStream.range(0, 8).mapToObj(i -> givenFile("small-" + i, 1_000 + i)).toArray(File[]::new);
+
+        List<DownloadResult> results = download(DownloadOptions.defaults().withConcurrency(4), files);
+
+        assertEquals(8, results.size());
+        assertTrue(results.stream().allMatch(result -> result.status() == DownloadResult.Status.DOWNLOADED));
+        for (File file : files)
+            thenContentIsDownloaded(file);
+        assertEquals(8, fakeDrive.mediaRequests());
+    }
+
+    @Test
+    public void largeFileIsDownloadedInRangedChunks() throws Exception {
+        File file = givenFile("large", 4 * CHUNK_SIZE + 100);
+
+        DownloadResult result = download(DownloadOptions.defaults().withChunkSize(CHUNK_SIZE).withConcurrency(3), file).get(0);
+
+        assertEquals(DownloadResult.Status.DOWNLOADED, result.status());
+        assertEquals(4L * CHUNK_SIZE + 100, result.bytesTransferred());
+        assertEquals(5, fakeDrive.mediaRequests());
+        thenContentIsDownloaded(file);
+    }
+
+    @Test
+    public void matchingLocalFileIsSkipped() throws Exception {
+        File file = givenFile("present", 10_000);
+        download(sequential, file);
+
+        DownloadResult result = download(sequential, file).get(0);
+
+        assertEquals(DownloadResult.Status.SKIPPED, result.status());
+        assertEquals(1, fakeDrive.mediaRequests());
+    }
+
+    @Test
+    public void interruptedDownloadIsResumed() throws Exception {
+        File file = givenFile("interrupted", 4 * CHUNK_SIZE);
+        fakeDrive.failNext("interrupted", 1, 404, "notFound");
+
+        DownloadResult failed = download(sequential, file).get(0);
+        assertEquals(DownloadResult.Status.FAILED, failed.status());
+        assertTrue(Files.exists(directory.resolve("interrupted.bin.part.progress")));
+
+        DownloadResult resumed = download(sequential, file).get(0);
+        assertEquals(DownloadResult.Status.RESUMED, resumed.status());
+        assertEquals(CHUNK_SIZE, resumed.bytesTransferred());
+        assertEquals(5, fakeDrive.mediaRequests());
+        thenContentIsDownloaded(file);
+    }
+
+    @Test
+    public void failedChunkIsRetried() throws Exception {
+        File file = givenFile("flaky", 2 * CHUNK_SIZE);
+        fakeDrive.failNext("flaky", 2, 503, "backendError");
+        GoogleDriveStream retrying = stream.withRetryPolicy(RetryPolicy.exponentialBackOff().withSleeper(millis -> {}));
+
+        DownloadResult result = retrying.download(Stream.of(file), directory, sequential).findFirst().get();
+
+        assertEquals(DownloadResult.Status.DOWNLOADED, result.status());
+        assertEquals(4, fakeDrive.mediaRequests());
+        thenContentIsDownloaded(file);
+    }
+
+    @Test
+    public void bytesOfAbortedAttemptsAreNotCountedAsTransferred() throws Exception {
+        File file = givenFile("reset", 2 * CHUNK_SIZE);
+        fakeDrive.breakNext("reset", 1, CHUNK_SIZE / 2);
+        GoogleDriveStream retrying = stream.withRetryPolicy(RetryPolicy.exponentialBackOff().withSleeper(millis -> {}));
+
+        DownloadResult result = retrying.download(Stream.of(file), directory, sequential).findFirst().get();
+
+        assertEquals(DownloadResult.Status.DOWNLOADED, result.status());
+        assertEquals(3, fakeDrive.mediaRequests());
+        assertEquals(2L * CHUNK_SIZE, result.bytesTransferred());
+        thenContentIsDownloaded(file);
+    }
+
+    @Test
+    public void filesSharingANameAreNotSavedOverEachOther() throws Exception {
+        File first = givenFile("first", 1_000).setName("report.pdf");
+        File second = givenFile("second", 2_000).setName("report.pdf");
+
+        List<DownloadResult> results = download(sequential, first, second);
+
+        assertEquals(DownloadResult.Status.DOWNLOADED, results.get(0).status());
+        assertEquals(DownloadResult.Status.FAILED, results.get(1).status());
+        assertTrue(results.get(1).error() instanceof IllegalArgumentException);
+        assertEquals(1, fakeDrive.mediaRequests());
+        thenContentIsDownloaded(first);
+    }
+
+    @Test
+    public void filesSharingANameCanBeSavedUnderTheirIds() throws Exception {
+        File first = givenFile("first", 1_000).setName("report.pdf");
+        File second = givenFile("second", 2_000).setName("report.pdf");
+
+        download(sequential.withNaming(file -> file.getId() + "-" + file.getName()), first, second);
+
+        assertEquals(first.getMd5Checksum(), FileDownloader.md5(directory.resolve("first-report.pdf")));
+        assertEquals(second.getMd5Checksum(), FileDownloader.md5(directory.resolve("second-report.pdf")));
+    }
+
+    @Test
+    public void sameFileCanBeDownloadedTwiceByOneDownloader() {
+        File file = givenFile("twice", 1_000);
+
+        List<DownloadResult> results = download(sequential, file, file);
+
+        assertEquals(DownloadResult.Status.DOWNLOADED, results.get(0).status());
+        assertEquals(DownloadResult.Status.SKIPPED, results.get(1).status());
+    }
+
+    @Test
+    public void closedDownloaderStopsItsChunksAndKeepsThePartialFile() throws Exception {
+        File file = givenFile("closed", 4 * CHUNK_SIZE);
+        Deque<Runnable> tasks = new ArrayDeque<>();
+        DownloadOptions deferred = DownloadOptions.defaults().withChunkSize(CHUNK_SIZE).withConcurrency(4, tasks::add);
+        FileDownloader downloader = new FileDownloader(fakeDrive.drive(), ListingOptions.DEFAULT, deferred, directory);
+
+        CompletableFuture<DownloadResult> download = downloader.download(file);
+        tasks.poll().run();
+        tasks.poll().run();
+        downloader.close();
+        tasks.forEach(Runnable::run);
+
+        DownloadResult result = download.join();
+        assertEquals(DownloadResult.Status.FAILED, result.status());
+        assertTrue(result.error() instanceof CancellationException);
+        assertEquals(1, fakeDrive.mediaRequests());
+        assertFalse(Files.exists(directory.resolve("closed.bin")));
+        assertTrue(Files.exists(directory.resolve("closed.bin.part.progress")));
+
+        DownloadResult resumed = download(sequential, file).get(0);
+        assertEquals(DownloadResult.Status.RESUMED, resumed.status());
+        assertEquals(3L * CHUNK_SIZE, resumed.bytesTransferred());
+        thenContentIsDownloaded(file);
+    }
+
+    @Test
+    public void corruptedContentIsRejected() throws Exception {
+        File file = givenFile("corrupted", 1_000).setMd5Checksum("00000000000000000000000000000000");
+
+        DownloadResult result = download(sequential, file).get(0);
+
+        assertTrue(result.failed());
+        assertFalse(Files.exists(directory.resolve("corrupted.bin")));
+        assertFalse(Files.exists(directory.resolve("corrupted.bin.part")));
+    }
+
+    @Test
+    public void fileNameEscapingTheTargetDirectoryIsRejected() {
+        File file = givenFile("escaping", 10).setName("../escaping.bin");
+
+        DownloadResult result = download(sequential, file).get(0);
+
+        assertEquals(DownloadResult.Status.FAILED, result.status());
+        assertTrue(result.error() instanceof IllegalArgumentException);
+        assertEquals(0, fakeDrive.mediaRequests());
+    }
+
+    @Test
+    public void bandwidthIsThrottledPerBlock() throws Exception {
+        File file = givenFile("throttled", 4 * DownloadOptions.BLOCK_SIZE);
+        List<Long> sleeps = new ArrayList<>();
+        RateLimiter oneBlockPerSecond = new RateLimiter(1, 1, () -> 0L, sleeps::add);
+
+        download(sequential.withBandwidth(oneBlockPerSecond), file);
+
+        assertEquals(List.of(1_000L, 2_000L, 3_000L), sleeps);
+        thenContentIsDownloaded(file);
+    }
+}
@@ -0,0 +1,286 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class FilePublisherTest {
+
+    private static final long TIMEOUT_SECONDS = 10L;
+
+    private FakeDrive fakeDrive;
+    private ExecutorService executor;
+    private Flow.Publisher<File> publisher;
+
+    @Before
+    public void setUp() {
+        givenStorageOfFiles(2_500);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private void givenStorageOfFiles(int fileCount) {
+        fakeDrive = new FakeDrive().with(IntStream.range(0, fileCount)
+                .mapToObj(i -> FakeDrive.file("file-" + i, "parent"))
+                .collect(toList()));
+        publisher = null;
+    }
+
+    private Flow.Publisher<File> publisher() {
+        if (publisher == null)
+            publisher = new GoogleDriveStream(fakeDrive.drive()).filesPublisher(executor);
+        return publisher;
+    }
+
+    @Test
+    public void unboundedDemandReceivesEveryFileThenCompletes() throws Exception {
+        TestSubscriber subscriber = subscribe(Long.MAX_VALUE);
+
+        subscriber.awaitTermination();
+        assertEquals(2_500, subscriber.files.size());
+        assertEquals(1, subscriber.completions.get());
+        assertNull(subscriber.error);
+        assertEquals(3, fakeDrive.listRequests());
+    }
+
+    @Test
+    public void noPageIsFetchedWithoutDemand() throws Exception {
+        subscribe(0L);
+        Thread.sleep(100L);
+        assertEquals(0, fakeDrive.listRequests());
+    }
+
+    @Test
+    public void demandWithinFirstPageFetchesOnlyFirstPage() throws Exception {
+        TestSubscriber subscriber = subscribe(10L);
+
+        subscriber.awaitFiles(10);
+        Thread.sleep(100L);
+        assertEquals(10, subscriber.files.size());
+        assertEquals(1, fakeDrive.listRequests());
+        assertEquals(0, subscriber.completions.get());
+    }
+
+    @Test
+    public void demandBeyondFirstPageFetchesNextPage() throws Exception {
+        TestSubscriber subscriber = subscribe(1_000L);
+        subscriber.awaitFiles(1_000);
+        assertEquals(1, fakeDrive.listRequests());
+
+        subscriber.subscription.request(1L);
+        subscriber.awaitFiles(1_001);
+        assertEquals(2, fakeDrive.listRequests());
+    }
+
+    @Test
+    public void requestFromOnNextDoesNotRecurse() throws Exception {
+        TestSubscriber subscriber = new TestSubscriber(1L) {
+            @Override
+            public void onNext(File file) {
+                super.onNext(file);
+                subscription.request(1L);
+            }
+        };
+        publisher().subscribe(subscriber);
+
+        subscriber.awaitTermination();
+        assertEquals(2_500, subscriber.files.size());
+        assertEquals(1, subscriber.completions.get());
+    }
+
+    @Test
+    public void emptyStorageCompletesWithoutFile() throws Exception {
+        givenStorageOfFiles(0);
+        TestSubscriber subscriber = subscribe(1L);
+
+        subscriber.awaitTermination();
+        assertTrue(subscriber.files.isEmpty());
+        assertEquals(1, subscriber.completions.get());
+    }
+
+    @Test
+    public void nonPositiveDemandIsSignalledAsError() throws Exception {
+        TestSubscriber subscriber = subscribe(0L);
+        subscriber.subscription.request(0L);
+
+        subscriber.awaitTermination();
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertEquals(0, subscriber.completions.get());
+    }
+
+    @Test
+    public void failedPageIsSignalledAsError() throws Exception {
+        fakeDrive.failNext(1, 500, "backendError");
+        TestSubscriber subscriber = subscribe(1L);
+
+        subscriber.awaitTermination();
+        assertNotNull(subscriber.error);
+        assertTrue(subscriber.files.isEmpty());
+    }
+
+    @Test
+    public void cancelledSubscriptionStopsFetchingPages() throws Exception {
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onNext(File file) {
+                super.onNext(file);
+                if (files.size() == 5)
+                    subscription.cancel();
+            }
+        };
+        publisher().subscribe(subscriber);
+
+        subscriber.awaitFiles(5);
+        Thread.sleep(100L);
+        assertEquals(5, subscriber.files.size());
+        assertEquals(1, fakeDrive.listRequests());
+        assertEquals(0, subscriber.completions.get());
+    }
+
+    @Test
+    public void eachSubscriberListsIndependently() throws Exception {
+        TestSubscriber first = subscribe(Long.MAX_VALUE);
+        TestSubscriber second = subscribe(Long.MAX_VALUE);
+
+        first.awaitTermination();
+        second.awaitTermination();
+        assertEquals(2_500, first.files.size());
+        assertEquals(2_500, second.files.size());
+    }
+
+    @Test
+    public void manyListingsShareASmallPool() throws Exception {
+        givenStorageOfFiles(1_001);
+        List<TestSubscriber> subscribers = IntStream.range(0, 100)
+                .mapToObj(i -> subscribe(Long.MAX_VALUE))
+                .collect(toList());
+
+        for (TestSubscriber subscriber : subscribers) {
+            subscriber.awaitTermination();
+            assertEquals(1_001, subscriber.files.size());
+        }
+    }
+
+    @Test
+    public void prefetchedPagesAreFetchedAheadOfDemand() throws Exception {
+        givenStorageOfFiles(5_000);
+        publisher = new GoogleDriveStream(fakeDrive.drive()).withPrefetch(2, Runnable::run).filesPublisher(executor);
+        TestSubscriber subscriber = subscribe(10L);
+
+        subscriber.awaitFiles(10);
+        assertEquals(3, fakeDrive.listRequests());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.awaitTermination();
+        assertEquals(5_000, subscriber.files.size());
+        assertEquals(5, fakeDrive.listRequests());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void streamingParserIsRejected() {
+        new GoogleDriveStream(fakeDrive.drive()).withStreamingParser().filesPublisher(executor);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullSubscriberIsRejected() {
+        publisher().subscribe(null);
+    }
+
+    private TestSubscriber subscribe(long initialDemand) {
+        TestSubscriber subscriber = new TestSubscriber(initialDemand);
+        publisher().subscribe(subscriber);
+        return subscriber;
+    }
+
+    private static class TestSubscriber implements Flow.Subscriber<File> {
+        private final long initialDemand;
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        final List<File> files = new CopyOnWriteArrayList<>();
+        final AtomicInteger completions = new AtomicInteger();
+        volatile Throwable error;
+        volatile Flow.Subscription subscription;
+
+        TestSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription newSubscription) {
+            subscription = newSubscription;
+            if (initialDemand > 0)
+                subscription.request(initialDemand);
+        }
+
+        @Override
+        public void onNext(File file) {
+            files.add(file);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completions.incrementAndGet();
+            terminated.countDown();
+        }
+
+        void awaitTermination() throws InterruptedException {
+            assertTrue("Subscriber did not terminate", terminated.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+
+        void awaitFiles(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+            while (files.size() < count && System.nanoTime() < deadline)
+                Thread.sleep(5L);
+            assertTrue("Expected " + count + " files but got " + files.size(), files.size() >= count);
+        }
+    }
+}
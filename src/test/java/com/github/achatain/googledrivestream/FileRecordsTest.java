@@ -0,0 +1,132 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.model.File;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class FileRecordsTest {
+
+    private static final String MD5 = "d41d8cd98f00b204e9800998ecf8427e";
+
+    @Test
+    public void recordKeepsProjectedFields() {
+        FileRecord record = FileRecord.of(new File().setId("id").setName("Café").setMimeType("image/png")
+                .setSize(42L).setCreatedTime(new DateTime(1_000L)).setModifiedTime(new DateTime(2_000L))
+                .setMd5Checksum(MD5));
+
+        assertEquals("id", record.id());
+        assertEquals("Café", record.name());
+        assertEquals("image/png", record.mimeType());
+        assertEquals(42L, record.size());
+        assertEquals(1_000L, record.createdTime());
+        assertEquals(2_000L, record.modifiedTime());
+        assertEquals(MD5, record.md5Checksum());
+    }
+
+    @Test
+    public void recordOfEmptyFileHasUnknownFields() {
+        FileRecord record = FileRecord.of(new File());
+
+        assertNull(record.id());
+        assertNull(record.name());
+        assertNull(record.mimeType());
+        assertEquals(FileRecord.UNKNOWN_SIZE, record.size());
+        assertEquals(FileRecord.UNKNOWN_TIME, record.createdTime());
+        assertEquals(FileRecord.UNKNOWN_TIME, record.modifiedTime());
+        assertNull(record.md5Checksum());
+    }
+
+    @Test
+    public void recordMimeTypesAreInterned() {
+        FileRecord first = FileRecord.of(new File().setMimeType(new String("text/plain")));
+        FileRecord second = FileRecord.of(new File().setMimeType(new String("text/plain")));
+        assertSame(first.mimeType(), second.mimeType());
+    }
+
+    @Test
+    public void collectedRecordsAreColumnar() {
+        FileRecords records = records(1_000).stream().collect(FileRecords.collector());
+        thenRecordsAre(records, 1_000);
+        assertFalse(records.offHeap());
+    }
+
+    @Test
+    public void collectedRecordsCanLiveOffHeap() {
+        FileRecords records = records(1_000).stream().collect(FileRecords.offHeapCollector());
+        thenRecordsAre(records, 1_000);
+        assertTrue(records.offHeap());
+    }
+
+    @Test
+    public void parallelCollectedRecordsKeepEncounterOrder() {
+        FileRecords records = records(10_000).parallelStream().collect(FileRecords.collector());
+        thenRecordsAre(records, 10_000);
+    }
+
+    @Test
+    public void collectedRecordsCanBeStreamedBack() {
+        FileRecords records = records(100).stream().collect(FileRecords.collector());
+        assertEquals(IntStream.range(0, 100).mapToObj(i -> "file-" + i).collect(toList()),
+                records.stream().map(FileRecord::id).collect(toList()));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void recordBeyondSizeIsRejected() {
+        records(1).stream().collect(FileRecords.collector()).get(1);
+    }
+
+    private static List<FileRecord> records(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> FileRecord.of(new File().setId("file-" + i).setName("name " + i)
+                        .setMimeType(i % 2 == 0 ? "text/plain" : "image/png")
+                        .setSize((long) i)
+                        .setCreatedTime(new DateTime(i))
+                        .setMd5Checksum(i % 3 == 0 ? MD5 : null)))
+                .collect(toList());
+    }
+
+    private static void thenRecordsAre(FileRecords records, int count) {
+        assertEquals(count, records.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("file-" + i, records.id(i));
+            assertEquals("name " + i, records.name(i));
+            assertEquals(i % 2 == 0 ? "text/plain" : "image/png", records.mimeType(i));
+            assertEquals(i, records.fileSize(i));
+            assertEquals(i, records.createdTime(i));
+            assertEquals(FileRecord.UNKNOWN_TIME, records.modifiedTime(i));
+            assertEquals(i % 3 == 0 ? MD5 : null, records.md5Checksum(i));
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.Change;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static java.util.List.of;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GoogleDriveChangeSpliteratorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeDrive fakeDrive;
+    private GoogleDriveStream stream;
+    private StartPageTokenStore store;
+    private List<String> changedIds;
+
+    @Before
+    public void setUp() {
+        fakeDrive = new FakeDrive();
+        stream = new GoogleDriveStream(fakeDrive.drive());
+        store = StartPageTokenStore.inMemory();
+    }
+
+    @Test
+    public void noChangeSinceStartPageToken() {
+        String startPageToken = stream.startPageToken();
+        whenChangesAreStreamed(startPageToken);
+        thenChangedFilesAre();
+    }
+
+    @Test
+    public void changesSinceStartPageToken() {
+        fakeDrive.change(FakeDrive.file("before"));
+        String startPageToken = stream.startPageToken();
+        fakeDrive.change(FakeDrive.file("a")).change(FakeDrive.file("b")).remove("a");
+        whenChangesAreStreamed(startPageToken);
+        thenChangedFilesAre("a", "b", "a");
+    }
+
+    private void whenChangesAreStreamed(String startPageToken) {
+        changedIds = stream.changes(startPageToken).map(Change::getFileId).collect(toList());
+    }
+
+    private void thenChangedFilesAre(String... ids) {
+        assertEquals(of(ids), changedIds);
+    }
+
+    @Test
+    public void newStartPageTokenIsHandedBackOnceChangesAreConsumed() {
+        String startPageToken = stream.startPageToken();
+        fakeDrive.change(FakeDrive.file("a")).change(FakeDrive.file("b"));
+        List<String> tokens = new ArrayList<>();
+
+        assertEquals(2L, stream.changes(startPageToken, tokens::add).count());
+
+        String newStartPageToken = tokens.get(tokens.size() - 1);
+        fakeDrive.change(FakeDrive.file("c"));
+        whenChangesAreStreamed(newStartPageToken);
+        thenChangedFilesAre("c");
+    }
+
+    @Test
+    public void changesSpanningSeveralPages() {
+        String startPageToken = stream.startPageToken();
+        IntStream.range(0, 2_500).forEach(i -> fakeDrive.change(FakeDrive.file("file-" + i)));
+        assertEquals(2_500L, stream.changes(startPageToken).count());
+    }
+
+    @Test
+    public void storeResumesFromNewStartPageToken() {
+        store.save(stream.startPageToken());
+        fakeDrive.change(FakeDrive.file("a"));
+        whenChangesAreStreamedFromStore();
+        thenChangedFilesAre("a");
+
+        fakeDrive.change(FakeDrive.file("b"));
+        whenChangesAreStreamedFromStore();
+        thenChangedFilesAre("b");
+
+        whenChangesAreStreamedFromStore();
+        thenChangedFilesAre();
+    }
+
+    private void whenChangesAreStreamedFromStore() {
+        changedIds = stream.changes(store).map(Change::getFileId).collect(toList());
+    }
+
+    @Test
+    public void emptyStoreStartsFromCurrentStartPageToken() {
+        fakeDrive.change(FakeDrive.file("before"));
+        whenChangesAreStreamedFromStore();
+        thenChangedFilesAre();
+        assertEquals(Optional.of("1"), store.load());
+    }
+
+    @Test
+    public void interruptedConsumptionResumesFromLastConsumedPage() {
+        store.save(stream.startPageToken());
+        IntStream.range(0, 1_500).forEach(i -> fakeDrive.change(FakeDrive.file("file-" + i)));
+        assertEquals(1_200L, stream.changes(store).limit(1_200).count());
+        assertEquals(Optional.of("1000"), store.load());
+        assertEquals(500L, stream.changes(store).count());
+    }
+
+    @Test
+    public void fileStorePersistsStartPageToken() throws Exception {
+        Path path = temporaryFolder.getRoot().toPath().resolve("start-page-token");
+        StartPageTokenStore fileStore = StartPageTokenStore.file(path);
+        assertFalse(fileStore.load().isPresent());
+        fileStore.save("42");
+        assertEquals(Optional.of("42"), StartPageTokenStore.file(path).load());
+    }
+
+    @Test
+    public void pollingTurnsChangesIntoAnUnboundedFeed() {
+        List<Long> sleeps = new ArrayList<>();
+        String startPageToken = stream.startPageToken();
+        fakeDrive.change(FakeDrive.file("a"));
+        GoogleDriveChangeSpliterator spliterator = new GoogleDriveChangeSpliterator(fakeDrive.drive(), ListingOptions.DEFAULT,
+                startPageToken, store, Duration.ofSeconds(30), millis -> {
+            sleeps.add(millis);
+            fakeDrive.change(FakeDrive.file("polled-" + sleeps.size()));
+        });
+
+        changedIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            assertTrue(spliterator.tryAdvance(change -> changedIds.add(change.getFileId())));
+
+        thenChangedFilesAre("a", "polled-1", "polled-2");
+        assertEquals(of(30_000L, 30_000L), sleeps);
+        assertEquals(Optional.of("2"), store.load());
+    }
+}
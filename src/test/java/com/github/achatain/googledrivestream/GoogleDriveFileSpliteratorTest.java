@@ -37,14 +37,22 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.List.of;
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -183,6 +191,187 @@ public class GoogleDriveFileSpliteratorTest {
         }
     }
 
+    @Test
+    public void prefetchedStorageHasTwoPagesOfOneFileEach() {
+        givenPrefetchingSpliterator();
+        givenStorageHasTwoPagesOfOneFileEach();
+        whenFileIsConsumed();
+        thenFileConsumedIs(file1);
+        whenFileIsConsumed();
+        thenFileConsumedIs(file2);
+        thenNoFileCanBeConsumed();
+    }
+
+    private void givenPrefetchingSpliterator() {
+        spliterator = new GoogleDriveFileSpliterator(drive, ListingOptions.DEFAULT.withPrefetch(2, Runnable::run));
+    }
+
+    @Test
+    public void prefetchedNextPageIsRequestedBeforeFirstPageIsConsumed() throws Exception {
+        givenPrefetchingSpliterator();
+        givenStorageHasTwoPagesOfOneFileEach();
+        whenFileIsConsumed();
+        thenNextPageWasRequested();
+    }
+
+    private void thenNextPageWasRequested() throws Exception {
+        verify(drive.files().list().setFields(anyString()).setPageSize(anyInt()).setPageToken(pageToken)).execute();
+    }
+
+    @Test
+    public void prefetchedNextPageCanNotBeFetched() throws Exception {
+        givenPrefetchingSpliterator();
+        givenStorageHasTwoPagesOfOneFileEach();
+        givenNextPageCanNotBeFetched();
+        whenFileIsConsumed();
+        thenFilesCanNotBeConsumed(pageToken);
+    }
+
+    private void givenNextPageCanNotBeFetched() throws Exception {
+        pageToken = "next-page-token";
+        fileList1.setNextPageToken(pageToken);
+        when(subsequentFileListRequest()).thenThrow(new IOException());
+    }
+
+    private void thenFilesCanNotBeConsumed(String pageToken) {
+        try {
+            whenFileIsConsumed();
+            fail("An exception should have been thrown");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains(FILES_CAN_NOT_BE_FETCHED_ERROR));
+            assertTrue(e.getMessage().contains(pageToken));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefetchOfNoPageIsRejected() {
+        ListingOptions.DEFAULT.withPrefetch(0, Runnable::run);
+    }
+
+    @Test
+    public void streamedStorageHasSeveralPages() {
+        FakeDrive fakeDrive = givenStorageOfFiles(2_500);
+        spliterator = new GoogleDriveFileSpliterator(fakeDrive.drive(), ListingOptions.DEFAULT.withStreamingParser());
+
+        Set<String> ids = new HashSet<>();
+        spliterator.forEachRemaining(file -> assertTrue("Duplicate file " + file.getId(), ids.add(file.getId())));
+        assertEquals(2_500, ids.size());
+        assertEquals(3, fakeDrive.listRequests());
+    }
+
+    @Test
+    public void streamedPageIsDisconnectedOnceRead() {
+        FakeDrive fakeDrive = givenStorageOfFiles(2_500);
+        spliterator = new GoogleDriveFileSpliterator(fakeDrive.drive(), ListingOptions.DEFAULT.withStreamingParser());
+
+        spliterator.forEachRemaining(consumer);
+
+        assertEquals(3, fakeDrive.listRequests());
+        assertEquals(0, fakeDrive.connectedResponses());
+    }
+
+    @Test
+    public void partiallyStreamedPageIsDisconnectedOnClose() {
+        FakeDrive fakeDrive = givenStorageOfFiles(2_500);
+        spliterator = new GoogleDriveFileSpliterator(fakeDrive.drive(), ListingOptions.DEFAULT.withStreamingParser());
+
+        assertTrue(spliterator.tryAdvance(consumer));
+        assertEquals(1, fakeDrive.connectedResponses());
+
+        spliterator.close();
+        assertEquals(0, fakeDrive.connectedResponses());
+    }
+
+    @Test
+    public void streamedPageIsRetried() {
+        FakeDrive fakeDrive = givenStorageOfFiles(10).failNext(1, 503, "backendError");
+        RetryPolicy retryPolicy = RetryPolicy.exponentialBackOff().withSleeper(millis -> {});
+        spliterator = new GoogleDriveFileSpliterator(fakeDrive.drive(),
+                ListingOptions.DEFAULT.withRetryPolicy(retryPolicy).withStreamingParser());
+
+        assertTrue(spliterator.tryAdvance(consumer));
+        assertEquals(2, fakeDrive.listRequests());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void prefetchWhileStreamingIsRejected() {
+        ListingOptions.DEFAULT.withStreamingParser().withPrefetch(2, Runnable::run);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void streamingWhilePrefetchingIsRejected() {
+        ListingOptions.DEFAULT.withPrefetch(2, Runnable::run).withStreamingParser();
+    }
+
+    private static FakeDrive givenStorageOfFiles(int fileCount) {
+        Instant start = Instant.parse("2012-01-01T00:00:00Z");
+        return new FakeDrive().with(IntStream.range(0, fileCount)
+                .mapToObj(i -> FakeDrive.file("file-" + i, start.plus(Duration.ofMinutes(i))))
+                .collect(toList()));
+    }
+
+    @Test
+    public void partitionedStorageIsSplitWhenDense() {
+        givenPartitionedSpliteratorOverFiles(2_500);
+        thenSplitsPartitionFiles(2_500);
+    }
+
+    private void givenPartitionedSpliteratorOverFiles(int fileCount) {
+        spliterator = new GoogleDriveFileSpliterator(givenStorageOfFiles(fileCount).drive(), ListingOptions.DEFAULT,
+                CreatedTimeRange.unbounded(Instant.now()), 4);
+    }
+
+    private void thenSplitsPartitionFiles(int fileCount) {
+        Spliterator<File> prefix = spliterator.trySplit();
+        assertNotNull("A dense partition should have been split", prefix);
+
+        Set<String> ids = new HashSet<>();
+        prefix.forEachRemaining(file -> assertTrue("Duplicate file " + file.getId(), ids.add(file.getId())));
+        spliterator.forEachRemaining(file -> assertTrue("Duplicate file " + file.getId(), ids.add(file.getId())));
+        assertEquals(fileCount, ids.size());
+    }
+
+    @Test
+    public void partitionedStorageIsNotSplitWhenSparse() {
+        givenPartitionedSpliteratorOverFiles(10);
+        assertNull("A sparse partition should not have been split", spliterator.trySplit());
+        assertEquals(10L, spliterator.estimateSize());
+    }
+
+    @Test
+    public void splitListingsAreClosedWithTheirRoot() {
+        FakeDrive fakeDrive = givenStorageOfFiles(2_500);
+        spliterator = new GoogleDriveFileSpliterator(fakeDrive.drive(), ListingOptions.DEFAULT.withStreamingParser(),
+                CreatedTimeRange.unbounded(Instant.parse("2012-01-03T00:00:00Z")), 4);
+
+        Spliterator<File> prefix = spliterator.trySplit();
+        assertNotNull("A dense partition should have been split", prefix);
+        int probed = fakeDrive.connectedResponses();
+        assertTrue(prefix.tryAdvance(consumer));
+        assertEquals(probed + 1, fakeDrive.connectedResponses());
+
+        spliterator.close();
+        assertEquals(probed, fakeDrive.connectedResponses());
+    }
+
+    @Test
+    public void partitionBoundsAreQueriedInMilliseconds() {
+        CreatedTimeRange range = CreatedTimeRange.unbounded(Instant.parse("2018-06-01T12:00:00.123456789Z"))
+                .from(Instant.parse("2012-01-01T00:00:00Z"));
+
+        CreatedTimeRange[] halves = range.split();
+        CreatedTimeRange[] quarters = halves[1].split();
+
+        assertEquals("createdTime >= '2012-01-01T00:00:00Z' and createdTime < '2015-03-17T18:00:00.061Z'",
+                halves[0].toQuery());
+        assertFalse(quarters[0].toQuery().matches(".*\\.\\d{4,}Z.*"));
+    }
+
+    @Test
+    public void unpartitionedStorageIsNotSplit() {
+        assertNull("An unpartitioned listing should not have been split", spliterator.trySplit());
+    }
+
     private static class FileConsumerTestHelper implements Consumer<File> {
         private File file;
 
@@ -26,6 +26,7 @@
 
 package com.github.achatain.googledrivestream;
 
+import com.google.api.client.util.DateTime;
 import com.google.api.services.drive.Drive;
 import com.google.api.services.drive.model.File;
 import com.google.api.services.drive.model.FileList;
@@ -36,8 +37,23 @@ import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
 import static java.util.List.of;
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
@@ -48,6 +64,9 @@ public class GoogleDriveStreamTest {
     @Mock(answer = Answers.RETURNS_DEEP_STUBS)
     private Drive drive;
 
+    private FakeDrive fakeDrive;
+    private List<String> streamedIds;
+    private List<File> streamedFiles;
     private long count;
     private String pageToken;
 
@@ -57,6 +76,28 @@ public class GoogleDriveStreamTest {
         pageToken = "page-token";
     }
 
+    @Test
+    public void prefetchedPagesAreFetchedOnDedicatedDaemonThreads() {
+        fakeDrive = new FakeDrive().with(IntStream.range(0, 2_500)
+                .mapToObj(i -> FakeDrive.file("file-" + i))
+                .collect(toList()));
+        List<Thread> fetchers = new CopyOnWriteArrayList<>();
+        ListingListener listener = new ListingListener() {
+            @Override
+            public void pageFetched(long latencyNanos, long responseBytes, int files) {
+                fetchers.add(Thread.currentThread());
+            }
+        };
+
+        assertEquals(2_500L, new GoogleDriveStream(fakeDrive.drive()).withPrefetch(2).withListener(listener).files().count());
+
+        assertEquals(3, fetchers.size());
+        for (Thread fetcher : fetchers) {
+            assertTrue(fetcher.isDaemon());
+            assertFalse(fetcher instanceof ForkJoinWorkerThread);
+        }
+    }
+
     @Test
     public void streamOfThreeStorageFiles() throws Exception {
         givenStorageHasThreeFiles();
@@ -109,4 +150,259 @@ public class GoogleDriveStreamTest {
         assertEquals("Expected a stream of 6 files but got " + count,
                 6L, count);
     }
+
+    @Test
+    public void prefetchedStreamOfTwoPagesOfThreeStorageFilesEach() throws Exception {
+        givenStorageHasTwoPagesOfThreeFilesEach();
+        whenFilesAreStreamedWithPrefetch();
+        thenSixFilesAreStreamed();
+    }
+
+    private void whenFilesAreStreamedWithPrefetch() {
+        try (Stream<File> files = new GoogleDriveStream(drive).withPrefetch(1, Runnable::run).files()) {
+            count = files.count();
+        }
+    }
+
+    @Test
+    public void parallelStreamOfStorageFilesSpreadOverTime() {
+        givenStorageHasFilesSpreadOverTime(5_000);
+        whenFilesAreStreamedInParallel(4);
+        thenEveryFileIsStreamedExactlyOnce(5_000);
+    }
+
+    private void givenStorageHasFilesSpreadOverTime(int fileCount) {
+        Instant start = Instant.parse("2010-01-01T00:00:00Z");
+        fakeDrive = new FakeDrive().with(IntStream.range(0, fileCount)
+                .mapToObj(i -> FakeDrive.file("file-" + i, start.plus(Duration.ofHours(i * 13L))))
+                .collect(toList()));
+    }
+
+    private void whenFilesAreStreamedInParallel(int parallelism) {
+        streamedIds = new GoogleDriveStream(fakeDrive.drive()).files(parallelism)
+                .map(File::getId)
+                .collect(toList());
+    }
+
+    private void thenEveryFileIsStreamedExactlyOnce(int fileCount) {
+        assertEquals("Expected every file to be streamed once",
+                fileCount, streamedIds.size());
+        assertEquals("Expected no duplicate file",
+                fileCount, new HashSet<>(streamedIds).size());
+    }
+
+    @Test
+    public void parallelStreamOfStorageFilesCreatedAtTheSameTime() {
+        givenStorageHasFilesCreatedAtTheSameTime(2_500);
+        whenFilesAreStreamedInParallel(4);
+        thenEveryFileIsStreamedExactlyOnce(2_500);
+    }
+
+    private void givenStorageHasFilesCreatedAtTheSameTime(int fileCount) {
+        Instant createdTime = Instant.parse("2015-06-01T00:00:00Z");
+        fakeDrive = new FakeDrive().with(IntStream.range(0, fileCount)
+                .mapToObj(i -> FakeDrive.file("file-" + i, createdTime))
+                .collect(toList()));
+    }
+
+    @Test
+    public void parallelStreamOfEmptyStorage() {
+        fakeDrive = new FakeDrive();
+        whenFilesAreStreamedInParallel(4);
+        thenEveryFileIsStreamedExactlyOnce(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parallelStreamWithoutParallelismIsRejected() {
+        new GoogleDriveStream(drive).files(0);
+    }
+
+    @Test
+    public void projectedStreamTransfersOnlyProjectedFields() {
+        givenStorageHasDetailedFiles(100);
+        whenFilesAreStreamedWithProjection(Projection.of("id", "size"));
+        thenStreamedFilesOnlyHave("id", "size");
+    }
+
+    private void givenStorageHasDetailedFiles(int fileCount) {
+        fakeDrive = new FakeDrive().with(IntStream.range(0, fileCount)
+                .mapToObj(i -> FakeDrive.file("file-" + i, "parent")
+                        .setSize((long) i)
+                        .setDescription("A file described at some length to make its metadata realistic")
+                        .setMd5Checksum("d41d8cd98f00b204e9800998ecf8427e")
+                        .setCreatedTime(new DateTime(i)))
+                .collect(toList()));
+    }
+
+    private void whenFilesAreStreamedWithProjection(Projection projection) {
+        streamedFiles = new GoogleDriveStream(fakeDrive.drive()).files(projection).collect(toList());
+    }
+
+    private void thenStreamedFilesOnlyHave(String... fields) {
+        assertEquals(100, streamedFiles.size());
+        streamedFiles.forEach(file -> assertEquals(new HashSet<>(of(fields)), file.keySet()));
+    }
+
+    @Test
+    public void projectedStreamTransfersFewerBytes() {
+        givenStorageHasDetailedFiles(100);
+        long fullBytes = bytesTransferredBy(new GoogleDriveStream(fakeDrive.drive()).files());
+        long projectedBytes = bytesTransferredBy(new GoogleDriveStream(fakeDrive.drive()).files(Projection.of("id", "size")));
+        assertTrue("Expected projected listing to transfer at most a third of " + fullBytes + " bytes but got " + projectedBytes,
+                projectedBytes * 3 < fullBytes);
+    }
+
+    private long bytesTransferredBy(Stream<File> files) {
+        long before = fakeDrive.responseBytes();
+        files.forEach(file -> {
+        });
+        return fakeDrive.responseBytes() - before;
+    }
+
+    @Test
+    public void adaptivePagesServeTheFirstFileFromASmallPage() {
+        givenStorageHasDetailedFiles(2_500);
+        File first = new GoogleDriveStream(fakeDrive.drive()).withPageSizePolicy(PageSizePolicy.adaptive()).files().findFirst().get();
+
+        assertEquals("file-0", first.getId());
+        assertEquals(1, fakeDrive.listRequests());
+        assertEquals(25L, fakeDrive.filesServed());
+    }
+
+    @Test
+    public void adaptivePagesGrowWhileTheConsumerKeepsPulling() {
+        givenStorageHasDetailedFiles(2_500);
+        count = new GoogleDriveStream(fakeDrive.drive()).withPageSizePolicy(PageSizePolicy.adaptive()).files().count();
+
+        assertEquals(2_500L, count);
+        assertEquals(5, fakeDrive.listRequests());
+    }
+
+    @Test
+    public void closingAShortCircuitedPrefetchedStreamCancelsItsPrefetches() {
+        givenStorageHasDetailedFiles(2_500);
+        Deque<Runnable> deferred = new ArrayDeque<>();
+        Executor firstInline = task -> {
+            if (fakeDrive.listRequests() == 0)
+                task.run();
+            else
+                deferred.add(task);
+        };
+
+        try (Stream<File> files = new GoogleDriveStream(fakeDrive.drive())
+                .withPageSizePolicy(PageSizePolicy.fixed(100))
+                .withPrefetch(3, firstInline)
+                .files()) {
+            assertEquals("file-0", files.findFirst().get().getId());
+            assertEquals(1, deferred.size());
+        }
+        deferred.forEach(Runnable::run);
+
+        assertEquals(1, fakeDrive.listRequests());
+    }
+
+    @Test
+    public void sizeHintBoundsTheFirstPage() {
+        givenStorageHasDetailedFiles(2_500);
+        streamedIds = new GoogleDriveStream(fakeDrive.drive()).withSizeHint(10).files().limit(10).map(File::getId).collect(toList());
+
+        assertEquals(10, streamedIds.size());
+        assertEquals(1, fakeDrive.listRequests());
+        assertEquals(10L, fakeDrive.filesServed());
+    }
+
+    @Test
+    public void sizeHintDoesNotTruncateTheListing() {
+        givenStorageHasDetailedFiles(2_500);
+        count = new GoogleDriveStream(fakeDrive.drive()).withSizeHint(10).files().count();
+
+        assertEquals(2_500L, count);
+        assertEquals(4, fakeDrive.listRequests());
+    }
+
+    @Test
+    public void recordStreamKeepsRecordFields() {
+        givenStorageHasDetailedFiles(100);
+        List<FileRecord> records = new GoogleDriveStream(fakeDrive.drive()).records().collect(toList());
+
+        assertEquals(100, records.size());
+        FileRecord record = records.stream().filter(candidate -> candidate.id().equals("file-7")).findFirst().get();
+        assertEquals(7L, record.size());
+        assertEquals(7L, record.createdTime());
+        assertEquals("text/plain", record.mimeType());
+        assertEquals("d41d8cd98f00b204e9800998ecf8427e", record.md5Checksum());
+    }
+
+    @Test
+    public void parallelRecordStreamIsCollectedIntoColumns() {
+        givenStorageHasDetailedFiles(2_500);
+        FileRecords records = new GoogleDriveStream(fakeDrive.drive()).records(4).collect(FileRecords.collector());
+
+        assertEquals(2_500, records.size());
+        assertEquals(2_500L, records.stream().map(FileRecord::id).distinct().count());
+    }
+
+    @Test
+    public void projectedParallelStreamStillPartitionsOnCreatedTime() {
+        givenStorageHasDetailedFiles(2_500);
+        streamedIds = new GoogleDriveStream(fakeDrive.drive()).withProjection(Projection.of("id")).files(4)
+                .map(File::getId)
+                .collect(toList());
+        thenEveryFileIsStreamedExactlyOnce(2_500);
+    }
+
+    @Test
+    public void queriedStreamIsFilteredByGoogleDriveAndThenLocally() {
+        givenStorageHasImagesAndDocuments(100);
+        whenFilesAreStreamedWithQuery(Query.mimeType("image/png").and(Query.notTrashed()).and(Query.largerThan(50L)));
+        thenStreamedFilesAre(12);
+        thenFilesTransferredAre(25);
+    }
+
+    @Test
+    public void projectedQueriedStreamStillReceivesTheSizesItFiltersOn() {
+        givenStorageHasImagesAndDocuments(100);
+        streamedFiles = new GoogleDriveStream(fakeDrive.drive())
+                .withProjection(Projection.of("id", "mimeType"))
+                .files(Query.mimeType("image/png").and(Query.largerThan(50L)))
+                .collect(toList());
+        assertEquals(24, streamedFiles.size());
+    }
+
+    private void givenStorageHasImagesAndDocuments(int fileCount) {
+        fakeDrive = new FakeDrive().with(IntStream.range(0, fileCount)
+                .mapToObj(i -> FakeDrive.file("file-" + i, "parent")
+                        .setMimeType(i % 2 == 0 ? "image/png" : "application/pdf")
+                        .setTrashed(i % 4 == 0)
+                        .setSize((long) i)
+                        .setCreatedTime(new DateTime(i * 60_000L)))
+                .collect(toList()));
+    }
+
+    private void whenFilesAreStreamedWithQuery(Query query) {
+        streamedFiles = new GoogleDriveStream(fakeDrive.drive()).files(query).collect(toList());
+    }
+
+    private void thenStreamedFilesAre(int fileCount) {
+        assertEquals(fileCount, streamedFiles.size());
+        streamedFiles.forEach(file -> {
+            assertEquals("image/png", file.getMimeType());
+            assertFalse(file.getTrashed());
+            assertTrue(file.getSize() > 50L);
+        });
+    }
+
+    private void thenFilesTransferredAre(long fileCount) {
+        assertEquals(fileCount, fakeDrive.filesServed());
+    }
+
+    @Test
+    public void queriedParallelStreamIsFilteredByGoogleDriveAndThenLocally() {
+        givenStorageHasImagesAndDocuments(4_000);
+        streamedFiles = new GoogleDriveStream(fakeDrive.drive())
+                .files(Query.mimeType("image/png").and(Query.notTrashed()).and(Query.largerThan(50L)), 4)
+                .collect(toList());
+        assertEquals(987, streamedFiles.size());
+        assertEquals(987, streamedFiles.stream().map(File::getId).distinct().count());
+    }
 }
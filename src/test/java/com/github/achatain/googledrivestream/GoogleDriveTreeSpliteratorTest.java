@@ -0,0 +1,141 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.github.achatain.googledrivestream.FakeDrive.file;
+import static com.github.achatain.googledrivestream.FakeDrive.folder;
+import static java.util.List.of;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GoogleDriveTreeSpliteratorTest {
+
+    private static final String ROOT = "root";
+
+    private FakeDrive fakeDrive;
+    private List<String> streamedIds;
+
+    @Before
+    public void setUp() {
+        fakeDrive = new FakeDrive();
+    }
+
+    @Test
+    public void emptyFolder() {
+        whenTreeIsStreamed(false);
+        thenStreamedFilesAre();
+    }
+
+    @Test
+    public void nestedFolders() {
+        givenNestedFolders();
+        whenTreeIsStreamed(false);
+        thenStreamedFilesAre("a", "a1", "a2", "b", "b1", "b2", "f1");
+    }
+
+    private void givenNestedFolders() {
+        fakeDrive.with(of(
+                folder("a", ROOT), folder("b", ROOT), file("f1", ROOT),
+                file("a1", "a"), folder("a2", "a"),
+                file("b1", "b"), file("b2", "a2"),
+                folder("elsewhere", "other-root"), file("e1", "elsewhere")));
+    }
+
+    @Test
+    public void fileWithMultipleParentsIsStreamedOnce() {
+        givenFileWithMultipleParents();
+        whenTreeIsStreamed(false);
+        thenStreamedFilesAre("a", "b", "shared");
+    }
+
+    private void givenFileWithMultipleParents() {
+        fakeDrive.with(of(folder("a", ROOT), folder("b", ROOT), file("shared", "a", "b")));
+    }
+
+    @Test
+    public void cyclicFoldersAreWalkedOnce() {
+        givenCyclicFolders();
+        whenTreeIsStreamed(false);
+        thenStreamedFilesAre("a", "b", "b1");
+    }
+
+    private void givenCyclicFolders() {
+        fakeDrive.with(of(folder("a", ROOT, "b"), folder("b", "a"), file("b1", "b"), folder(ROOT, "b")));
+    }
+
+    @Test
+    public void wideAndDeepTreeIsWalkedInParallel() {
+        Set<String> expectedIds = givenWideAndDeepTree();
+        whenTreeIsStreamed(true);
+        thenStreamedFilesAre(expectedIds.toArray(new String[0]));
+    }
+
+    private Set<String> givenWideAndDeepTree() {
+        Set<String> ids = new HashSet<>();
+        IntStream.range(0, 20).forEach(i -> {
+            String parent = ROOT;
+            for (int depth = 0; depth < 5; depth++) {
+                String folderId = "folder-" + i + "-" + depth;
+                fakeDrive.with(of(folder(folderId, parent), file("file-" + i + "-" + depth, folderId, ROOT)));
+                ids.add(folderId);
+                ids.add("file-" + i + "-" + depth);
+                parent = folderId;
+            }
+        });
+        return ids;
+    }
+
+    @Test
+    public void singleFolderCanNotBeSplitOnceExhausted() {
+        GoogleDriveTreeSpliterator spliterator = new GoogleDriveTreeSpliterator(fakeDrive.drive(), ListingOptions.DEFAULT, ROOT);
+        assertNull("An empty folder should not have been split", spliterator.trySplit());
+        assertEquals(0L, spliterator.estimateSize());
+    }
+
+    private void whenTreeIsStreamed(boolean parallel) {
+        Stream<File> tree = new GoogleDriveStream(fakeDrive.drive()).tree(ROOT);
+        streamedIds = (parallel ? tree.parallel() : tree).map(File::getId).collect(toList());
+    }
+
+    private void thenStreamedFilesAre(String... ids) {
+        assertEquals("Unexpected files were streamed",
+                new HashSet<>(of(ids)), new HashSet<>(streamedIds));
+        assertEquals("Files were streamed more than once",
+                ids.length, streamedIds.size());
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class ListingMetricsTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private FakeDrive fakeDrive;
+    private ListingMetrics metrics;
+
+    @Before
+    public void setUp() {
+        fakeDrive = new FakeDrive().with(IntStream.range(0, 2_500)
+                .mapToObj(i -> FakeDrive.file("file-" + i, "root"))
+                .collect(toList()));
+        metrics = new ListingMetrics(null);
+    }
+
+    @Test
+    public void everyPageIsReported() {
+        long count = new GoogleDriveStream(fakeDrive.drive()).withListener(metrics).files().count();
+
+        assertEquals(2_500L, count);
+        assertEquals(3L, metrics.getPages());
+        assertEquals(2_500L, metrics.getFiles());
+        assertEquals(fakeDrive.responseBytes(), metrics.getResponseBytes());
+        assertEquals(1_000, metrics.getMaxBufferedFiles());
+        assertEquals(500, metrics.getBufferedFiles());
+        assertTrue(metrics.getMaxPageLatencyMillis() > 0.0);
+    }
+
+    @Test
+    public void streamedPagesAreReported() {
+        long count = new GoogleDriveStream(fakeDrive.drive()).withStreamingParser().withListener(metrics).files().count();
+
+        assertEquals(2_500L, count);
+        assertEquals(3L, metrics.getPages());
+        assertEquals(2_500L, metrics.getFiles());
+        assertEquals(fakeDrive.responseBytes(), metrics.getResponseBytes());
+    }
+
+    @Test
+    public void prefetchedPagesAreReported() {
+        long count = new GoogleDriveStream(fakeDrive.drive()).withPrefetch(2).withListener(metrics).files().count();
+
+        assertEquals(2_500L, count);
+        assertEquals(3L, metrics.getPages());
+        assertEquals(2_500L, metrics.getFiles());
+    }
+
+    @Test
+    public void retriesAreReported() {
+        fakeDrive.failNext(2, 503, "backendError");
+
+        long count = new GoogleDriveStream(fakeDrive.drive())
+                .withRetryPolicy(RetryPolicy.exponentialBackOff().withSleeper(millis -> {
+                }))
+                .withListener(metrics)
+                .files()
+                .count();
+
+        assertEquals(2_500L, count);
+        assertEquals(2L, metrics.getRetries());
+        assertEquals(3L, metrics.getPages());
+    }
+
+    @Test
+    public void throttlingIsReported() {
+        long[] now = {0L};
+        RateLimiter rateLimiter = new RateLimiter(10, 1, () -> now[0], millis -> now[0] += TimeUnit.MILLISECONDS.toNanos(millis));
+
+        new GoogleDriveStream(fakeDrive.drive()).withRateLimiter(rateLimiter).withListener(metrics).files().count();
+
+        assertEquals(200L, metrics.getThrottledMillis());
+    }
+
+    @Test
+    public void consumerStallsAreReportedOncePerPage() {
+        AtomicInteger stalls = new AtomicInteger();
+        new GoogleDriveStream(fakeDrive.drive()).withListener(new ListingListener() {
+            @Override
+            public void stalled(long stallNanos) {
+                stalls.incrementAndGet();
+            }
+        }).files().count();
+
+        assertEquals(3, stalls.get());
+    }
+
+    @Test
+    public void latencyPercentilesComeFromTheHistogram() {
+        for (int i = 0; i < 90; i++)
+            metrics.pageFetched(3 * MILLIS, 100L, 10);
+        for (int i = 0; i < 9; i++)
+            metrics.pageFetched(40 * MILLIS, 100L, 10);
+        metrics.pageFetched(900 * MILLIS, 100L, 10);
+
+        assertEquals(4.096, metrics.getPageLatency50thPercentileMillis(), 0.0);
+        assertEquals(4.096, metrics.getPageLatency90thPercentileMillis(), 0.0);
+        assertEquals(65.536, metrics.getPageLatency99thPercentileMillis(), 0.0);
+        assertEquals(900.0, metrics.getMaxPageLatencyMillis(), 0.0);
+        assertEquals(15.3, metrics.getMeanPageLatencyMillis(), 1e-9);
+        assertEquals(100L, metrics.getPages());
+        assertEquals(1_000L, metrics.getFiles());
+        assertEquals(10_000L, metrics.getResponseBytes());
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        metrics.pageFetched(3 * MILLIS, 100L, 10);
+        metrics.retried(1, 500L);
+        metrics.buffered(10);
+
+        metrics.reset();
+
+        assertEquals(0L, metrics.getPages());
+        assertEquals(0L, metrics.getRetries());
+        assertEquals(0, metrics.getMaxBufferedFiles());
+        assertEquals(0.0, metrics.getPageLatency99thPercentileMillis(), 0.0);
+        assertEquals(0.0, metrics.getMeanPageLatencyMillis(), 0.0);
+    }
+
+    @Test
+    public void registeredMetricsAreExposedThroughJmx() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try (ListingMetrics registered = ListingMetrics.register("listing-metrics-test")) {
+            new GoogleDriveStream(fakeDrive.drive()).withListener(registered).files().count();
+
+            assertEquals(3L, server.getAttribute(registered.objectName(), "Pages"));
+            assertEquals(2_500L, server.getAttribute(registered.objectName(), "Files"));
+            assertTrue(server.isRegistered(registered.objectName()));
+            registered.close();
+            assertFalse(server.isRegistered(registered.objectName()));
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void sameNameCanNotBeRegisteredTwice() {
+        try (ListingMetrics ignored = ListingMetrics.register("listing-metrics-twice")) {
+            ListingMetrics.register("listing-metrics-twice");
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.github.achatain.googledrivestream.FakeDrive.file;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MetadataCacheTest {
+
+    private static final Duration MAX_STALENESS = Duration.ofMinutes(10);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeDrive fakeDrive;
+    private GoogleDriveStream stream;
+    private Path directory;
+    private Instant now;
+    private MetadataCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        fakeDrive = new FakeDrive().with(IntStream.range(0, 1_500)
+                .mapToObj(i -> file("file-" + i, "parent-" + i % 3))
+                .collect(toList()));
+        stream = new GoogleDriveStream(fakeDrive.drive());
+        directory = temporaryFolder.getRoot().toPath();
+        now = Instant.parse("2018-06-01T00:00:00Z");
+        cache = open(Long.MAX_VALUE);
+    }
+
+    private MetadataCache open(long maxBytes) throws Exception {
+        return new MetadataCache(directory, maxBytes, new Clock() {
+            @Override
+            public ZoneOffset getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        cache.close();
+    }
+
+    @Test
+    public void firstListingFillsTheCache() {
+        assertEquals(1_500, idsOf(stream.cached(cache, MAX_STALENESS)).size());
+        assertEquals(1_500, cache.size());
+        assertEquals(2, fakeDrive.listRequests());
+    }
+
+    @Test
+    public void freshCacheServesListingsWithoutTheNetwork() {
+        stream.cached(cache, MAX_STALENESS).count();
+        int requests = fakeDrive.listRequests();
+        now = now.plus(MAX_STALENESS);
+        assertEquals(1_500, idsOf(stream.cached(cache, MAX_STALENESS)).size());
+        assertEquals(requests, fakeDrive.listRequests());
+    }
+
+    @Test
+    public void staleCacheIsUpdatedFromChanges() {
+        stream.cached(cache, MAX_STALENESS).count();
+        fakeDrive.change(file("new-file", "parent-0")).remove("file-0").change(file("file-1", "parent-2"));
+        now = now.plus(MAX_STALENESS).plusSeconds(1);
+
+        Set<String> ids = idsOf(stream.cached(cache, MAX_STALENESS));
+        assertEquals(1_500, ids.size());
+        assertTrue(ids.contains("new-file"));
+        assertFalse(ids.contains("file-0"));
+        assertEquals(2, fakeDrive.listRequests());
+        assertEquals(now, cache.syncedAt().get());
+    }
+
+    @Test
+    public void cacheIsIndexedByIdAndParent() {
+        stream.cached(cache, MAX_STALENESS).count();
+        fakeDrive.change(file("file-1", "parent-2"));
+        now = now.plus(MAX_STALENESS).plusSeconds(1);
+        stream.cached(cache, MAX_STALENESS).count();
+
+        assertEquals("file-42", cache.get("file-42").get().getId());
+        assertFalse(cache.get("unknown").isPresent());
+        assertEquals(499L, cache.children("parent-1").count());
+        assertEquals(501L, cache.children("parent-2").count());
+        assertTrue(idsOf(cache.children("parent-2")).contains("file-1"));
+    }
+
+    @Test
+    public void reopenedCacheIsServedFromMappedSegments() throws Exception {
+        stream.cached(cache, MAX_STALENESS).count();
+        fakeDrive.remove("file-7");
+        now = now.plus(MAX_STALENESS).plusSeconds(1);
+        stream.cached(cache, MAX_STALENESS).count();
+        cache.close();
+
+        cache = open(Long.MAX_VALUE);
+        int requests = fakeDrive.listRequests();
+        assertEquals(1_499, idsOf(stream.cached(cache, MAX_STALENESS)).size());
+        assertEquals(requests, fakeDrive.listRequests());
+        assertEquals(500L, cache.children("parent-0").count());
+        assertFalse(cache.get("file-7").isPresent());
+    }
+
+    @Test
+    public void cacheIsCompactedOnceMostRecordsAreObsolete() throws Exception {
+        stream.cached(cache, MAX_STALENESS).count();
+        IntStream.range(0, 1_500).forEach(i -> fakeDrive.change(file("file-" + i, "parent-0")));
+        now = now.plus(MAX_STALENESS).plusSeconds(1);
+        stream.cached(cache, MAX_STALENESS).count();
+        cache.close();
+
+        assertEquals(1L, Files.list(directory).filter(path -> path.toString().endsWith(".seg")).count());
+        cache = open(Long.MAX_VALUE);
+        assertEquals(1_500L, cache.children("parent-0").count());
+    }
+
+    @Test
+    public void cacheTooLargeForItsBoundIsBypassed() throws Exception {
+        cache.close();
+        cache = open(10_000L);
+        assertEquals(1_500, idsOf(stream.cached(cache, MAX_STALENESS)).size());
+        assertEquals(0, cache.size());
+        assertFalse(cache.syncedAt().isPresent());
+    }
+
+    @Test
+    public void driveOverTheBoundIsListedOnceUntilStale() throws Exception {
+        cache.close();
+        cache = open(10_000L);
+        stream.cached(cache, MAX_STALENESS).count();
+        int requests = fakeDrive.listRequests();
+
+        assertEquals(1_500, idsOf(stream.cached(cache, MAX_STALENESS)).size());
+        assertEquals(requests + 2, fakeDrive.listRequests());
+        assertEquals(0, cache.size());
+
+        cache.close();
+        cache = open(Long.MAX_VALUE);
+        stream.cached(cache, MAX_STALENESS).count();
+        assertEquals(1_500, cache.size());
+    }
+
+    @Test
+    public void listedFilesSurviveACompactionBeforeBeingConsumed() {
+        stream.cached(cache, MAX_STALENESS).count();
+        Stream<File> files = cache.files();
+        Stream<File> children = cache.children("parent-0");
+        IntStream.range(0, 1_500).forEach(i -> fakeDrive.change(file("file-" + i, "parent-1")));
+        now = now.plus(MAX_STALENESS).plusSeconds(1);
+        stream.cached(cache, MAX_STALENESS).count();
+
+        assertEquals(1_500, idsOf(files).size());
+        assertEquals(500, idsOf(children).size());
+    }
+
+    @Test
+    public void compactedSegmentIsDeletedOnceItsLastStreamIsClosed() {
+        stream.cached(cache, MAX_STALENESS).count();
+        Path first = directory.resolve("segment-00000001.seg");
+        Stream<File> files = cache.files();
+        Stream<File> children = cache.children("parent-0");
+        IntStream.range(0, 1_500).forEach(i -> fakeDrive.change(file("file-" + i, "parent-1")));
+        now = now.plus(MAX_STALENESS).plusSeconds(1);
+        stream.cached(cache, MAX_STALENESS).count();
+
+        assertTrue(Files.exists(first));
+        files.limit(10).forEach(file -> {});
+        files.close();
+        assertTrue(Files.exists(first));
+        assertEquals(500, idsOf(children).size());
+        assertFalse(Files.exists(first));
+    }
+
+    @Test
+    public void segmentsRetiredWhileStreamedAreDeletedOnReopen() throws Exception {
+        stream.cached(cache, MAX_STALENESS).count();
+        Stream<File> files = cache.files();
+        IntStream.range(0, 1_500).forEach(i -> fakeDrive.change(file("file-" + i, "parent-1")));
+        now = now.plus(MAX_STALENESS).plusSeconds(1);
+        stream.cached(cache, MAX_STALENESS).count();
+        cache.close();
+
+        cache = open(Long.MAX_VALUE);
+
+        assertFalse(Files.exists(directory.resolve("segment-00000001.seg")));
+        assertEquals(1_500, cache.size());
+        assertEquals(1_500, idsOf(cache.children("parent-1")).size());
+        assertEquals(1_500, idsOf(files).size());
+    }
+
+    @Test
+    public void tornRecordAtTheEndOfASegmentIsTruncated() throws Exception {
+        stream.cached(cache, MAX_STALENESS).count();
+        cache.close();
+        Path segment = Files.list(directory).filter(path -> path.toString().endsWith(".seg")).sorted().reduce((first, second) -> second).get();
+        long intact = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 1, 0, 1, 0, 7, 'f', 'i'}, StandardOpenOption.APPEND);
+
+        cache = open(Long.MAX_VALUE);
+
+        assertEquals(1_500, cache.size());
+        assertEquals(intact, Files.size(segment));
+        fakeDrive.change(file("new-file", "parent-0"));
+        now = now.plus(MAX_STALENESS).plusSeconds(1);
+        assertEquals(1_501, idsOf(stream.cached(cache, MAX_STALENESS)).size());
+    }
+
+    private static Set<String> idsOf(Stream<File> files) {
+        return files.map(File::getId).collect(toSet());
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.*;
+
+public class MutationSpliteratorTest {
+
+    private FakeDrive fakeDrive;
+    private GoogleDriveStream stream;
+
+    @Before
+    public void setUp() {
+        fakeDrive = new FakeDrive().with(IntStream.range(0, 250)
+                .mapToObj(i -> FakeDrive.file("file-" + i, "inbox"))
+                .collect(toList()));
+        stream = new GoogleDriveStream(fakeDrive.drive());
+    }
+
+    private Stream<File> listed(int count) {
+        return IntStream.range(0, count).mapToObj(i -> FakeDrive.file("file-" + i, "inbox"));
+    }
+
+    @Test
+    public void mutationsAreAppliedInBatchesOfOneHundredCalls() {
+        List<MutationResult> results = stream.apply(listed(250), file -> Mutation.trash()).collect(toList());
+
+        assertEquals(250, results.size());
+        assertTrue(results.stream().allMatch(result -> result.status() == MutationResult.Status.APPLIED));
+        assertEquals(3, fakeDrive.batchRequests());
+        assertEquals(250, fakeDrive.batchedCalls());
+        assertTrue(fakeDrive.get("file-42").getTrashed());
+        assertTrue(results.get(0).updated().getTrashed());
+    }
+
+    @Test
+    public void deletedFilesAreRemoved() {
+        List<MutationResult> results = stream.apply(listed(3), file -> Mutation.delete()).collect(toList());
+
+        assertTrue(results.stream().allMatch(result -> result.status() == MutationResult.Status.APPLIED));
+        assertNull(results.get(0).updated());
+        assertNull(fakeDrive.get("file-1"));
+        assertNotNull(fakeDrive.get("file-3"));
+    }
+
+    @Test
+    public void moveReplacesTheListedParents() {
+        stream.apply(listed(2), file -> Mutation.moveTo("archive")).forEach(result -> {});
+
+        assertEquals(List.of("archive"), fakeDrive.get("file-0").getParents());
+        assertEquals(List.of("inbox"), fakeDrive.get("file-2").getParents());
+    }
+
+    @Test
+    public void moveOfAFileListedWithoutParentsFailsOnlyThatFile() {
+        List<MutationResult> results = stream.apply(Stream.of(new File().setId("file-0"), FakeDrive.file("file-1", "inbox")),
+                file -> Mutation.moveTo("archive")).collect(toList());
+
+        assertEquals(MutationResult.Status.FAILED, results.get(0).status());
+        assertEquals(400, results.get(0).error().getCode());
+        assertEquals(MutationResult.Status.APPLIED, results.get(1).status());
+        assertEquals(List.of("inbox"), fakeDrive.get("file-0").getParents());
+        assertEquals(1, fakeDrive.batchedCalls());
+    }
+
+    @Test
+    public void dryRunReportsMovesThatCannotBeApplied() {
+        List<MutationResult> results = stream.apply(Stream.of(new File().setId("file-0")), file -> Mutation.moveTo("archive"),
+                MutationOptions.defaults().dryRun()).collect(toList());
+
+        assertTrue(results.get(0).failed());
+        assertEquals(0, fakeDrive.batchRequests());
+    }
+
+    @Test
+    public void successiveMovesOfTheSameFileStartFromItsLatestParents() {
+        stream.apply(Stream.of("archive", "attic").map(folder -> FakeDrive.file("file-0", "inbox").setDescription(folder)),
+                file -> Mutation.moveTo(file.getDescription())).forEach(result -> {});
+
+        assertEquals(List.of("attic"), fakeDrive.get("file-0").getParents());
+    }
+
+    @Test
+    public void dryRunReportsMutationsWithoutSendingThem() {
+        List<MutationResult> results = stream.apply(listed(10), file -> Mutation.delete(), MutationOptions.defaults().dryRun())
+                .collect(toList());
+
+        assertEquals(10, results.size());
+        assertTrue(results.stream().allMatch(result -> result.status() == MutationResult.Status.DRY_RUN));
+        assertEquals(0, fakeDrive.batchRequests());
+        assertNotNull(fakeDrive.get("file-0"));
+    }
+
+    @Test
+    public void filesWithoutMutationAreSkipped() {
+        List<MutationResult> results = stream.apply(listed(10), file -> file.getId().endsWith("3") ? Mutation.trash() : null)
+                .collect(toList());
+
+        assertEquals(10, results.size());
+        assertEquals(9L, results.stream().filter(result -> result.status() == MutationResult.Status.SKIPPED).count());
+        assertEquals(1, fakeDrive.batchedCalls());
+    }
+
+    @Test
+    public void mutationsOfTheSameFileAreAppliedInStreamOrder() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Stream<File> files = Stream.of("a", "b", "c").flatMap(name -> listed(20).map(file -> file.setName(name)));
+            List<MutationResult> results = stream.apply(files, file -> Mutation.rename(file.getName()),
+                    MutationOptions.defaults().withBatchSize(5).withConcurrency(4, executor)).collect(toList());
+
+            assertEquals(60, results.size());
+            assertTrue(IntStream.range(0, 20).allMatch(i -> "c".equals(fakeDrive.get("file-" + i).getName())));
+            List<String> renames = results.stream()
+                    .filter(result -> result.file().getId().equals("file-7"))
+                    .map(result -> result.updated().getName())
+                    .collect(toList());
+            assertEquals(List.of("a", "b", "c"), renames);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void mutationsOfTheSameFileNeverShareABatch() {
+        stream.apply(Stream.of("a", "b", "c").map(name -> FakeDrive.file("file-0").setName(name)),
+                file -> Mutation.rename(file.getName())).forEach(result -> {});
+
+        assertEquals(3, fakeDrive.batchRequests());
+        assertEquals("c", fakeDrive.get("file-0").getName());
+    }
+
+    @Test
+    public void concurrencyIsHalvedOnQuotaErrors() {
+        fakeDrive.failNext("file-3", 1, 403, "userRateLimitExceeded");
+        MutationSpliterator spliterator = trashing(4);
+
+        List<MutationResult> results = new ArrayList<>();
+        spliterator.forEachRemaining(results::add);
+
+        assertEquals(4, results.size());
+        assertTrue(results.stream().noneMatch(MutationResult::failed));
+        assertEquals(2, spliterator.concurrency());
+    }
+
+    @Test
+    public void concurrencyIsHalvedWhenAWholeBatchIsThrottled() {
+        fakeDrive.failNextBatch(1, 429, "rateLimitExceeded");
+        MutationSpliterator spliterator = trashing(1);
+
+        spliterator.forEachRemaining(result -> assertFalse(result.failed()));
+
+        assertEquals(2, spliterator.concurrency());
+    }
+
+    @Test
+    public void concurrencyIsKeptWhenAWholeBatchFailsForAnotherReason() {
+        fakeDrive.failNextBatch(1, 503, "backendError");
+        MutationSpliterator spliterator = trashing(1);
+
+        spliterator.forEachRemaining(result -> assertFalse(result.failed()));
+
+        assertEquals(4, spliterator.concurrency());
+        assertEquals(2, fakeDrive.batchRequests());
+    }
+
+    private MutationSpliterator trashing(int fileCount) {
+        RetryPolicy retryPolicy = RetryPolicy.exponentialBackOff().withSleeper(millis -> {});
+        MutationOptions options = MutationOptions.defaults().withBatchSize(1).withConcurrency(4, Runnable::run).withRetryPolicy(retryPolicy);
+        return new MutationSpliterator(listed(fileCount).iterator(), file -> Mutation.trash(),
+                new BatchMutator(fakeDrive.drive(), ListingOptions.DEFAULT, options.retryPolicy()), options);
+    }
+
+    @Test
+    public void mutationsAreRetriedByDefault() {
+        assertTrue(MutationOptions.defaults().retryPolicy().maxAttempts() > 1);
+    }
+
+    @Test
+    public void permanentlyFailedMutationIsReported() {
+        fakeDrive.failNext("file-3", 1, 404, "notFound");
+
+        List<MutationResult> results = stream.apply(listed(5), file -> Mutation.trash()).collect(toList());
+
+        assertEquals(1L, results.stream().filter(MutationResult::failed).count());
+        assertEquals(404, results.stream().filter(MutationResult::failed).findFirst().get().error().getCode());
+        assertEquals(listed(5).map(File::getId).collect(toSet()), results.stream().map(result -> result.file().getId()).collect(toSet()));
+    }
+}
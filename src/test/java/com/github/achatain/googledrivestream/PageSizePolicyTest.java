@@ -0,0 +1,67 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.List.of;
+import static org.junit.Assert.assertEquals;
+
+public class PageSizePolicyTest {
+
+    private static List<Integer> sizes(PageSizePolicy policy, int pages) {
+        List<Integer> sizes = new ArrayList<>();
+        int pageSize = 0;
+        for (int i = 0; i < pages; i++)
+            sizes.add(pageSize = policy.next(pageSize));
+        return sizes;
+    }
+
+    @Test
+    public void fixedPolicyNeverChanges() {
+        assertEquals(of(250, 250, 250), sizes(PageSizePolicy.fixed(250), 3));
+    }
+
+    @Test
+    public void adaptivePolicyGrowsGeometricallyUpToTheMaximum() {
+        assertEquals(of(25, 100, 400, 1000, 1000), sizes(PageSizePolicy.adaptive(), 5));
+        assertEquals(of(10, 15, 23, 35), sizes(PageSizePolicy.adaptive(10, 1.5), 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pageSizeAboveTheMaximumIsRejected() {
+        PageSizePolicy.fixed(PageSizePolicy.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shrinkingPolicyIsRejected() {
+        PageSizePolicy.adaptive(100, 0.5);
+    }
+}
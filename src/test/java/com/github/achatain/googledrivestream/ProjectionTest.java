@@ -0,0 +1,67 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ProjectionTest {
+
+    @Test
+    public void projectionOfFileFields() {
+        assertEquals("nextPageToken,incompleteSearch,files(id,name,size,md5Checksum)",
+                Projection.of("id", "name", "size", "md5Checksum").toPageFields());
+    }
+
+    @Test
+    public void projectionOfNestedFileFields() {
+        assertEquals("nextPageToken,incompleteSearch,files(id,owners/emailAddress,capabilities(canEdit))",
+                Projection.of("id", "owners/emailAddress", "capabilities(canEdit)").toPageFields());
+    }
+
+    @Test
+    public void projectionWithRequiredFieldsKeepsFieldsOnce() {
+        assertEquals("id,name,mimeType",
+                Projection.of("id", "name").with("id", "mimeType").toFileFields());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void projectionOfUnknownFieldIsRejected() {
+        Projection.of("id", "sizeInBytes");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void projectionOfNoFieldIsRejected() {
+        Projection.of();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void projectionOfNullFieldIsRejected() {
+        Projection.of("id", null);
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.services.drive.model.File;
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QueryTest {
+
+    @Test
+    public void serverSideQueriesAreCombined() {
+        Query query = Query.mimeType("image/png")
+                .and(Query.modifiedAfter(Instant.parse("2018-06-01T10:15:30Z")))
+                .and(Query.notTrashed());
+        assertEquals("mimeType = 'image/png' and modifiedTime > '2018-06-01T10:15:30.000Z' and trashed = false",
+                query.toQ());
+        assertTrue(query.residual().test(new File()));
+    }
+
+    @Test
+    public void serverSideQueriesAreEitherCombined() {
+        Query query = Query.mimeType("image/png").or(Query.mimeType("image/jpeg")).and(Query.inFolder("folder-id"));
+        assertEquals("(mimeType = 'image/png' or mimeType = 'image/jpeg') and 'folder-id' in parents",
+                query.toQ());
+    }
+
+    @Test
+    public void queryOperandsAreEscaped() {
+        assertEquals("name = 'John\\'s \\\\ notes'",
+                Query.nameIs("John's \\ notes").toQ());
+    }
+
+    @Test
+    public void clientSideQueryFallsBackToResidualFilter() {
+        Query query = Query.notTrashed().and(Query.largerThan(4096L));
+        assertEquals("trashed = false", query.toQ());
+        assertTrue(query.residual().test(new File().setSize(8192L)));
+        assertFalse(query.residual().test(new File().setSize(1024L)));
+        assertFalse(query.residual().test(new File()));
+    }
+
+    @Test
+    public void clientSideOnlyQueryHasNoServerSideQuery() {
+        Query query = Query.where(file -> file.getName().startsWith("a")).and(Query.smallerThan(10L));
+        assertNull(query.toQ());
+        assertTrue(query.residual().test(new File().setName("abc").setSize(1L)));
+        assertFalse(query.residual().test(new File().setName("abc").setSize(100L)));
+    }
+
+    @Test
+    public void sizeResidualsRequireTheSizeField() {
+        assertArrayEquals(new String[0], Query.mimeType("image/png").fields());
+        assertArrayEquals(new String[]{"size"}, Query.largerThan(1L).and(Query.notTrashed()).and(Query.smallerThan(10L)).fields());
+    }
+
+    @Test
+    public void queriesOfTheSameListingAreCombined() {
+        assertEquals("(trashed = false) and ('root' in parents)",
+                ListingOptions.DEFAULT.andQuery("trashed = false").andQuery("'root' in parents").query());
+        assertEquals("trashed = false", ListingOptions.DEFAULT.andQuery("trashed = false").andQuery(null).query());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void clientSideQueryCanNotBeEitherCombined() {
+        Query.mimeType("image/png").or(Query.largerThan(4096L));
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.List.of;
+import static org.junit.Assert.assertEquals;
+
+public class RateLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private long now;
+    private List<Long> sleeps;
+
+    @Before
+    public void setUp() {
+        now = 0L;
+        sleeps = new ArrayList<>();
+    }
+
+    private RateLimiter rateLimiter(double permitsPerSecond, int burst) {
+        return new RateLimiter(permitsPerSecond, burst, () -> now, sleeps::add);
+    }
+
+    @Test
+    public void permitsAreSpacedEvenly() throws Exception {
+        RateLimiter rateLimiter = rateLimiter(10, 1);
+        for (int i = 0; i < 4; i++)
+            rateLimiter.acquire();
+        assertEquals(of(100L, 200L, 300L), sleeps);
+    }
+
+    @Test
+    public void burstIsGrantedImmediately() throws Exception {
+        RateLimiter rateLimiter = rateLimiter(10, 3);
+        for (int i = 0; i < 4; i++)
+            rateLimiter.acquire();
+        assertEquals(of(100L), sleeps);
+    }
+
+    @Test
+    public void idleTimeRefillsTheBucketUpToTheBurst() {
+        RateLimiter rateLimiter = rateLimiter(10, 2);
+        assertEquals(0L, rateLimiter.reserve());
+        assertEquals(0L, rateLimiter.reserve());
+        now = 10_000 * MILLIS;
+        assertEquals(0L, rateLimiter.reserve());
+        assertEquals(0L, rateLimiter.reserve());
+        assertEquals(100 * MILLIS, rateLimiter.reserve());
+    }
+
+    @Test
+    public void severalPermitsDelayTheNextAcquisition() throws Exception {
+        RateLimiter rateLimiter = rateLimiter(10, 1);
+        rateLimiter.acquire(5);
+        rateLimiter.acquire();
+        assertEquals(of(500L), sleeps);
+    }
+
+    @Test
+    public void partialMillisecondsAreRoundedUp() throws Exception {
+        RateLimiter rateLimiter = rateLimiter(3, 1);
+        rateLimiter.acquire();
+        rateLimiter.acquire();
+        assertEquals(of(334L), sleeps);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noPermitIsRejected() {
+        RateLimiter.perSecond(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noBurstIsRejected() {
+        RateLimiter.perSecond(1, 0);
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static java.util.List.of;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RetryPolicyTest {
+
+    private static final String NEXT_PAGE_TOKEN = "1000";
+
+    private FakeDrive fakeDrive;
+    private List<Long> sleeps;
+    private RetryPolicy retryPolicy;
+    private GoogleDriveFileSpliterator spliterator;
+    private List<String> consumedIds;
+
+    @Before
+    public void setUp() {
+        fakeDrive = new FakeDrive().with(IntStream.range(0, 2_500)
+                .mapToObj(i -> FakeDrive.file(String.format("file-%04d", i), Instant.EPOCH))
+                .collect(toList()));
+        sleeps = new ArrayList<>();
+        retryPolicy = RetryPolicy.exponentialBackOff()
+                .withInitialInterval(Duration.ofMillis(100))
+                .withJitter(0)
+                .withSleeper(sleeps::add);
+        consumedIds = new ArrayList<>();
+    }
+
+    @Test
+    public void rateLimitedPageIsFetchedAgainFromTheSamePageToken() {
+        givenFirstPageIsConsumed();
+        fakeDrive.failNext(2, 403, "userRateLimitExceeded");
+        whenRemainingFilesAreConsumed();
+        thenEveryFileIsConsumedOnce();
+        assertEquals(of(100L, 200L), sleeps);
+        assertEquals(3 + 2, fakeDrive.listRequests());
+    }
+
+    private void givenFirstPageIsConsumed() {
+        spliterator = new GoogleDriveFileSpliterator(fakeDrive.drive(), ListingOptions.DEFAULT.withRetryPolicy(retryPolicy));
+        for (int i = 0; i < 1_000; i++)
+            spliterator.tryAdvance(file -> consumedIds.add(file.getId()));
+    }
+
+    private void whenRemainingFilesAreConsumed() {
+        spliterator.forEachRemaining(file -> consumedIds.add(file.getId()));
+    }
+
+    private void thenEveryFileIsConsumedOnce() {
+        Set<String> distinctIds = consumedIds.stream().collect(toSet());
+        assertEquals(2_500, consumedIds.size());
+        assertEquals(2_500, distinctIds.size());
+    }
+
+    @Test
+    public void tooManyRequestsAreRetried() {
+        givenFirstPageIsConsumed();
+        fakeDrive.failNext(1, 429, "rateLimitExceeded");
+        whenRemainingFilesAreConsumed();
+        thenEveryFileIsConsumedOnce();
+    }
+
+    @Test
+    public void backendErrorsAreRetried() {
+        givenFirstPageIsConsumed();
+        fakeDrive.failNext(1, 500, "backendError").failNext(1, 503, "backendError");
+        whenRemainingFilesAreConsumed();
+        thenEveryFileIsConsumedOnce();
+        assertEquals(of(100L, 200L), sleeps);
+    }
+
+    @Test
+    public void dailyLimitIsNotRetried() {
+        givenFirstPageIsConsumed();
+        fakeDrive.failNext(1, 403, "dailyLimitExceeded");
+        thenRemainingFilesCanNotBeConsumed();
+        assertTrue(sleeps.isEmpty());
+    }
+
+    private void thenRemainingFilesCanNotBeConsumed() {
+        try {
+            whenRemainingFilesAreConsumed();
+            fail("An exception should have been thrown");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("[" + NEXT_PAGE_TOKEN + "]"));
+        }
+    }
+
+    @Test
+    public void notFoundIsNotRetried() {
+        givenFirstPageIsConsumed();
+        fakeDrive.failNext(1, 404, "notFound");
+        thenRemainingFilesCanNotBeConsumed();
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    public void exhaustedAttemptsKeepThePageToken() {
+        retryPolicy = retryPolicy.withMaxAttempts(3);
+        givenFirstPageIsConsumed();
+        fakeDrive.failNext(3, 429, "rateLimitExceeded");
+        thenRemainingFilesCanNotBeConsumed();
+        assertEquals(of(100L, 200L), sleeps);
+    }
+
+    @Test
+    public void noRetryPolicyFailsOnFirstError() {
+        retryPolicy = RetryPolicy.none().withSleeper(sleeps::add);
+        givenFirstPageIsConsumed();
+        fakeDrive.failNext(1, 429, "rateLimitExceeded");
+        thenRemainingFilesCanNotBeConsumed();
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    public void streamSharesRateLimiterAcrossPageFetches() {
+        List<Long> waits = new ArrayList<>();
+        RateLimiter rateLimiter = new RateLimiter(2, 1, () -> 0L, waits::add);
+        long count = new GoogleDriveStream(fakeDrive.drive()).withRateLimiter(rateLimiter).files().count();
+        assertEquals(2_500L, count);
+        assertEquals(of(500L, 1_000L), waits);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noAttemptIsRejected() {
+        RetryPolicy.exponentialBackOff().withMaxAttempts(0);
+    }
+}
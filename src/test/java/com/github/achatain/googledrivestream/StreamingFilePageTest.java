@@ -0,0 +1,145 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 Antoine R. "achatain" (achatain [at] outlook [dot] com)
+ *
+ * https://github.com/achatain/google-drive-stream
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.achatain.googledrivestream;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.FileList;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.List.of;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class StreamingFilePageTest {
+
+    private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+
+    @Test
+    public void filesAreReadInOrder() throws Exception {
+        StreamingFilePage page = page("{\"kind\":\"drive#fileList\",\"files\":[{\"id\":\"a\",\"name\":\"A\"},{\"id\":\"b\",\"size\":\"42\"}]}");
+        File first = page.next();
+        File second = page.next();
+
+        assertEquals("a", first.getId());
+        assertEquals("A", first.getName());
+        assertEquals("b", second.getId());
+        assertEquals(Long.valueOf(42L), second.getSize());
+        assertNull(page.next());
+        assertNull(page.nextPageToken());
+    }
+
+    @Test
+    public void nextPageTokenIsCapturedAfterFiles() throws Exception {
+        StreamingFilePage page = page("{\"files\":[{\"id\":\"a\"}],\"nextPageToken\":\"token\"}");
+        assertEquals(of("a"), ids(page));
+        assertEquals("token", page.nextPageToken());
+    }
+
+    @Test
+    public void nextPageTokenIsCapturedBeforeFiles() throws Exception {
+        StreamingFilePage page = page("{\"nextPageToken\":\"token\",\"files\":[{\"id\":\"a\"}]}");
+        assertEquals(of("a"), ids(page));
+        assertEquals("token", page.nextPageToken());
+    }
+
+    @Test
+    public void unknownFieldsAreSkipped() throws Exception {
+        StreamingFilePage page = page("{\"incompleteSearch\":false,\"extra\":{\"files\":[{\"id\":\"x\"}]},"
+                + "\"files\":[{\"id\":\"a\",\"owners\":[{\"emailAddress\":\"a@b.c\"}]}],\"more\":[1,[2]]}");
+        assertEquals(of("a"), ids(page));
+    }
+
+    @Test
+    public void emptyPageHasNoFile() throws Exception {
+        StreamingFilePage page = page("{\"files\":[]}");
+        assertNull(page.next());
+    }
+
+    @Test(expected = IOException.class)
+    public void malformedPageIsRejected() throws Exception {
+        page("[{\"id\":\"a\"}]").next();
+    }
+
+    @Test
+    public void firstFileIsReadBeforeWholePage() throws Exception {
+        FileList fileList = new FileList().setFiles(IntStream.range(0, 1_000)
+                .mapToObj(i -> new File().setId("file-" + i).setName("A reasonably long file name " + i))
+                .collect(toList()));
+        byte[] content = JSON_FACTORY.toString(fileList).getBytes(UTF_8);
+        CountingInputStream input = new CountingInputStream(new ByteArrayInputStream(content));
+        StreamingFilePage page = new StreamingFilePage(JSON_FACTORY.createJsonParser(input, UTF_8));
+
+        assertEquals("file-0", page.next().getId());
+        assertTrue("Only the head of the page should have been read", input.count < content.length / 4);
+    }
+
+    private static StreamingFilePage page(String json) throws IOException {
+        return new StreamingFilePage(JSON_FACTORY.createJsonParser(new ByteArrayInputStream(json.getBytes(UTF_8)), UTF_8));
+    }
+
+    private static List<String> ids(StreamingFilePage page) throws IOException {
+        List<String> ids = new ArrayList<>();
+        for (File file = page.next(); file != null; file = page.next())
+            ids.add(file.getId());
+        return ids;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0)
+                count++;
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0)
+                count += read;
+            return read;
+        }
+    }
+}